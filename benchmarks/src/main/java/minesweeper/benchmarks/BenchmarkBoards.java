@@ -0,0 +1,22 @@
+package minesweeper.benchmarks;
+
+import minesweeper.BoardConfig;
+
+/**
+ * Board sizes shared by the benchmarks, selected through a JMH string parameter.
+ */
+final class BenchmarkBoards {
+
+    // Expert density carried over to the large custom board
+    static final BoardConfig LARGE = new BoardConfig(1000, 1000, 206_250);
+
+    private BenchmarkBoards() {
+    }
+
+    static BoardConfig forName(String name) {
+        if ("large".equals(name)) {
+            return LARGE;
+        }
+        return BoardConfig.fromArgs(new String[] {name});
+    }
+}
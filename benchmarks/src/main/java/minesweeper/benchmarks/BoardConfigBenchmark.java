@@ -0,0 +1,95 @@
+package minesweeper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardConfig;
+import minesweeper.BoardEngine;
+import minesweeper.Minesweeper;
+
+/**
+ * Board generation and reveal cost for each preset and two large custom boards: reset() plus
+ * mine placement, then either clearing the whole board by flipping every safe cell or, on
+ * boards too large to clear, opening the first zero cell.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardConfigBenchmark {
+
+    // Boards above this size are only opened, not cleared cell by cell
+    private static final int FULL_CLEAR_LIMIT = 1_000_000;
+
+    /**
+     * A game on the named board, reset by the benchmark itself.
+     */
+    @State(Scope.Thread)
+    public static class Board {
+        @Param({"beginner", "intermediate", "expert", "large", "huge"})
+        public String board;
+
+        Minesweeper game;
+        boolean fullClear;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            BoardConfig config = "huge".equals(board)
+                    ? new BoardConfig(10_000, 10_000, 20_625_000)
+                    : BenchmarkBoards.forName(board);
+            game = new Minesweeper(config, 42L);
+            fullClear = config.getTotalTiles() <= FULL_CLEAR_LIMIT;
+        }
+    }
+
+    /**
+     * A game given a fresh board with its mines placed before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Placed extends Board {
+        @Setup(Level.Invocation)
+        public void newBoard() {
+            game.reset();
+            game.generateBombs();
+        }
+    }
+
+    @Benchmark
+    public int generate(Board state) {
+        state.game.reset();
+        state.game.generateBombs();
+        return state.game.getSafeTiles();
+    }
+
+    // Flips every safe cell, or only the first zero cell when the board is too large to clear
+    @Benchmark
+    public int play(Placed state) {
+        Minesweeper game = state.game;
+        BoardEngine engine = game.getEngine();
+        for (int cell = 0; cell < engine.cellCount(); cell++) {
+            if (engine.isMine(cell) || engine.isRevealed(cell)) {
+                continue;
+            }
+            if (state.fullClear) {
+                game.flip(engine.rowOf(cell), engine.colOf(cell));
+            } else if (engine.adjacentMines(cell) == 0) {
+                game.flip(engine.rowOf(cell), engine.colOf(cell));
+                break;
+            }
+        }
+        return game.getSafeTiles();
+    }
+}
@@ -0,0 +1,162 @@
+package minesweeper.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardConfig;
+import minesweeper.BoardEngine;
+import minesweeper.Minesweeper;
+
+/**
+ * Minesweeper.flip on a single numbered cell and on a cascade that clears a mine-free board,
+ * and every numbered cell of a board flipped one call at a time or as one flipAll batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlipBenchmark {
+
+    /**
+     * A game whose numbered safe cells are flipped one per invocation. None of them cascades,
+     * so every flip reveals exactly one cell; the board is rebuilt when they run out.
+     */
+    @State(Scope.Thread)
+    public static class SingleCell {
+        @Param({"beginner", "intermediate", "expert", "large"})
+        public String board;
+
+        Minesweeper game;
+        int[] cells;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            game = new Minesweeper(BenchmarkBoards.forName(board), 42L);
+            rebuild();
+        }
+
+        @Setup(Level.Invocation)
+        public void nextCell() {
+            if (next == cells.length) {
+                rebuild();
+            }
+        }
+
+        private void rebuild() {
+            game.reset();
+            game.generateBombs(0, 0);
+            BoardEngine engine = game.getEngine();
+            int count = 0;
+            int[] numbered = new int[engine.cellCount()];
+            for (int cell = 0; cell < engine.cellCount(); cell++) {
+                if (!engine.isMine(cell) && engine.adjacentMines(cell) > 0) {
+                    numbered[count++] = cell;
+                }
+            }
+            cells = Arrays.copyOf(numbered, count);
+            next = 0;
+        }
+    }
+
+    /**
+     * A fresh mine-free board, so the first flip cascades over every cell.
+     */
+    @State(Scope.Thread)
+    public static class Cascade {
+        @Param({"8", "64", "512", "2048"})
+        public int size;
+
+        Minesweeper game;
+        BoardConfig config;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            config = new BoardConfig(size, size, 0);
+            game = new Minesweeper(config, 42L);
+        }
+
+        @Setup(Level.Invocation)
+        public void resetBoard() {
+            game.reset();
+        }
+    }
+
+    /**
+     * A game with its mines placed and nothing revealed, reset to the same layout before every
+     * invocation, and its numbered safe cells in board order.
+     */
+    @State(Scope.Thread)
+    public static class Numbered {
+        @Param({"beginner", "expert", "large"})
+        public String board;
+
+        Minesweeper game;
+        BoardConfig config;
+        int[] cells;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            config = BenchmarkBoards.forName(board);
+            game = new Minesweeper(config, 42L);
+            resetBoard();
+            BoardEngine engine = game.getEngine();
+            int count = 0;
+            int[] numbered = new int[engine.cellCount()];
+            for (int cell = 0; cell < engine.cellCount(); cell++) {
+                if (!engine.isMine(cell) && engine.adjacentMines(cell) > 0) {
+                    numbered[count++] = cell;
+                }
+            }
+            cells = Arrays.copyOf(numbered, count);
+        }
+
+        @Setup(Level.Invocation)
+        public void resetBoard() {
+            game.reset(config, 42L);
+            game.generateBombs(0, 0);
+        }
+    }
+
+    @Benchmark
+    public boolean singleCell(SingleCell state) {
+        int cell = state.cells[state.next++];
+        BoardEngine engine = state.game.getEngine();
+        return state.game.flip(engine.rowOf(cell), engine.colOf(cell));
+    }
+
+    @Benchmark
+    public int fullCascade(Cascade state) {
+        state.game.flip(state.size / 2, state.size / 2);
+        return state.game.getSafeTiles();
+    }
+
+    @Benchmark
+    public int numberedOneByOne(Numbered state) {
+        BoardEngine engine = state.game.getEngine();
+        for (int cell : state.cells) {
+            state.game.flip(engine.rowOf(cell), engine.colOf(cell));
+        }
+        return state.game.getSafeTiles();
+    }
+
+    @Benchmark
+    public int numberedBatch(Numbered state) {
+        state.game.flipAll(state.cells);
+        return state.game.getSafeTiles();
+    }
+}
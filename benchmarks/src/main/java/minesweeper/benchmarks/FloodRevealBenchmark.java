@@ -0,0 +1,62 @@
+package minesweeper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardEngine;
+import minesweeper.FloodReveal;
+
+/**
+ * The iterative flood reveal on its own: an entire mine-free square board revealed from its
+ * center, which is the worst case for a recursive cascade. The board is cleared before every
+ * invocation; the reveal queue stays grown from the previous one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FloodRevealBenchmark {
+
+    @Param({"256", "1024", "4000"})
+    public int size;
+
+    private BoardEngine board;
+    private FloodReveal flood;
+    private int start;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = new BoardEngine(size, size);
+        flood = new FloodReveal();
+        start = board.index(size / 2, size / 2);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearBoard() {
+        board.clear();
+    }
+
+    @Benchmark
+    public int revealAll() {
+        int revealed = flood.reveal(board, start);
+        if (revealed != board.cellCount()) {
+            throw new IllegalStateException("Revealed " + revealed + " of "
+                    + board.cellCount() + " cells");
+        }
+        return revealed;
+    }
+}
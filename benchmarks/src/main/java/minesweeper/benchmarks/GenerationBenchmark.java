@@ -0,0 +1,55 @@
+package minesweeper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardConfig;
+import minesweeper.Minesweeper;
+
+/**
+ * Cost of starting a game: Minesweeper.reset on its own and followed by generateBombs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"beginner", "intermediate", "expert", "large"})
+    public String board;
+
+    private BoardConfig config;
+    private Minesweeper game;
+
+    @Setup
+    public void setUp() {
+        config = BenchmarkBoards.forName(board);
+        game = new Minesweeper(config, 42L);
+    }
+
+    @Benchmark
+    public Minesweeper reset() {
+        game.reset();
+        return game;
+    }
+
+    @Benchmark
+    public Minesweeper generateBombs() {
+        game.reset();
+        game.generateBombs();
+        return game;
+    }
+}
@@ -0,0 +1,110 @@
+package minesweeper.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardConfig;
+import minesweeper.Leaderboard;
+import minesweeper.ScoreRecord;
+import minesweeper.ScoreStore;
+
+/**
+ * Leaderboard queries over a score log of millions of games spread over the three presets,
+ * and the one pass over the log that builds the leaderboard.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LeaderboardBenchmark {
+
+    private static final BoardConfig[] PRESETS = {
+        BoardConfig.BEGINNER, BoardConfig.INTERMEDIATE, BoardConfig.EXPERT
+    };
+
+    @Param({"100000", "3000000"})
+    public int records;
+
+    private Path scores;
+    private ScoreStore store;
+    private Leaderboard leaderboard;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() throws IOException {
+        scores = Files.createTempDirectory("minesweeper-leaderboard").resolve("scores.log");
+        random = new SplittableRandom(42);
+        store = new ScoreStore(scores);
+        for (BoardConfig config : PRESETS) {
+            for (int i = 0; i < records / PRESETS.length; i++) {
+                store.append(1 + random.nextInt(999), 1 + random.nextInt(200), config);
+            }
+        }
+        leaderboard = store.openLeaderboard();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        for (File file : scores.getParent().toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(scores.getParent());
+    }
+
+    @Benchmark
+    public List<ScoreRecord> top10() {
+        return leaderboard.top(BoardConfig.EXPERT, 10);
+    }
+
+    @Benchmark
+    public long rank() {
+        return leaderboard.rank(BoardConfig.EXPERT, 1 + random.nextInt(999),
+                1 + random.nextInt(200));
+    }
+
+    @Benchmark
+    public double percentile() {
+        return leaderboard.percentile(BoardConfig.EXPERT, 1 + random.nextInt(999),
+                1 + random.nextInt(200));
+    }
+
+    @Benchmark
+    public ScoreRecord median() {
+        return leaderboard.get(BoardConfig.EXPERT, leaderboard.size(BoardConfig.EXPERT) / 2);
+    }
+
+    // Building the leaderboard from the log, as GameBoard does once at startup, up to the
+    // first query on each board
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Leaderboard build() throws IOException {
+        try (ScoreStore opened = new ScoreStore(scores)) {
+            Leaderboard built = opened.openLeaderboard();
+            for (BoardConfig config : PRESETS) {
+                built.top(config, 1);
+            }
+            return built;
+        }
+    }
+}
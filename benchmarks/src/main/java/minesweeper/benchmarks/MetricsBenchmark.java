@@ -0,0 +1,62 @@
+package minesweeper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.EngineMetrics;
+import minesweeper.Histogram;
+
+/**
+ * Cost of the instrumentation on a flip, with measuring switched off and on: the start() and
+ * recordFlip() pair the engine calls, and a bare Histogram.record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private final Histogram histogram = new Histogram();
+    private long value;
+
+    @Setup
+    public void setUp() {
+        EngineMetrics.get().setEnabled(enabled);
+    }
+
+    @TearDown
+    public void tearDown() {
+        EngineMetrics.get().setEnabled(false);
+        EngineMetrics.get().reset();
+    }
+
+    @Benchmark
+    public long recordFlip() {
+        long start = EngineMetrics.start();
+        EngineMetrics.recordFlip(start, 0, 1);
+        return start;
+    }
+
+    @Benchmark
+    public Histogram histogramRecord() {
+        histogram.record(value++ & 0xFFFFF);
+        return histogram;
+    }
+}
@@ -0,0 +1,99 @@
+package minesweeper.benchmarks;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JLabel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardEngine;
+import minesweeper.GameBoard;
+import minesweeper.Minesweeper;
+
+/**
+ * Offscreen GameBoard.paintComponent into an image the size of the visible board, capped at
+ * 800x800 pixels, with most safe cells revealed: a frame with nothing changed, and a frame
+ * after one cell changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+
+    private static final int MAX_VIEW = 800;
+
+    @Param({"beginner", "intermediate", "expert", "large"})
+    public String board;
+
+    private GameBoard view;
+    private BoardEngine engine;
+    private int lastSafe;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp() {
+        view = new GameBoard(new JLabel(), new JLabel(), BenchmarkBoards.forName(board));
+        Minesweeper game = view.getModel();
+        game.generateBombs();
+        engine = game.getEngine();
+        // Reveal every safe cell but the last, so numbers are drawn and the game stays open
+        lastSafe = -1;
+        for (int cell = 0; cell < engine.cellCount(); cell++) {
+            if (!engine.isMine(cell)) {
+                lastSafe = cell;
+            }
+        }
+        for (int cell = 0; cell < engine.cellCount(); cell++) {
+            if (!engine.isMine(cell) && cell != lastSafe) {
+                engine.reveal(cell);
+            }
+        }
+        Dimension size = view.getPreferredSize();
+        int width = Math.min(size.width, MAX_VIEW);
+        int height = Math.min(size.height, MAX_VIEW);
+        view.setSize(size);
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setClip(0, 0, width, height);
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() {
+        view.paintComponent(graphics);
+        return image;
+    }
+
+    // Alternately reveals and hides one cell inside the view, as a click would
+    @Benchmark
+    public BufferedImage paintAfterFlip() {
+        int cell = Math.min(lastSafe, engine.index(0, 1));
+        if (!engine.reveal(cell)) {
+            engine.hide(cell);
+        }
+        view.paintComponent(graphics);
+        return image;
+    }
+}
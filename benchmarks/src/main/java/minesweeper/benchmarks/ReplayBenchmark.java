@@ -0,0 +1,76 @@
+package minesweeper.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardEngine;
+import minesweeper.GameConstants;
+import minesweeper.Minesweeper;
+import minesweeper.RandomMoveStrategy;
+import minesweeper.ReplayPlayer;
+import minesweeper.ReplayRecorder;
+
+/**
+ * Headless replay verification in games per second, over an in-memory log of random games.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+
+    private static final int GAMES = 1000;
+
+    @Param({"beginner", "intermediate", "expert"})
+    public String board;
+
+    private byte[] log;
+    private final ReplayPlayer player = new ReplayPlayer();
+
+    @Setup
+    public void setUp() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(out, true);
+        Minesweeper game = new Minesweeper(BenchmarkBoards.forName(board), 42L);
+        game.setRecorder(recorder);
+        RandomMoveStrategy strategy = new RandomMoveStrategy();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < GAMES; i++) {
+            game.reset();
+            BoardEngine engine = game.getEngine();
+            int moves = 0;
+            while (game.gameResult() == GameConstants.GAME_IN_PROGRESS) {
+                int cell = strategy.nextMove(game, random);
+                game.flip(engine.rowOf(cell), engine.colOf(cell));
+                moves++;
+            }
+            recorder.endGame(game.gameResult(), 0, moves);
+        }
+        recorder.close();
+        log = out.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public ReplayPlayer.Summary play() throws IOException {
+        return player.play(new ByteArrayInputStream(log));
+    }
+}
@@ -0,0 +1,73 @@
+package minesweeper.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardConfig;
+import minesweeper.ScoreStore;
+import minesweeper.ScoreWriter;
+
+/**
+ * Scores per second through the background writer under each durability policy, from submit
+ * until the scores are on disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreWriterBenchmark {
+
+    private static final int BATCH = 256;
+
+    @Param({"FLUSH_PER_RECORD", "GROUP_COMMIT", "FSYNC"})
+    public ScoreWriter.Durability durability;
+
+    private Path scores;
+    private ScoreStore store;
+    private ScoreWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        scores = Files.createTempDirectory("minesweeper-writer").resolve("scores.log");
+        store = new ScoreStore(scores);
+        writer = new ScoreWriter(store, durability, 1, BATCH);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.close();
+        store.close();
+        for (File file : scores.getParent().toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(scores.getParent());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public boolean submitAndFlush() throws InterruptedException {
+        for (int i = 0; i < BATCH; i++) {
+            writer.submit(1 + (i & 511), 1 + (i & 63), BoardConfig.BEGINNER);
+        }
+        return writer.flush(10_000);
+    }
+}
@@ -0,0 +1,83 @@
+package minesweeper.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JLabel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardConfig;
+import minesweeper.GameBoard;
+import minesweeper.ScoreStore;
+
+/**
+ * Score log cost as the log grows: opening it at startup, and the refresh done on every reset.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ScoresBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int records;
+
+    private Path scores;
+    private GameBoard board;
+
+    @Setup
+    public void setUp() throws IOException {
+        scores = Files.createTempDirectory("minesweeper-scores").resolve("scores.log");
+        SplittableRandom random = new SplittableRandom(42);
+        try (ScoreStore store = new ScoreStore(scores)) {
+            for (int i = 0; i < records; i++) {
+                store.append(1 + random.nextInt(999), 1 + random.nextInt(200),
+                        BoardConfig.BEGINNER);
+            }
+        }
+        board = new GameBoard(new JLabel(), new JLabel(), BoardConfig.BEGINNER,
+                scores.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        board.closeScores();
+        for (File file : scores.getParent().toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(scores.getParent());
+    }
+
+    @Benchmark
+    public ScoreStore open() throws IOException {
+        try (ScoreStore store = new ScoreStore(scores)) {
+            return store;
+        }
+    }
+
+    // What the score writer does for GameBoard.updateScores, followed by the leaderboard read
+    @Benchmark
+    public GameBoard updateScores() throws IOException {
+        board.getScoreStore().refresh();
+        board.updateHighScores();
+        return board;
+    }
+}
@@ -0,0 +1,159 @@
+package minesweeper.benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardConfig;
+import minesweeper.Minesweeper;
+import minesweeper.SharedMinesweeper;
+
+/**
+ * Flips per second on one shared board as the number of players grows: the lock-free
+ * SharedMinesweeper against a Minesweeper behind a single lock.
+ *
+ * Every iteration starts on a fresh 4096x4096 board whose numbered safe cells are shuffled
+ * once; each player walks the shuffled cells from its own offset, so players mostly flip
+ * different cells but do meet. Iterations are short so a single player does not run out of
+ * cells; once every cell is revealed, flips only read the revealed bit.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class SharedBoardBenchmark {
+
+    private static final int SIZE = 4096;
+    private static final BoardConfig CONFIG = new BoardConfig(SIZE, SIZE, SIZE * SIZE / 6);
+    private static final int MAX_PLAYERS = 8;
+
+    /**
+     * The board all players share and the order its cells are flipped in.
+     */
+    @State(Scope.Benchmark)
+    public static class Board {
+        SharedMinesweeper shared;
+        Minesweeper locked;
+        int[] cells;
+        final AtomicInteger players = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            shared = new SharedMinesweeper(CONFIG, 42L);
+            shared.flip(0, 0);
+            int[] mines = new int[CONFIG.getMines()];
+            int mineCount = 0;
+            int count = 0;
+            cells = new int[shared.cellCount()];
+            for (int cell = 0; cell < shared.cellCount(); cell++) {
+                if (shared.isMine(cell)) {
+                    mines[mineCount++] = cell;
+                } else if (shared.adjacentMines(cell) > 0) {
+                    cells[count++] = cell;
+                }
+            }
+            // The locked game gets the same layout
+            locked = new Minesweeper(CONFIG, 42L);
+            locked.placeMines(mines, mineCount);
+            locked.flip(0, 0);
+            SplittableRandom random = new SplittableRandom(42L);
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = cells[i];
+                cells[i] = cells[j];
+                cells[j] = swap;
+            }
+            cells = Arrays.copyOf(cells, count);
+            players.set(0);
+        }
+    }
+
+    /**
+     * One player's position in the shuffled cells.
+     */
+    @State(Scope.Thread)
+    public static class Player {
+        int next;
+
+        @Setup(Level.Iteration)
+        public void join(Board board) {
+            next = board.players.getAndIncrement() * (board.cells.length / MAX_PLAYERS);
+        }
+
+        int nextCell(Board board) {
+            if (next == board.cells.length) {
+                next = 0;
+            }
+            return board.cells[next++];
+        }
+    }
+
+    private static int flipShared(Board board, Player player) {
+        int cell = player.nextCell(board);
+        return board.shared.flip(cell / SIZE, cell % SIZE);
+    }
+
+    private static boolean flipLocked(Board board, Player player) {
+        int cell = player.nextCell(board);
+        synchronized (board.locked) {
+            return board.locked.flip(cell / SIZE, cell % SIZE);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int shared1(Board board, Player player) {
+        return flipShared(board, player);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public int shared2(Board board, Player player) {
+        return flipShared(board, player);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int shared4(Board board, Player player) {
+        return flipShared(board, player);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int shared8(Board board, Player player) {
+        return flipShared(board, player);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean locked1(Board board, Player player) {
+        return flipLocked(board, player);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean locked4(Board board, Player player) {
+        return flipLocked(board, player);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean locked8(Board board, Player player) {
+        return flipLocked(board, player);
+    }
+}
@@ -0,0 +1,74 @@
+package minesweeper.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardConfig;
+import minesweeper.BoardEngine;
+import minesweeper.GameSnapshot;
+import minesweeper.Minesweeper;
+
+/**
+ * GameSnapshot save and load of a 10000x10000 expert-density game in progress, with the top
+ * fifth of the board played and a full undo journal.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SnapshotBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    private Minesweeper game;
+    private Minesweeper resumed;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        game = new Minesweeper(new BoardConfig(SIZE, SIZE, SIZE * SIZE / 5), 42L);
+        game.flip(0, 0);
+        BoardEngine engine = game.getEngine();
+        for (int cell = 0; cell < engine.cellCount() / 5; cell++) {
+            if (!engine.isMine(cell) && !engine.isRevealed(cell)) {
+                game.flip(engine.rowOf(cell), engine.colOf(cell));
+            }
+        }
+        resumed = new Minesweeper(game.getConfig(), 1L);
+        file = Files.createTempFile("snapshot", ".save");
+        GameSnapshot.save(file, game, 0, 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        GameSnapshot.save(file, game, 0, 0);
+        return file;
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        GameSnapshot.load(file, resumed);
+        return resumed.getSafeTiles();
+    }
+}
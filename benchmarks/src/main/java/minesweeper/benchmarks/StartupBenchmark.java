@@ -0,0 +1,59 @@
+package minesweeper.benchmarks;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JLabel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardConfig;
+import minesweeper.GameBoard;
+import minesweeper.TerminalGame;
+
+/**
+ * Time to the first beginner board in a fresh JVM, one call per fork, so class loading and
+ * interpreted code are measured as a player would meet them.
+ * terminal runs TerminalGame until its empty input ends, drawing the board into memory.
+ * swing builds the GameBoard that Game puts in its frame and paints it into an image.
+ * Benchmarks have no display, so swing runs headless and without the JFrame. That leaves
+ * out the window and the display connection, which makes it a lower bound on Game's start.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 20, jvmArgsAppend = "-Djava.awt.headless=true")
+public class StartupBenchmark {
+
+    @Benchmark
+    public int terminal() throws IOException {
+        ByteArrayOutputStream screen = new ByteArrayOutputStream();
+        new TerminalGame(BoardConfig.BEGINNER, 42L, InputStream.nullInputStream(), screen).run();
+        return screen.size();
+    }
+
+    @Benchmark
+    public BufferedImage swing() {
+        GameBoard view = new GameBoard(new JLabel(), new JLabel(), BoardConfig.BEGINNER);
+        Dimension size = view.getPreferredSize();
+        view.setSize(size);
+        BufferedImage image = new BufferedImage(size.width, size.height,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        view.paintComponent(graphics);
+        graphics.dispose();
+        return image;
+    }
+}
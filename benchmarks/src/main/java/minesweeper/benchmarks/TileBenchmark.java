@@ -0,0 +1,55 @@
+package minesweeper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import minesweeper.BoardEngine;
+import minesweeper.Minesweeper;
+import minesweeper.Tile;
+
+/**
+ * Tile.setNeighbors and Tile.findNumBombs over every cell of a board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileBenchmark {
+
+    @Param({"beginner", "intermediate", "expert", "large"})
+    public String board;
+
+    private Minesweeper game;
+
+    @Setup
+    public void setUp() {
+        game = new Minesweeper(BenchmarkBoards.forName(board), 42L);
+        game.generateBombs();
+    }
+
+    @Benchmark
+    public void setNeighborsAndFindNumBombs(Blackhole bh) {
+        BoardEngine engine = game.getEngine();
+        for (int row = 0; row < engine.rows(); row++) {
+            for (int col = 0; col < engine.cols(); col++) {
+                Tile tile = game.getTile(row, col);
+                tile.setNeighbors();
+                bh.consume(tile.findNumBombs());
+            }
+        }
+    }
+}
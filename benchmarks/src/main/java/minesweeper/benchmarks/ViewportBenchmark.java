@@ -0,0 +1,105 @@
+package minesweeper.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import minesweeper.BoardEngine;
+import minesweeper.Viewport;
+import minesweeper.ViewportRenderer;
+
+/**
+ * Offscreen ViewportRenderer frames of a 10000x10000 board in an 800x800 window, at the
+ * zoom level given as steps in from the fitted view: a still frame, a frame after one cell
+ * changed, and a frame while panning.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ViewportBenchmark {
+
+    private static final int SIZE = 10_000;
+    private static final int WINDOW = 800;
+
+    // 0 is the whole board, 6 one pixel per cell, 10 and up draws sprites
+    @Param({"0", "6", "8", "13"})
+    public int zoom;
+
+    private BoardEngine engine;
+    private Viewport view;
+    private ViewportRenderer renderer;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int cell;
+    private int direction = 1;
+
+    @Setup
+    public void setUp() {
+        engine = new BoardEngine(SIZE, SIZE);
+        // Every seventh cell of every other row revealed, so frames have content to draw
+        for (int row = 0; row < SIZE; row += 2) {
+            for (int col = 0; col < SIZE; col += 7) {
+                engine.reveal(engine.index(row, col));
+            }
+        }
+        view = new Viewport(SIZE, SIZE, WINDOW, WINDOW);
+        view.zoomAt(zoom, WINDOW / 2, WINDOW / 2);
+        renderer = new ViewportRenderer();
+        renderer.boardReset(engine);
+        image = new BufferedImage(WINDOW, WINDOW, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        cell = view.cellAt(WINDOW / 2, WINDOW / 2);
+        renderer.paint(graphics, engine, -1, view, Color.LIGHT_GRAY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        renderer.paint(graphics, engine, -1, view, Color.LIGHT_GRAY);
+        return image;
+    }
+
+    // Alternately reveals and hides the cell in the middle of the window
+    @Benchmark
+    public BufferedImage paintAfterFlip() {
+        if (!engine.reveal(cell)) {
+            engine.hide(cell);
+        }
+        renderer.cellChanged(cell);
+        renderer.paint(graphics, engine, -1, view, Color.LIGHT_GRAY);
+        return image;
+    }
+
+    // Drags the view back and forth across the board
+    @Benchmark
+    public BufferedImage paintWhilePanning() {
+        double left = view.getLeft();
+        view.pan(-37 * direction, -23 * direction);
+        if (view.getLeft() == left) {
+            direction = -direction;
+        }
+        renderer.paint(graphics, engine, -1, view, Color.LIGHT_GRAY);
+        return image;
+    }
+}
@@ -0,0 +1,120 @@
+package minesweeper;
+
+/**
+ * Board configuration for a Minesweeper game.
+ * Holds the board dimensions and mine count that drive generation, bounds checks and drawing,
+ * so larger boards can be played without recompiling. Instances are immutable.
+ */
+public final class BoardConfig {
+
+    // Standard presets
+    public static final BoardConfig BEGINNER = new BoardConfig("Beginner",
+            GameConstants.BOARD_ROWS, GameConstants.BOARD_COLS, GameConstants.BOMB_COUNT);
+    public static final BoardConfig INTERMEDIATE = new BoardConfig("Intermediate", 16, 16, 40);
+    public static final BoardConfig EXPERT = new BoardConfig("Expert", 16, 30, 99);
+
+    // Largest side length accepted for a custom board
+    public static final int MAX_DIMENSION = 20_000;
+
+    private final String name;
+    private final int rows;
+    private final int cols;
+    private final int mines;
+
+    /**
+     * Creates a custom configuration.
+     * @param rows number of rows, 1 to MAX_DIMENSION
+     * @param cols number of columns, 1 to MAX_DIMENSION
+     * @param mines number of mines, at least 0 and fewer than the number of cells
+     */
+    public BoardConfig(int rows, int cols, int mines) {
+        this("Custom", rows, cols, mines);
+    }
+
+    private BoardConfig(String name, int rows, int cols, int mines) {
+        if (rows < 1 || rows > MAX_DIMENSION || cols < 1 || cols > MAX_DIMENSION) {
+            throw new IllegalArgumentException("Board must be between 1x1 and "
+                    + MAX_DIMENSION + "x" + MAX_DIMENSION + ", was " + rows + "x" + cols);
+        }
+        if (mines < 0 || (long) mines >= (long) rows * cols) {
+            throw new IllegalArgumentException("Mine count " + mines
+                    + " does not fit a " + rows + "x" + cols + " board");
+        }
+        this.name = name;
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+    }
+
+    /**
+     * Looks up a configuration from command-line style arguments: either a preset name
+     * (beginner, intermediate, expert) or three integers rows, cols and mines.
+     * @param args the arguments, may be empty for the beginner preset
+     * @return the matching configuration
+     */
+    public static BoardConfig fromArgs(String[] args) {
+        if (args.length == 0) {
+            return BEGINNER;
+        }
+        if (args.length == 1) {
+            switch (args[0].toLowerCase()) {
+                case "beginner":
+                    return BEGINNER;
+                case "intermediate":
+                    return INTERMEDIATE;
+                case "expert":
+                    return EXPERT;
+                default:
+                    throw new IllegalArgumentException("Unknown preset " + args[0]);
+            }
+        }
+        if (args.length == 3) {
+            return new BoardConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                    Integer.parseInt(args[2]));
+        }
+        throw new IllegalArgumentException("Expected a preset name or rows cols mines");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    public int getTotalTiles() {
+        return rows * cols;
+    }
+
+    public int getSafeTileCount() {
+        return rows * cols - mines;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BoardConfig)) {
+            return false;
+        }
+        BoardConfig other = (BoardConfig) o;
+        return rows == other.rows && cols == other.cols && mines == other.mines;
+    }
+
+    @Override
+    public int hashCode() {
+        return (rows * 31 + cols) * 31 + mines;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + rows + "x" + cols + " (" + mines + " mines)";
+    }
+}
@@ -0,0 +1,389 @@
+package minesweeper;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Primitive storage for a Minesweeper board.
+ * Mine, revealed and flagged state are kept as long[] bit-planes (one bit per cell) and the
+ * adjacent-mine counts as a byte[], so a board costs a little under 1.4 bytes per cell and no
+ * per-tile objects. Cells are addressed by their row-major index, row * cols + col.
+ * Counts of flagged neighbors, another byte per cell, are kept from the first flag on.
+ */
+public final class BoardEngine {
+
+    /** Largest number of cells a single engine can address with int indices. */
+    public static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    // Eight bytes of a byte[] as one long, for recount
+    private static final VarHandle BYTE_LONGS = MethodHandles.byteArrayViewVarHandle(
+            long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // Bit i of the index moved to the low bit of byte i
+    private static final long[] SPREAD_BITS = new long[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            for (int i = 0; i < 8; i++) {
+                if ((b & (1 << i)) != 0) {
+                    SPREAD_BITS[b] |= 1L << (8 * i);
+                }
+            }
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int cellCount;
+    private final long[] mines;
+    private final long[] revealed;
+    private final long[] flagged;
+    private final byte[] counts;
+    private byte[] flagCounts; // flagged neighbors per cell, null until a flag is set
+    private int mineCount;
+
+    /**
+     * Creates an empty board with no mines, nothing revealed and nothing flagged.
+     * @param rows number of rows, at least 1
+     * @param cols number of columns, at least 1
+     */
+    public BoardEngine(int rows, int cols) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("Unsupported board size " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.cellCount = rows * cols;
+        int words = (cellCount + 63) >>> 6;
+        this.mines = new long[words];
+        this.revealed = new long[words];
+        this.flagged = new long[words];
+        this.counts = new byte[cellCount];
+    }
+
+    /**
+     * Clears every plane so the engine can be reused for a new game of the same size.
+     */
+    public void clear() {
+        Arrays.fill(mines, 0L);
+        Arrays.fill(revealed, 0L);
+        Arrays.fill(flagged, 0L);
+        Arrays.fill(counts, (byte) 0);
+        if (flagCounts != null) {
+            Arrays.fill(flagCounts, (byte) 0);
+        }
+        mineCount = 0;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int cellCount() {
+        return cellCount;
+    }
+
+    public int mineCount() {
+        return mineCount;
+    }
+
+    /**
+     * Checks if coordinates are within board bounds.
+     * @param row the row coordinate
+     * @param col the column coordinate
+     * @return true if coordinates are valid
+     */
+    public boolean contains(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+
+    public int rowOf(int cell) {
+        return cell / cols;
+    }
+
+    public int colOf(int cell) {
+        return cell % cols;
+    }
+
+    public boolean isMine(int cell) {
+        return (mines[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public boolean isRevealed(int cell) {
+        return (revealed[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public boolean isFlagged(int cell) {
+        return (flagged[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Returns the number of mines around a cell. The value is maintained for every cell,
+     * including mines themselves.
+     * @param cell the cell index
+     * @return number of adjacent mines, 0 to 8
+     */
+    public int adjacentMines(int cell) {
+        return counts[cell];
+    }
+
+    /**
+     * Places a mine and updates the counts of its neighbors.
+     * @param cell the cell index
+     * @return true if the cell did not already hold a mine
+     */
+    public boolean placeMine(int cell) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        if ((mines[word] & bit) != 0) {
+            return false;
+        }
+        mines[word] |= bit;
+        mineCount++;
+        adjustNeighborCounts(cell, 1);
+        return true;
+    }
+
+    /**
+     * Removes a mine and updates the counts of its neighbors.
+     * @param cell the cell index
+     * @return true if the cell held a mine
+     */
+    public boolean removeMine(int cell) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        if ((mines[word] & bit) == 0) {
+            return false;
+        }
+        mines[word] &= ~bit;
+        mineCount--;
+        adjustNeighborCounts(cell, -1);
+        return true;
+    }
+
+    /**
+     * Marks a cell as revealed.
+     * @param cell the cell index
+     * @return true if the cell was hidden before the call
+     */
+    public boolean reveal(int cell) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        if ((revealed[word] & bit) != 0) {
+            return false;
+        }
+        revealed[word] |= bit;
+        return true;
+    }
+
+    /**
+     * Marks a cell as hidden again.
+     * @param cell the cell index
+     * @return true if the cell was revealed before the call
+     */
+    public boolean hide(int cell) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        if ((revealed[word] & bit) == 0) {
+            return false;
+        }
+        revealed[word] &= ~bit;
+        return true;
+    }
+
+    /**
+     * Sets or clears the flag of a cell and updates the flagged-neighbor counts around it.
+     */
+    public void setFlagged(int cell, boolean flag) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        if (((flagged[word] & bit) != 0) == flag) {
+            return;
+        }
+        if (flag) {
+            flagged[word] |= bit;
+        } else {
+            flagged[word] &= ~bit;
+        }
+        if (flagCounts == null) {
+            flagCounts = new byte[cellCount];
+        }
+        adjustNeighbors(flagCounts, cell, flag ? 1 : -1);
+    }
+
+    /**
+     * Returns the number of flagged cells around a cell, kept up to date by setFlagged.
+     * @param cell the cell index
+     * @return number of adjacent flags, 0 to 8
+     */
+    public int adjacentFlags(int cell) {
+        return flagCounts == null ? 0 : flagCounts[cell];
+    }
+
+    /**
+     * Writes the indices of the in-bounds neighbors of a cell into the given buffer.
+     * @param cell the cell index
+     * @param out buffer with room for at least 8 entries
+     * @return the number of neighbors written
+     */
+    public int neighbors(int cell, int[] out) {
+        int row = cell / cols;
+        int col = cell - row * cols;
+        int n = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            if (r < 0 || r >= rows) {
+                continue;
+            }
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (c >= 0 && c < cols && (r != row || c != col)) {
+                    out[n++] = r * cols + c;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Rebuilds the adjacent counts and the mine count from the mine plane, and the flagged
+     * neighbor counts from the flag plane, for code that wrote the planes in bulk. Mines are
+     * swept row by row: each row is unpacked to one byte per cell, columns are summed over
+     * three rows and cells over three columns, eight cells per long, so the work is sequential
+     * whatever the density.
+     */
+    void recount() {
+        // Unpacked rows and column sums, with a zero column on the left and room for a long
+        // past the right edge
+        int width = ((cols + 2 + 7) & ~7) + 8;
+        byte[] above = new byte[width];
+        byte[] current = new byte[width];
+        byte[] below = new byte[width];
+        byte[] sums = new byte[width];
+        unpackMines(0, current);
+        if (rows > 1) {
+            unpackMines(1, below);
+        }
+        for (int row = 0; row < rows; row++) {
+            // Byte lanes hold at most 9, so the long arithmetic never carries between cells
+            for (int c = 0; c < cols + 2; c += 8) {
+                BYTE_LONGS.set(sums, c, (long) BYTE_LONGS.get(above, c)
+                        + (long) BYTE_LONGS.get(current, c) + (long) BYTE_LONGS.get(below, c));
+            }
+            int base = row * cols;
+            int c = 0;
+            for (; c + 8 <= cols; c += 8) {
+                BYTE_LONGS.set(counts, base + c, (long) BYTE_LONGS.get(sums, c)
+                        + (long) BYTE_LONGS.get(sums, c + 1) + (long) BYTE_LONGS.get(sums, c + 2)
+                        - (long) BYTE_LONGS.get(current, c + 1));
+            }
+            for (; c < cols; c++) {
+                counts[base + c] = (byte) (sums[c] + sums[c + 1] + sums[c + 2] - current[c + 1]);
+            }
+            byte[] recycled = above;
+            above = current;
+            current = below;
+            below = recycled;
+            if (row + 2 < rows) {
+                unpackMines(row + 2, below);
+            } else {
+                Arrays.fill(below, (byte) 0);
+            }
+        }
+        mineCount = 0;
+        for (long word : mines) {
+            mineCount += Long.bitCount(word);
+        }
+        // Flags are few, so their counts are rebuilt one flag at a time
+        if (flagCounts != null) {
+            Arrays.fill(flagCounts, (byte) 0);
+        }
+        for (int word = 0; word < flagged.length; word++) {
+            long bits = flagged[word];
+            while (bits != 0) {
+                if (flagCounts == null) {
+                    flagCounts = new byte[cellCount];
+                }
+                adjustNeighbors(flagCounts, (word << 6) + Long.numberOfTrailingZeros(bits), 1);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    // Writes one row of the mine plane as a 0 or 1 byte per cell, from index 1 of out
+    private void unpackMines(int row, byte[] out) {
+        int cell = row * cols;
+        int end = cell + cols;
+        int pos = 1;
+        while (cell < end) {
+            int word = cell >>> 6;
+            int shift = cell & 63;
+            long bits = mines[word] >>> shift;
+            if (shift != 0 && word + 1 < mines.length) {
+                bits |= mines[word + 1] << (64 - shift);
+            }
+            int n = Math.min(64, end - cell);
+            if (n < 64) {
+                bits &= (1L << n) - 1;
+            }
+            for (int k = 0; k < n; k += 8) {
+                BYTE_LONGS.set(out, pos + k, SPREAD_BITS[(int) (bits >>> k) & 0xFF]);
+            }
+            cell += n;
+            pos += n;
+        }
+        // The last long may have run past the row
+        Arrays.fill(out, cols + 1, out.length, (byte) 0);
+    }
+
+    // Raw planes for code that copies board state in bulk; callers must not resize them
+    long[] minePlane() {
+        return mines;
+    }
+
+    long[] revealedPlane() {
+        return revealed;
+    }
+
+    long[] flaggedPlane() {
+        return flagged;
+    }
+
+    /**
+     * Approximate heap footprint of the planes held by this engine, in bytes.
+     */
+    public long footprintBytes() {
+        return 3L * mines.length * Long.BYTES + counts.length
+                + (flagCounts == null ? 0 : flagCounts.length);
+    }
+
+    private void adjustNeighborCounts(int cell, int delta) {
+        adjustNeighbors(counts, cell, delta);
+    }
+
+    // Adds delta to the entries of target for the neighbors of a cell
+    private void adjustNeighbors(byte[] target, int cell, int delta) {
+        int row = cell / cols;
+        int col = cell - row * cols;
+        int rowStart = Math.max(0, row - 1);
+        int rowEnd = Math.min(rows - 1, row + 1);
+        int colStart = Math.max(0, col - 1);
+        int colEnd = Math.min(cols - 1, col + 1);
+        for (int r = rowStart; r <= rowEnd; r++) {
+            int base = r * cols;
+            for (int c = colStart; c <= colEnd; c++) {
+                if (r != row || c != col) {
+                    target[base + c] += delta;
+                }
+            }
+        }
+    }
+}
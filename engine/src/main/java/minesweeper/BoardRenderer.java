@@ -0,0 +1,305 @@
+package minesweeper;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Renders a BoardEngine for GameBoard by redrawing only the cells that changed.
+ *
+ * The board is drawn onto a canvas image covering the visible part of the board. The canvas
+ * remembers the state drawn in each of its cells. A paint compares that with the board and
+ * blits a pre-rendered sprite for each cell that changed, then copies the clip area of the
+ * canvas to the screen in one drawImage. A new canvas starts as a copy of a cached grid
+ * background, which is also what a hidden cell looks like, so only revealed cells are blitted
+ * onto it. Numbers and mines are rendered once into the sprites, so painting a frame
+ * allocates nothing.
+ *
+ * Paint times are recorded so the cost of a frame can be read back.
+ */
+public final class BoardRenderer {
+
+    // Sprite states: 0-8 are revealed numbers
+    private static final int MINE = 9;
+    private static final int HIDDEN = 10;
+    private static final int HINT = 11;
+    private static final int FLAG = 12;
+    private static final int STATES = 13;
+
+    // Largest canvas kept for the visible rectangle; bigger views only cache their clip
+    private static final int MAX_CANVAS_PIXELS = 4096 * 4096;
+
+    private final int cellSize;
+    private BufferedImage[] sprites;
+    private Color spriteBackground;
+    private Font spriteFont;
+
+    private BufferedImage canvas;
+    private BufferedImage background;
+    private Graphics2D canvasGraphics;
+    private byte[] shown;
+    private boolean valid;
+    private int canvasRow;
+    private int canvasCol;
+    private int canvasRows;
+    private int canvasCols;
+    private int boardRows;
+    private int boardCols;
+
+    private long lastPaintNanos;
+    private long totalPaintNanos;
+    private long frames;
+    private int lastDirtyCells;
+
+    /**
+     * Creates a renderer.
+     * @param cellSize width and height of a cell in pixels
+     */
+    public BoardRenderer(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Paints the cells of the board inside the clip of g.
+     * @param g the graphics to paint on, in board coordinates
+     * @param board the board to draw
+     * @param hintCell the highlighted cell, or -1
+     * @param visible the part of the board on screen
+     * @param background color of hidden cells
+     */
+    public void paint(Graphics g, BoardEngine board, int hintCell, Rectangle visible,
+            Color background) {
+        long start = System.nanoTime();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = visible;
+        }
+        int lastRow = Math.min(board.rows() - 1, (clip.y + clip.height - 1) / cellSize);
+        int lastCol = Math.min(board.cols() - 1, (clip.x + clip.width - 1) / cellSize);
+        int firstRow = Math.max(0, clip.y / cellSize);
+        int firstCol = Math.max(0, clip.x / cellSize);
+        if (firstRow > lastRow || firstCol > lastCol) {
+            return;
+        }
+        prepareSprites(g, background);
+        if (!canvasCovers(board, firstRow, firstCol, lastRow, lastCol)) {
+            Rectangle region = visible.width * (long) visible.height <= MAX_CANVAS_PIXELS
+                    ? visible.union(clip) : clip;
+            buildCanvas(g, board, region);
+        }
+        int dirty = 0;
+        int cols = board.cols();
+        for (int row = firstRow; row <= lastRow; row++) {
+            int local = (row - canvasRow) * canvasCols - canvasCol;
+            for (int col = firstCol; col <= lastCol; col++) {
+                int cell = row * cols + col;
+                int state = stateOf(board, cell, hintCell);
+                if (shown[local + col] != state) {
+                    shown[local + col] = (byte) state;
+                    canvasGraphics.drawImage(sprites[state], (col - canvasCol) * cellSize,
+                            (row - canvasRow) * cellSize, null);
+                    dirty++;
+                }
+            }
+        }
+        int x = firstCol * cellSize;
+        int y = firstRow * cellSize;
+        int width = (lastCol + 1) * cellSize - x;
+        int height = (lastRow + 1) * cellSize - y;
+        int sx = x - canvasCol * cellSize;
+        int sy = y - canvasRow * cellSize;
+        g.drawImage(canvas, x, y, x + width, y + height, sx, sy, sx + width, sy + height, null);
+
+        lastDirtyCells = dirty;
+        lastPaintNanos = System.nanoTime() - start;
+        totalPaintNanos += lastPaintNanos;
+        frames++;
+    }
+
+    /**
+     * Returns the area a set of changed cells covers, for Component.repaint.
+     * @param cells the changed cell indices, e.g. from a FloodReveal
+     * @param count number of entries of cells to use
+     * @param cols board width in cells
+     * @return the bounding rectangle in pixels, or null if count is 0
+     */
+    public Rectangle bounds(int[] cells, int count, int cols) {
+        if (count == 0) {
+            return null;
+        }
+        int minRow = Integer.MAX_VALUE;
+        int minCol = Integer.MAX_VALUE;
+        int maxRow = -1;
+        int maxCol = -1;
+        for (int i = 0; i < count; i++) {
+            int row = cells[i] / cols;
+            int col = cells[i] - row * cols;
+            minRow = Math.min(minRow, row);
+            maxRow = Math.max(maxRow, row);
+            minCol = Math.min(minCol, col);
+            maxCol = Math.max(maxCol, col);
+        }
+        return new Rectangle(minCol * cellSize, minRow * cellSize,
+                (maxCol - minCol + 1) * cellSize, (maxRow - minRow + 1) * cellSize);
+    }
+
+    //Gets the area the cells changed by a move cover, or null if it changed none
+    public Rectangle bounds(MoveEvent move, int cols) {
+        return bounds(move.cells(), move.getCellCount(), cols);
+    }
+
+    //Gets the pixel rectangle of one cell
+    public Rectangle bounds(int cell, int cols) {
+        return new Rectangle((cell % cols) * cellSize, (cell / cols) * cellSize, cellSize,
+                cellSize);
+    }
+
+    //Forgets what the canvas shows, so the next paint redraws every visible cell
+    public void invalidate() {
+        valid = false;
+    }
+
+    private static int stateOf(BoardEngine board, int cell, int hintCell) {
+        if (board.isRevealed(cell)) {
+            return board.isMine(cell) ? MINE : board.adjacentMines(cell);
+        }
+        if (board.isFlagged(cell)) {
+            return FLAG;
+        }
+        return cell == hintCell ? HINT : HIDDEN;
+    }
+
+    private boolean canvasCovers(BoardEngine board, int firstRow, int firstCol, int lastRow,
+            int lastCol) {
+        return valid && boardRows == board.rows() && boardCols == board.cols()
+                && firstRow >= canvasRow && firstCol >= canvasCol
+                && lastRow < canvasRow + canvasRows && lastCol < canvasCol + canvasCols;
+    }
+
+    // Starts a canvas over the cells of region as a copy of the grid background
+    private void buildCanvas(Graphics g, BoardEngine board, Rectangle region) {
+        invalidate();
+        boardRows = board.rows();
+        boardCols = board.cols();
+        canvasRow = Math.max(0, region.y / cellSize);
+        canvasCol = Math.max(0, region.x / cellSize);
+        int endRow = Math.min(boardRows, (region.y + region.height - 1) / cellSize + 1);
+        int endCol = Math.min(boardCols, (region.x + region.width - 1) / cellSize + 1);
+        canvasRows = endRow - canvasRow;
+        canvasCols = endCol - canvasCol;
+        int width = canvasCols * cellSize;
+        int height = canvasRows * cellSize;
+        if (background == null || background.getWidth() != width
+                || background.getHeight() != height) {
+            background = createImage(g, width, height);
+            Graphics2D bg = background.createGraphics();
+            for (int row = 0; row < canvasRows; row++) {
+                for (int col = 0; col < canvasCols; col++) {
+                    bg.drawImage(sprites[HIDDEN], col * cellSize, row * cellSize, null);
+                }
+            }
+            bg.dispose();
+        }
+        // Panning rebuilds the canvas every frame, so an image of the same size is reused
+        if (canvas == null || canvas.getWidth() != width || canvas.getHeight() != height) {
+            if (canvasGraphics != null) {
+                canvasGraphics.dispose();
+            }
+            canvas = createImage(g, width, height);
+            canvasGraphics = canvas.createGraphics();
+        }
+        canvasGraphics.drawImage(background, 0, 0, null);
+        if (shown == null || shown.length != canvasRows * canvasCols) {
+            shown = new byte[canvasRows * canvasCols];
+        }
+        Arrays.fill(shown, (byte) HIDDEN);
+        valid = true;
+    }
+
+    // Renders the sprites once per background color and font
+    private void prepareSprites(Graphics g, Color color) {
+        Font font = g.getFont();
+        if (sprites != null && color.equals(spriteBackground)
+                && (font == null ? spriteFont == null : font.equals(spriteFont))) {
+            return;
+        }
+        invalidate();
+        background = null;
+        spriteBackground = color;
+        spriteFont = font;
+        sprites = new BufferedImage[STATES];
+        for (int state = 0; state < STATES; state++) {
+            BufferedImage sprite = createImage(g, cellSize, cellSize);
+            Graphics2D s = sprite.createGraphics();
+            s.setColor(color);
+            s.fillRect(0, 0, cellSize, cellSize);
+            if (state == HINT) {
+                s.setColor(Color.GREEN);
+                s.fillRect(1, 1, cellSize - 1, cellSize - 1);
+            }
+            s.setColor(Color.BLACK);
+            if (font != null) {
+                s.setFont(font);
+            }
+            // Grid lines on the top and left edges; neighbors draw the other two
+            s.drawLine(0, 0, cellSize, 0);
+            s.drawLine(0, 0, 0, cellSize);
+            if (state <= 8) {
+                s.drawString(String.valueOf(state), cellSize / 2, cellSize / 2);
+            } else if (state == MINE) {
+                s.drawLine(0, 0, cellSize, cellSize);
+                s.drawLine(0, cellSize, cellSize, 0);
+            } else if (state == FLAG) {
+                s.setColor(Color.RED);
+                s.fillPolygon(new int[] {cellSize / 3, cellSize * 3 / 4, cellSize / 3},
+                        new int[] {cellSize / 5, cellSize / 3, cellSize / 2}, 3);
+                s.setColor(Color.BLACK);
+                s.drawLine(cellSize / 3, cellSize / 5, cellSize / 3, cellSize * 4 / 5);
+            }
+            s.dispose();
+            sprites[state] = sprite;
+        }
+    }
+
+    private static BufferedImage createImage(Graphics g, int width, int height) {
+        GraphicsConfiguration gc = g instanceof Graphics2D
+                ? ((Graphics2D) g).getDeviceConfiguration() : null;
+        if (gc == null && !GraphicsEnvironment.isHeadless()) {
+            gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+        }
+        return gc != null ? gc.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    //Gets the time the last paint took, in nanoseconds
+    public long getLastPaintNanos() {
+        return lastPaintNanos;
+    }
+
+    //Gets the mean paint time over all frames, in nanoseconds
+    public long getAveragePaintNanos() {
+        return frames == 0 ? 0 : totalPaintNanos / frames;
+    }
+
+    //Gets the number of frames painted
+    public long getFrames() {
+        return frames;
+    }
+
+    //Gets the number of cells redrawn by the last paint
+    public int getLastDirtyCells() {
+        return lastDirtyCells;
+    }
+}
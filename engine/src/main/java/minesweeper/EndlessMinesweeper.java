@@ -0,0 +1,632 @@
+package minesweeper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endless Minesweeper game logic.
+ * The board has no edges: cells are addressed by arbitrary long coordinates and split into
+ * fixed-size square chunks. Each chunk is a small BoardEngine that is only created when a flip
+ * or a cascade first touches it. Mines are a pure function of the seed and the cell
+ * coordinates, so a chunk always regenerates to the same layout, and its engine carries a
+ * one-cell halo of neighboring mines so border counts are right without loading neighbors.
+ *
+ * At most maxLoadedChunks chunks stay in memory. The least recently used chunk is evicted when
+ * another one is needed: untouched chunks are simply dropped, and chunks with revealed or
+ * flagged cells are written to a fixed-size slot in a local spill file and read back on demand.
+ *
+ * The index from chunk to slot lives in the spill file too, as an open-addressing hash table
+ * of (chunk row, chunk column, slot offset) entries, so the heap holds nothing per spilled
+ * chunk however far the player explores. The table is kept at most half full. When it fills,
+ * a table twice the size is allocated at the end of the file and the entries are moved over.
+ * The old tables stay behind as dead space, less in total than the current table.
+ */
+public class EndlessMinesweeper implements Closeable {
+
+    // Side length of a chunk in cells
+    public static final int CHUNK_SIZE = 64;
+
+    // Most cells a single flip may reveal; flipping a revealed zero cell continues the cascade
+    public static final int MAX_CASCADE = 1 << 20;
+
+    public static final double DEFAULT_DENSITY = 0.2;
+    public static final int DEFAULT_LOADED_CHUNKS = 256;
+
+    private static final int SIDE = CHUNK_SIZE + 2;
+    private static final int INDEX_ENTRY_BYTES = 3 * Long.BYTES;
+    private static final int INITIAL_INDEX_ENTRIES = 64;
+
+    private final long seed;
+    private final long mineThreshold;
+    private final int maxLoadedChunks;
+    private final LinkedHashMap<ChunkKey, BoardEngine> chunks;
+    private final File spillFile;
+    private RandomAccessFile spill;
+    private File spillPath;
+    private byte[] spillBuffer;
+    private final byte[] indexEntry = new byte[INDEX_ENTRY_BYTES];
+    private long spillEnd; // bytes of the spill file handed out to tables and slots
+    private long indexOffset; // start of the current index table
+    private int indexEntries; // size of the current index table, 0 before the first spill
+    private int spilledChunks;
+
+    // Most recently used chunk, to skip the map lookup for consecutive cells
+    private long lastChunkRow = Long.MIN_VALUE;
+    private long lastChunkCol = Long.MIN_VALUE;
+    private BoardEngine lastChunk;
+
+    private long[] queue = new long[2 * 256];
+    private int gameState;
+    private long revealedCount;
+
+    /**
+     * Creates an endless game with a random seed, the default density and chunk budget, and a
+     * temporary spill file.
+     */
+    public EndlessMinesweeper() {
+        this(System.nanoTime(), DEFAULT_DENSITY, DEFAULT_LOADED_CHUNKS, null);
+    }
+
+    /**
+     * Creates an endless game.
+     * @param seed seed for the mine layout; equal seeds give equal boards
+     * @param density probability that a cell holds a mine, 0 to 1 exclusive
+     * @param maxLoadedChunks how many chunks may be held in memory, at least 9
+     * @param spillFile file for evicted chunks, or null for a temporary file
+     */
+    public EndlessMinesweeper(long seed, double density, int maxLoadedChunks, File spillFile) {
+        if (!(density >= 0 && density < 1)) {
+            throw new IllegalArgumentException("Density must be in [0, 1), was " + density);
+        }
+        if (maxLoadedChunks < 9) {
+            throw new IllegalArgumentException("Need room for at least 9 chunks");
+        }
+        this.seed = seed;
+        this.mineThreshold = (long) (density * (1L << 53));
+        this.maxLoadedChunks = maxLoadedChunks;
+        this.spillFile = spillFile;
+        this.chunks = new LinkedHashMap<ChunkKey, BoardEngine>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ChunkKey, BoardEngine> eldest) {
+                if (size() <= EndlessMinesweeper.this.maxLoadedChunks) {
+                    return false;
+                }
+                evict(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+        this.gameState = GameConstants.GAME_IN_PROGRESS;
+    }
+
+    /**
+     * Flips a tile at the specified coordinates and cascades through zero cells.
+     * Flipping an already revealed zero cell continues a cascade that hit MAX_CASCADE.
+     * @param row the row coordinate
+     * @param col the column coordinate
+     * @return true if the flip revealed anything, false if invalid or game is over
+     */
+    public boolean flip(long row, long col) {
+        if (gameState != GameConstants.GAME_IN_PROGRESS) {
+            return false;
+        }
+        BoardEngine chunk = chunkFor(row, col);
+        int cell = localCell(chunk, row, col);
+        if (chunk.isFlagged(cell)) {
+            return false;
+        }
+        if (chunk.isRevealed(cell)) {
+            return chunk.adjacentMines(cell) == 0 && cascade(row, col, false) > 0;
+        }
+        if (chunk.isMine(cell)) {
+            chunk.reveal(cell);
+            gameState = GameConstants.GAME_LOST;
+            return true;
+        }
+        cascade(row, col, true);
+        return true;
+    }
+
+    /**
+     * Sets or clears a flag on a hidden cell.
+     * @return true if the flag changed
+     */
+    public boolean setFlagged(long row, long col, boolean flag) {
+        BoardEngine chunk = chunkFor(row, col);
+        int cell = localCell(chunk, row, col);
+        if (chunk.isRevealed(cell) || chunk.isFlagged(cell) == flag) {
+            return false;
+        }
+        chunk.setFlagged(cell, flag);
+        return true;
+    }
+
+    //Gets a tile given positions. The view keeps the coordinates, not the chunk, so it stays
+    //valid when the chunk is evicted and reloaded.
+    public EndlessTile getTile(long row, long col) {
+        return new EndlessTile(row, col);
+    }
+
+    //Checks for a mine without loading the chunk
+    public boolean isMine(long row, long col) {
+        return (mix(mix(seed ^ row) + col) >>> 11) < mineThreshold;
+    }
+
+    public boolean isRevealed(long row, long col) {
+        BoardEngine chunk = chunkFor(row, col);
+        return chunk.isRevealed(localCell(chunk, row, col));
+    }
+
+    public int adjacentMines(long row, long col) {
+        BoardEngine chunk = chunkFor(row, col);
+        return chunk.adjacentMines(localCell(chunk, row, col));
+    }
+
+    //Gets the result of the game currently; endless games are never won
+    public int gameResult() {
+        return gameState;
+    }
+
+    //Returns the number of safe cells revealed so far
+    public long getRevealedCount() {
+        return revealedCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    //Returns the number of chunks currently held in memory
+    public int getLoadedChunks() {
+        return chunks.size();
+    }
+
+    //Returns the number of chunks that have been written to the spill file
+    public int getSpilledChunks() {
+        return spilledChunks;
+    }
+
+    /**
+     * Closes and deletes the spill file. The game cannot be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        lastChunk = null;
+        spilledChunks = 0;
+        indexEntries = 0;
+        spillEnd = 0;
+        if (spill != null) {
+            spill.close();
+            spill = null;
+            if (!spillPath.delete()) {
+                throw new IOException("Could not delete " + spillPath);
+            }
+        }
+    }
+
+    // Breadth-first reveal over (row, col) pairs. When reveal is false the start cell is
+    // already revealed and only its neighbors are expanded.
+    private int cascade(long startRow, long startCol, boolean reveal) {
+        int size = 0;
+        int head = 0;
+        if (reveal) {
+            BoardEngine chunk = chunkFor(startRow, startCol);
+            chunk.reveal(localCell(chunk, startRow, startCol));
+            revealedCount++;
+            size = 1;
+        }
+        queue[0] = startRow;
+        queue[1] = startCol;
+        int tail = 1;
+        while (head < tail && size < MAX_CASCADE) {
+            long row = queue[2 * head];
+            long col = queue[2 * head + 1];
+            head++;
+            BoardEngine chunk = chunkFor(row, col);
+            if (chunk.adjacentMines(localCell(chunk, row, col)) != 0) {
+                continue;
+            }
+            for (long r = row - 1; r <= row + 1; r++) {
+                for (long c = col - 1; c <= col + 1; c++) {
+                    BoardEngine next = chunkFor(r, c);
+                    int cell = localCell(next, r, c);
+                    if (size < MAX_CASCADE && !next.isFlagged(cell) && next.reveal(cell)) {
+                        revealedCount++;
+                        size++;
+                        if (tail * 2 == queue.length) {
+                            queue = Arrays.copyOf(queue, queue.length * 2);
+                        }
+                        queue[2 * tail] = r;
+                        queue[2 * tail + 1] = c;
+                        tail++;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private BoardEngine chunkFor(long row, long col) {
+        long chunkRow = Math.floorDiv(row, (long) CHUNK_SIZE);
+        long chunkCol = Math.floorDiv(col, (long) CHUNK_SIZE);
+        if (lastChunk != null && chunkRow == lastChunkRow && chunkCol == lastChunkCol) {
+            return lastChunk;
+        }
+        ChunkKey key = new ChunkKey(chunkRow, chunkCol);
+        BoardEngine chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = load(key);
+            chunks.put(key, chunk);
+        }
+        lastChunkRow = chunkRow;
+        lastChunkCol = chunkCol;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    private int localCell(BoardEngine chunk, long row, long col) {
+        return chunk.index((int) Math.floorMod(row, (long) CHUNK_SIZE) + 1,
+                (int) Math.floorMod(col, (long) CHUNK_SIZE) + 1);
+    }
+
+    // Builds a chunk's mines, including the halo, and restores any spilled state
+    private BoardEngine load(ChunkKey key) {
+        BoardEngine chunk = new BoardEngine(SIDE, SIDE);
+        long originRow = key.row * CHUNK_SIZE - 1;
+        long originCol = key.col * CHUNK_SIZE - 1;
+        for (int r = 0; r < SIDE; r++) {
+            for (int c = 0; c < SIDE; c++) {
+                if (isMine(originRow + r, originCol + c)) {
+                    chunk.placeMine(chunk.index(r, c));
+                }
+            }
+        }
+        long slot = findSlot(key);
+        if (slot >= 0) {
+            readSlot(slot, chunk);
+        }
+        return chunk;
+    }
+
+    private void evict(ChunkKey key, BoardEngine chunk) {
+        if (chunk == lastChunk) {
+            lastChunk = null;
+        }
+        long slot = findSlot(key);
+        // A chunk spilled before is written again even if untouched now, or its slot would
+        // bring back cells hidden since
+        if (slot < 0 && !isTouched(chunk)) {
+            return;
+        }
+        if (slot < 0) {
+            slot = allocateSlot(key, spillBuffer(chunk.revealedPlane().length).length);
+        }
+        writeSlot(slot, chunk);
+    }
+
+    // Looks the chunk up in the index in the spill file; returns its slot offset or -1
+    private long findSlot(ChunkKey key) {
+        if (spilledChunks == 0) {
+            return -1;
+        }
+        try {
+            int mask = indexEntries - 1;
+            for (int i = bucket(key.row, key.col, mask); ; i = (i + 1) & mask) {
+                long offset = readEntry(indexOffset + (long) i * INDEX_ENTRY_BYTES);
+                if (offset == 0) {
+                    return -1;
+                }
+                if (getLong(indexEntry, 0) == key.row
+                        && getLong(indexEntry, Long.BYTES) == key.col) {
+                    return offset;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the spill index", e);
+        }
+    }
+
+    // Gives a chunk a new slot at the end of the file and records it in the index
+    private long allocateSlot(ChunkKey key, int slotBytes) {
+        try {
+            if (2 * (spilledChunks + 1) > indexEntries) {
+                growIndex();
+            }
+            long slot = spillEnd;
+            spillEnd += slotBytes;
+            insertEntry(indexOffset, indexEntries, key.row, key.col, slot);
+            spilledChunks++;
+            return slot;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not grow the spill index", e);
+        }
+    }
+
+    // Allocates a table twice the size at the end of the file and moves the entries over.
+    // The first table starts at offset 0, so a slot offset of 0 marks an empty entry.
+    private void growIndex() throws IOException {
+        int entries = indexEntries == 0 ? INITIAL_INDEX_ENTRIES : 2 * indexEntries;
+        long offset = spillEnd;
+        long bytes = (long) entries * INDEX_ENTRY_BYTES;
+        RandomAccessFile file = spill();
+        byte[] zeros = new byte[(int) Math.min(bytes, 1 << 16)];
+        file.seek(offset);
+        for (long left = bytes; left > 0; left -= zeros.length) {
+            file.write(zeros, 0, (int) Math.min(left, zeros.length));
+        }
+        spillEnd += bytes;
+        for (int i = 0; i < indexEntries; i++) {
+            long slot = readEntry(indexOffset + (long) i * INDEX_ENTRY_BYTES);
+            if (slot != 0) {
+                insertEntry(offset, entries, getLong(indexEntry, 0),
+                        getLong(indexEntry, Long.BYTES), slot);
+            }
+        }
+        indexOffset = offset;
+        indexEntries = entries;
+    }
+
+    private void insertEntry(long table, int entries, long row, long col, long slot)
+            throws IOException {
+        int mask = entries - 1;
+        int i = bucket(row, col, mask);
+        while (readEntry(table + (long) i * INDEX_ENTRY_BYTES) != 0) {
+            i = (i + 1) & mask;
+        }
+        putLong(indexEntry, putLong(indexEntry, putLong(indexEntry, 0, row), col), slot);
+        RandomAccessFile file = spill();
+        file.seek(table + (long) i * INDEX_ENTRY_BYTES);
+        file.write(indexEntry);
+    }
+
+    // Reads an index entry into indexEntry and returns its slot offset, 0 if empty
+    private long readEntry(long position) throws IOException {
+        RandomAccessFile file = spill();
+        file.seek(position);
+        file.readFully(indexEntry);
+        return getLong(indexEntry, 2 * Long.BYTES);
+    }
+
+    private static int bucket(long row, long col, int mask) {
+        return (int) mix(row * 0x9E3779B97F4A7C15L + col) & mask;
+    }
+
+    private static boolean isTouched(BoardEngine chunk) {
+        long[] revealed = chunk.revealedPlane();
+        long[] flagged = chunk.flaggedPlane();
+        for (int i = 0; i < revealed.length; i++) {
+            if ((revealed[i] | flagged[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeSlot(long slot, BoardEngine chunk) {
+        long[] revealed = chunk.revealedPlane();
+        long[] flagged = chunk.flaggedPlane();
+        byte[] buffer = spillBuffer(revealed.length);
+        int pos = 0;
+        for (int i = 0; i < revealed.length; i++) {
+            pos = putLong(buffer, pos, revealed[i]);
+        }
+        for (int i = 0; i < flagged.length; i++) {
+            pos = putLong(buffer, pos, flagged[i]);
+        }
+        try {
+            RandomAccessFile file = spill();
+            file.seek(slot);
+            file.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill chunk", e);
+        }
+    }
+
+    private void readSlot(long slot, BoardEngine chunk) {
+        long[] revealed = chunk.revealedPlane();
+        long[] flagged = chunk.flaggedPlane();
+        byte[] buffer = spillBuffer(revealed.length);
+        try {
+            RandomAccessFile file = spill();
+            file.seek(slot);
+            file.readFully(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reload chunk", e);
+        }
+        int pos = 0;
+        for (int i = 0; i < revealed.length; i++, pos += Long.BYTES) {
+            revealed[i] = getLong(buffer, pos);
+        }
+        for (int i = 0; i < flagged.length; i++, pos += Long.BYTES) {
+            flagged[i] = getLong(buffer, pos);
+        }
+    }
+
+    private byte[] spillBuffer(int words) {
+        if (spillBuffer == null) {
+            spillBuffer = new byte[2 * words * Long.BYTES];
+        }
+        return spillBuffer;
+    }
+
+    private RandomAccessFile spill() throws IOException {
+        if (spill == null) {
+            spillPath = spillFile;
+            if (spillPath == null) {
+                spillPath = File.createTempFile("minesweeper-endless", ".spill");
+                spillPath.deleteOnExit();
+            }
+            spill = new RandomAccessFile(spillPath, "rw");
+        }
+        return spill;
+    }
+
+    private static int putLong(byte[] buffer, int pos, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[pos++] = (byte) (value >>> shift);
+        }
+        return pos;
+    }
+
+    private static long getLong(byte[] buffer, int pos) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (buffer[pos + i] & 0xFF);
+        }
+        return value;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A cell of the endless board seen as a Tile. Every call finds the cell's chunk again, so
+     * reads see the current state and writes reach the chunk that is spilled and reloaded.
+     * Neighbors are the cells around it on the whole board, across chunk borders.
+     * Mines follow from the seed, so they cannot be set.
+     */
+    public final class EndlessTile extends Tile {
+
+        private final long row;
+        private final long col;
+
+        EndlessTile(long row, long col) {
+            this.row = row;
+            this.col = col;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public long getCol() {
+            return col;
+        }
+
+        //Gets the row as an int; throws ArithmeticException if it does not fit
+        @Override
+        public int getXPos() {
+            return Math.toIntExact(row);
+        }
+
+        //Gets the column as an int; throws ArithmeticException if it does not fit
+        @Override
+        public int getYPos() {
+            return Math.toIntExact(col);
+        }
+
+        @Override
+        public int findNumBombs() {
+            return isBomb() ? -1 : adjacentMines(row, col);
+        }
+
+        //Reveals this cell alone, without a cascade, as Tile.flipTile does
+        @Override
+        public void flipTile() {
+            BoardEngine chunk = chunkFor(row, col);
+            int cell = localCell(chunk, row, col);
+            if (chunk.reveal(cell) && !chunk.isMine(cell)) {
+                revealedCount++;
+            }
+        }
+
+        @Override
+        public void unflipTile() {
+            BoardEngine chunk = chunkFor(row, col);
+            int cell = localCell(chunk, row, col);
+            if (chunk.hide(cell) && !chunk.isMine(cell)) {
+                revealedCount--;
+            }
+        }
+
+        @Override
+        public boolean isFlipped() {
+            return isRevealed(row, col);
+        }
+
+        @Override
+        public boolean isBomb() {
+            return isMine(row, col);
+        }
+
+        @Override
+        public void setBomb(boolean bombOrNot) {
+            throw new UnsupportedOperationException("Endless mines follow from the seed");
+        }
+
+        @Override
+        public boolean isFlagged() {
+            BoardEngine chunk = chunkFor(row, col);
+            return chunk.isFlagged(localCell(chunk, row, col));
+        }
+
+        @Override
+        public ArrayList<Tile> getNeighbors() {
+            ArrayList<Tile> neighbors = new ArrayList<Tile>(8);
+            if (!isBomb()) {
+                for (long r = row - 1; r <= row + 1; r++) {
+                    for (long c = col - 1; c <= col + 1; c++) {
+                        if (r != row || c != col) {
+                            neighbors.add(new EndlessTile(r, c));
+                        }
+                    }
+                }
+            }
+            return neighbors;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EndlessTile)) {
+                return false;
+            }
+            EndlessTile other = (EndlessTile) o;
+            return game() == other.game() && row == other.row && col == other.col;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(row * 0x9E3779B97F4A7C15L + col);
+        }
+
+        private EndlessMinesweeper game() {
+            return EndlessMinesweeper.this;
+        }
+    }
+
+    // Chunk coordinates used as the map key
+    private static final class ChunkKey {
+        private final long row;
+        private final long col;
+
+        ChunkKey(long row, long col) {
+            this.row = row;
+            this.col = col;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ChunkKey)) {
+                return false;
+            }
+            ChunkKey other = (ChunkKey) o;
+            return row == other.row && col == other.col;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(row * 0x9E3779B97F4A7C15L + col);
+        }
+    }
+}
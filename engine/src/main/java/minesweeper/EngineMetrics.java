@@ -0,0 +1,277 @@
+package minesweeper;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Timings of the engine's hot paths: flips, flood reveals, board generation, frames and
+ * score I/O.
+ *
+ * Measuring is off unless the minesweeper.metrics system property is true or it is switched on
+ * through setEnabled() or JMX. While off, start() returns 0 without reading the clock and every
+ * record method returns on that, so an instrumented call costs one volatile read. While on,
+ * each sample goes into a Histogram and, if a Flight Recorder recording has the matching event
+ * enabled, into a minesweeper.* JFR event. Without a recording the event objects never escape
+ * the record method, so the JIT removes them and recording allocates nothing.
+ *
+ * The usual pattern is
+ * <pre>
+ *     long start = EngineMetrics.start();
+ *     ...
+ *     EngineMetrics.recordPaint(start);
+ * </pre>
+ */
+public final class EngineMetrics implements EngineMetricsMXBean {
+
+    public static final String OBJECT_NAME = "minesweeper:type=EngineMetrics";
+
+    private static final double MICROS = 1000.0;
+
+    private static final EngineMetrics INSTANCE = new EngineMetrics();
+
+    private static volatile boolean enabled = Boolean.getBoolean("minesweeper.metrics");
+
+    private final Histogram flip = new Histogram();
+    private final Histogram floodReveal = new Histogram();
+    private final Histogram cellsPerMove = new Histogram();
+    private final Histogram generation = new Histogram();
+    private final Histogram paint = new Histogram();
+    private final Histogram scoreIo = new Histogram();
+
+    private EngineMetrics() {
+    }
+
+    //Gets the shared metrics, the object registered with JMX
+    public static EngineMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server. Failures are logged, not thrown,
+     * since the game runs the same without them.
+     */
+    public static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            // Looked up here, as the metrics are loaded by every flip and logging is slow to start
+            Logger.getLogger(EngineMetrics.class.getName()).log(Level.WARNING,
+                    "Could not register engine metrics", e);
+        }
+    }
+
+    //Reads the clock if measuring is on; 0 means the sample is not recorded
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a whole flip, from validation to the win or loss check.
+     * @param start the value of start() taken when the flip began
+     * @param cell the flipped cell
+     * @param revealed number of cells the flip revealed
+     */
+    public static void recordFlip(long start, int cell, int revealed) {
+        if (start == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        INSTANCE.flip.record(nanos);
+        INSTANCE.cellsPerMove.record(revealed);
+        FlipEvent event = new FlipEvent();
+        if (event.shouldCommit()) {
+            event.nanos = nanos;
+            event.cell = cell;
+            event.revealed = revealed;
+            event.commit();
+        }
+    }
+
+    //Records the flood reveal part of a flip
+    public static void recordFloodReveal(long start) {
+        if (start != 0) {
+            INSTANCE.floodReveal.record(System.nanoTime() - start);
+        }
+    }
+
+    //Records placing the mines of a board, including any no-guess search
+    public static void recordGeneration(long start, BoardConfig config) {
+        if (start == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        INSTANCE.generation.record(nanos);
+        GenerationEvent event = new GenerationEvent();
+        if (event.shouldCommit()) {
+            event.nanos = nanos;
+            event.rows = config.getRows();
+            event.cols = config.getCols();
+            event.mines = config.getMines();
+            event.commit();
+        }
+    }
+
+    //Records one paintComponent frame
+    public static void recordPaint(long start) {
+        if (start == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        INSTANCE.paint.record(nanos);
+        PaintEvent event = new PaintEvent();
+        if (event.shouldCommit()) {
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a read or write of the score log.
+     * @param start the value of start() taken before the I/O
+     * @param operation what was done, e.g. "append" or "refresh"
+     * @param records number of scores written, or 0 for a read
+     */
+    public static void recordScoreIo(long start, String operation, int records) {
+        if (start == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        INSTANCE.scoreIo.record(nanos);
+        ScoreIoEvent event = new ScoreIoEvent();
+        if (event.shouldCommit()) {
+            event.nanos = nanos;
+            event.operation = operation;
+            event.records = records;
+            event.commit();
+        }
+    }
+
+    //Checks whether measuring is on
+    public static boolean isOn() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    @Override
+    public Histogram.Snapshot getFlipLatency() {
+        return flip.snapshot(MICROS);
+    }
+
+    @Override
+    public Histogram.Snapshot getFloodRevealLatency() {
+        return floodReveal.snapshot(MICROS);
+    }
+
+    @Override
+    public Histogram.Snapshot getCellsRevealedPerMove() {
+        return cellsPerMove.snapshot(1);
+    }
+
+    @Override
+    public Histogram.Snapshot getGenerationLatency() {
+        return generation.snapshot(MICROS);
+    }
+
+    @Override
+    public Histogram.Snapshot getPaintLatency() {
+        return paint.snapshot(MICROS);
+    }
+
+    @Override
+    public Histogram.Snapshot getScoreIoLatency() {
+        return scoreIo.snapshot(MICROS);
+    }
+
+    @Override
+    public void reset() {
+        flip.reset();
+        floodReveal.reset();
+        cellsPerMove.reset();
+        generation.reset();
+        paint.reset();
+        scoreIo.reset();
+    }
+
+    @Name("minesweeper.Flip")
+    @Label("Flip")
+    @Category("Minesweeper")
+    @Description("A tile flip and the cells it revealed")
+    static final class FlipEvent extends Event {
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+
+        @Label("Cell")
+        int cell;
+
+        @Label("Cells Revealed")
+        int revealed;
+    }
+
+    @Name("minesweeper.Generation")
+    @Label("Board Generation")
+    @Category("Minesweeper")
+    static final class GenerationEvent extends Event {
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+
+        @Label("Rows")
+        int rows;
+
+        @Label("Columns")
+        int cols;
+
+        @Label("Mines")
+        int mines;
+    }
+
+    @Name("minesweeper.Paint")
+    @Label("Paint")
+    @Category("Minesweeper")
+    static final class PaintEvent extends Event {
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    @Name("minesweeper.ScoreIo")
+    @Label("Score I/O")
+    @Category("Minesweeper")
+    static final class ScoreIoEvent extends Event {
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Records")
+        int records;
+    }
+}
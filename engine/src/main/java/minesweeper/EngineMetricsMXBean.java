@@ -0,0 +1,26 @@
+package minesweeper;
+
+/**
+ * Management interface of EngineMetrics, registered as minesweeper:type=EngineMetrics.
+ * Latencies are in microseconds; cells per move is a plain count.
+ */
+public interface EngineMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Histogram.Snapshot getFlipLatency();
+
+    Histogram.Snapshot getFloodRevealLatency();
+
+    Histogram.Snapshot getCellsRevealedPerMove();
+
+    Histogram.Snapshot getGenerationLatency();
+
+    Histogram.Snapshot getPaintLatency();
+
+    Histogram.Snapshot getScoreIoLatency();
+
+    void reset();
+}
@@ -0,0 +1,122 @@
+package minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * Iterative flood reveal over a BoardEngine.
+ * Reveals a cell and, when it has no adjacent mines, the whole connected zero region plus its
+ * numbered border in a single breadth-first pass. The work queue is a reusable int[] of cell
+ * indices and doubles as the result: after a call, entries 0 to size() - 1 are exactly the
+ * cells revealed by that call, in reveal order. Once the buffer has grown to fit the largest
+ * region seen, further reveals allocate nothing.
+ */
+public final class FloodReveal {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] cells;
+    private int size;
+
+    public FloodReveal() {
+        cells = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Reveals the given cell and cascades through neighbors with zero adjacent mines.
+     * Flagged cells and mines are never revealed by the cascade.
+     * @param board the board to reveal on
+     * @param start index of the cell the player picked
+     * @return the number of cells newly revealed, 0 if start was already revealed
+     */
+    public int reveal(BoardEngine board, int start) {
+        size = 0;
+        return extend(board, start);
+    }
+
+    /**
+     * Empties the result, to start a series of extend calls.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Reveals like reveal, but adds to the cells of the previous calls instead of replacing
+     * them, so one result can collect a move that opens several cells, such as a chord.
+     * @param board the board to reveal on
+     * @param start index of the cell to open
+     * @return the number of cells newly revealed by this call
+     */
+    public int extend(BoardEngine board, int start) {
+        int first = size;
+        if (!board.reveal(start)) {
+            return 0;
+        }
+        push(start);
+        if (board.isMine(start)) {
+            return 1;
+        }
+        int rows = board.rows();
+        int cols = board.cols();
+        int head = first;
+        while (head < size) {
+            int cell = cells[head++];
+            if (board.adjacentMines(cell) != 0) {
+                continue;
+            }
+            int row = cell / cols;
+            int col = cell - row * cols;
+            int rowStart = Math.max(0, row - 1);
+            int rowEnd = Math.min(rows - 1, row + 1);
+            int colStart = Math.max(0, col - 1);
+            int colEnd = Math.min(cols - 1, col + 1);
+            for (int r = rowStart; r <= rowEnd; r++) {
+                int base = r * cols;
+                for (int c = colStart; c <= colEnd; c++) {
+                    int next = base + c;
+                    // A zero cell has no mine neighbors, so only flags can block the cascade
+                    if (!board.isFlagged(next) && board.reveal(next)) {
+                        push(next);
+                    }
+                }
+            }
+        }
+        return size - first;
+    }
+
+    /**
+     * Returns the number of cells revealed by the last call to reveal and the extend calls
+     * after it.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of the k-th cell revealed by the last call to reveal.
+     * @param k position in reveal order, 0 to size() - 1
+     * @return the cell index
+     */
+    public int cell(int k) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("No revealed cell at " + k);
+        }
+        return cells[k];
+    }
+
+    /**
+     * Copies the cells revealed by the last call to reveal into a new array.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(cells, size);
+    }
+
+    private void push(int cell) {
+        if (size == cells.length) {
+            int grown = cells.length > (BoardEngine.MAX_CELLS >> 1)
+                    ? BoardEngine.MAX_CELLS : cells.length << 1;
+            cells = Arrays.copyOf(cells, grown);
+        }
+        cells[size++] = cell;
+    }
+}
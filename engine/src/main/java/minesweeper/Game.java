@@ -4,6 +4,8 @@
  * Created by Bayley Tuch, Sabrina Green, and Nicolas Corona in Fall 2020.
  */
 
+package minesweeper;
+
 import java.awt.*;
 import java.awt.event.*;
 
@@ -25,6 +27,19 @@ import javax.swing.*;
  * it will instantiate a TicTacToe object to serve as the game's model.
  */
 public class Game implements Runnable {
+    // Largest on-screen size of the board before it is shown in a zoomable viewport
+    private static final int MAX_VISIBLE_BOARD = 800;
+
+    private final BoardConfig config;
+
+    public Game() {
+        this(BoardConfig.BEGINNER);
+    }
+
+    public Game(BoardConfig config) {
+        this.config = config;
+    }
+
     public void run() {
         // NOTE: the 'final' keyword denotes immutability even for local variables.
 
@@ -44,10 +59,17 @@ public class Game implements Runnable {
         final JLabel instructions_label = new JLabel("<html>How to play:<br/>This game is similar "
                 + "to"
                 + " "
-                + "the classic minesweeper game.<br/> There are exactly 10 bombs on the board.<br/>"
+                + "the classic minesweeper game.<br/> There are exactly " + config.getMines()
+                + " bombs on the board.<br/>"
                 + " Flip all the tiles that aren't bombs to win! <br/>"
+                + "Right click flags a tile, and clicking a number<br/> with all its bombs "
+                + "flagged flips its other neighbors. <br/>"
                 + "The reset button will restart the game. <br/>The undo "
-                + "button will undo a move if you ever make a mistake. <br/>The timer at the bottom"
+                + "button takes back moves one at a time,<br/> and redo plays them again. "
+                + "<br/>The hint button "
+                + "highlights a tile that is sure to be safe. <br/>With No guess ticked, every "
+                + "board can be<br/> solved without guessing. <br/>On large boards, use the "
+                + "mouse wheel to zoom<br/> and drag to move around. <br/>The timer at the bottom"
                 + " indicates how much time you are taking to win the game.<br/> The numMoves "
                 + "tells "
                 + "you how many moves you have used to win the game.<br/> Try to win in the "
@@ -61,7 +83,13 @@ public class Game implements Runnable {
         score_panel.add(leaderboard);
 
         // Game board
-        final GameBoard board = new GameBoard(status, leaderboard);
+        final GameBoard board = new GameBoard(status, leaderboard, config);
+        Dimension boardSize = board.getPreferredSize();
+        if (boardSize.width > MAX_VISIBLE_BOARD || boardSize.height > MAX_VISIBLE_BOARD) {
+            // Too large to show at full size: zoom with the mouse wheel, drag to pan
+            board.enableViewport(Math.min(boardSize.width, MAX_VISIBLE_BOARD),
+                    Math.min(boardSize.height, MAX_VISIBLE_BOARD));
+        }
         frame.add(board, BorderLayout.CENTER);
         
 
@@ -88,20 +116,59 @@ public class Game implements Runnable {
             }
         });
         control_panel.add(undo);
+
+        //Redo button
+        final JButton redo = new JButton("Redo");
+        redo.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                board.redo();
+            }
+        });
+        control_panel.add(redo);
+
+        //Hint button
+        final JButton hint = new JButton("Hint");
+        hint.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                board.hint();
+            }
+        });
+        control_panel.add(hint);
+
+        //No-guess toggle
+        final JCheckBox noGuess = new JCheckBox("No guess");
+        noGuess.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                board.setNoGuess(noGuess.isSelected());
+            }
+        });
+        control_panel.add(noGuess);
         // Put the frame on the screen
         frame.pack();
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Keeps an unfinished game for the next start
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                board.saveGame();
+            }
+        });
         frame.setVisible(true);
 
-        // Start the game
-        board.reset();
+        // Start the game, carrying on from the last session if it was left unfinished
+        if (!board.resumeGame()) {
+            board.reset();
+        }
     }
 
     /**
      * Main method run to start and run the game. Initializes the GUI elements specified in Game and
      * runs it. IMPORTANT: Do NOT delete! You MUST include this in your final submission.
+     * Accepts an optional preset name (beginner, intermediate, expert) or rows cols mines.
+     * Engine timings are published over JMX; run with -Dminesweeper.metrics=true to collect them.
      */
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(new Game());
+        EngineMetrics.register();
+        SwingUtilities.invokeLater(new Game(BoardConfig.fromArgs(args)));
     }
 }
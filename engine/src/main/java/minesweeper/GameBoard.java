@@ -0,0 +1,626 @@
+package minesweeper;
+
+import java.awt.*;
+import javax.swing.*;
+import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+@SuppressWarnings("serial")
+public class GameBoard extends JPanel {
+
+    private static final Logger LOGGER = Logger.getLogger(GameBoard.class.getName());
+
+    private Minesweeper t; // model for the game
+    private BoardConfig config; // dimensions and mine count of the current game
+    private String scoresPath; // score log the finished games are recorded in
+    private ScoreStore scoreStore; // open score log, or null if it could not be opened
+    private ScoreWriter scoreWriter; // appends finished games off the event thread
+    private Leaderboard leaderboard; // rankings of every logged game, or null if unavailable
+    private ReplayRecorder replays; // records every game next to the score log, or null
+    private Thread scoreShutdown; // closes the score log at exit, until closeScores runs
+    private int hintCell = -1; // cell highlighted by the last hint, or -1
+    private final BoardRenderer renderer = new BoardRenderer(GameConstants.CELL_SIZE);
+    private Viewport viewport; // zoom and pan state in viewport mode, otherwise null
+    private ViewportRenderer viewportRenderer;
+    private NoGuessGenerator noGuess; // generator for no-guess games, created on first use
+    private JLabel status; // current status text
+    private JLabel leaderBoard;
+
+    // Game constants
+    public static final int BOARD_WIDTH = 400;
+    public static final int BOARD_HEIGHT = 400;
+    
+    private int timerDelay;
+    private final Timer myTimer;
+    private long startTime;
+    private long gameTime;
+    private int numMoves;
+    
+    private List<ScoreRecord> highscores = new ArrayList<ScoreRecord>();
+
+    
+
+    /**
+     * Initializes a beginner game board.
+     * @param leaderboard 
+     */
+    public GameBoard(JLabel statusInit, JLabel leaderboardInit) {
+        this(statusInit, leaderboardInit, BoardConfig.BEGINNER);
+    }
+
+    /**
+     * Initializes the game board for the given board configuration.
+     */
+    public GameBoard(JLabel statusInit, JLabel leaderboardInit, BoardConfig configInit) {
+        this(statusInit, leaderboardInit, configInit, GameConstants.SCORES_LOG_PATH);
+    }
+
+    /**
+     * Initializes the game board with a custom score log.
+     */
+    public GameBoard(JLabel statusInit, JLabel leaderboardInit, BoardConfig configInit,
+            String scoresPathInit) {
+        // creates border around the court area, JComponent method
+        setBorder(BorderFactory.createLineBorder(Color.BLACK));
+
+        // Enable keyboard focus on the court area.
+        // When this component has the keyboard focus, key events are handled by its key listener.
+        setFocusable(true);
+        
+        config = configInit;
+        scoresPath = scoresPathInit;
+        openScores();
+        t = new Minesweeper(config); // initializes model for the game
+        t.addMoveListener(new MoveListener() {
+            @Override
+            public void moveApplied(MoveEvent move) {
+                movePlayed(move);
+            }
+
+            @Override
+            public void gameReset(Minesweeper game) {
+                if (viewportRenderer != null) {
+                    viewportRenderer.boardReset(game.getEngine());
+                }
+                repaint();
+            }
+        });
+        openReplays();
+        status = statusInit; // initializes the status JLabel
+        leaderBoard = leaderboardInit;
+        /*
+         * Listens for mouseclicks.  Updates the model, then updates the game board
+         * based off of the updated model.
+         */
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                Point p = e.getPoint();
+                
+                if (viewport != null) {
+                    viewportClicked(p, SwingUtilities.isRightMouseButton(e));
+                    return;
+                }
+                
+                // updates the model given the coordinates of the mouseclick; the move
+                // listener repaints the changed cells and updates the status
+                cellClicked(p.y / GameConstants.CELL_SIZE, p.x / GameConstants.CELL_SIZE,
+                        SwingUtilities.isRightMouseButton(e));
+            }
+        });
+        
+        timerDelay = 1000;
+        myTimer = new Timer(timerDelay, gameTimer);
+        startTime = System.currentTimeMillis();
+        gameTime = 0;
+        myTimer.start();
+        numMoves = 0;
+    }
+    
+    /**
+     * Switches to viewport mode: the board is shown in a fixed-size window with mouse-wheel
+     * zoom, drag-to-pan and a minimap, for boards too large to show at full size.
+     * @param width window width in pixels
+     * @param height window height in pixels
+     */
+    public void enableViewport(int width, int height) {
+        viewport = new Viewport(config.getRows(), config.getCols(), width, height);
+        viewportRenderer = new ViewportRenderer();
+        viewportRenderer.boardReset(t.getEngine());
+        MouseAdapter navigation = new MouseAdapter() {
+            private Point last;
+            
+            @Override
+            public void mousePressed(MouseEvent e) {
+                last = e.getPoint();
+            }
+            
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (last != null) {
+                    viewport.pan(e.getX() - last.x, e.getY() - last.y);
+                    last = e.getPoint();
+                    repaint();
+                }
+            }
+            
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if (viewport.zoomAt(-e.getWheelRotation(), e.getX(), e.getY())) {
+                    repaint();
+                }
+            }
+        };
+        addMouseListener(navigation);
+        addMouseMotionListener(navigation);
+        addMouseWheelListener(navigation);
+        revalidate();
+        repaint();
+    }
+    
+    //Plays the cell under a click in viewport mode, or recenters on a minimap click
+    private void viewportClicked(Point p, boolean rightButton) {
+        if (viewportRenderer.minimapClicked(viewport, p.x, p.y)) {
+            repaint();
+            return;
+        }
+        int cell = viewport.cellAt(p.x, p.y);
+        if (cell < 0) {
+            return;
+        }
+        cellClicked(cell / config.getCols(), cell % config.getCols(), rightButton);
+    }
+    
+    /**
+     * Plays a click on a cell: a right click toggles its flag, a left click on a revealed
+     * number chords its neighbors, and any other left click flips it. Flags are not moves.
+     */
+    private void cellClicked(int row, int col, boolean rightButton) {
+        if (!t.getEngine().contains(row, col)) {
+            return;
+        }
+        int cell = t.getEngine().index(row, col);
+        if (rightButton) {
+            t.setFlagged(row, col, !t.getEngine().isFlagged(cell));
+            return;
+        }
+        clearHint();
+        if (t.getEngine().isRevealed(cell)) {
+            if (!t.chord(row, col)) {
+                return;
+            }
+        } else {
+            t.flip(row, col);
+        }
+        if (t.gameResult() == GameConstants.GAME_IN_PROGRESS) {
+            numMoves++;
+        }
+    }
+    
+    // Updates the view from the cells a move changed
+    private void movePlayed(MoveEvent move) {
+        if (move.isStateChanged()) {
+            updateStatus();
+        }
+        if (viewport != null) {
+            viewportRenderer.cellsChanged(move);
+            repaint();
+        } else {
+            Rectangle area = renderer.bounds(move, config.getCols());
+            if (area != null) {
+                repaint(area);
+            }
+        }
+    }
+    
+    ActionListener gameTimer = new ActionListener() {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            gameTime = (System.currentTimeMillis() - startTime) / 1000; 
+            status.setText("Keep going!   Time: " + gameTime + "  NumMoves: " + numMoves);
+        }
+    };
+    
+
+    /**
+     * (Re-)sets the game to its initial state.
+     */
+    public void reset() {
+        if (t.gameResult() == 1) {
+            write();
+        }
+        if (replays != null) {
+            replays.endGame(t.gameResult(), (int) gameTime, numMoves + 1);
+        }
+        updateScores();
+        updateHighScores();
+        leaderBoard.setText(toStringHighScores());
+        hintCell = -1;
+        t.reset();
+        startTime = System.currentTimeMillis();
+        gameTime = 0;
+        myTimer.restart();
+        numMoves = 0;
+        
+        // Makes sure this component has keyboard/mouse focus
+        requestFocusInWindow();
+    }
+    
+    //Takes back the latest move, a whole cascade at a time. Costs two moves on the counter.
+    public void undo() {
+        clearHint();
+        if (t.undo()) {
+            numMoves += 2;
+            myTimer.start();
+        }
+        requestFocusInWindow();
+    }
+    
+    //Plays the move undone last again
+    public void redo() {
+        clearHint();
+        if (t.redo()) {
+            numMoves++;
+            // Again with the redo counted, in case it ended the game
+            updateStatus();
+        }
+        requestFocusInWindow();
+    }
+
+    //Turns no-guess boards on or off and starts a new game
+    public void setNoGuess(boolean enabled) {
+        if (enabled && noGuess == null) {
+            noGuess = new NoGuessGenerator(config);
+            noGuess.prefill();
+        }
+        t.setNoGuess(enabled ? noGuess : null);
+        reset();
+    }
+
+    //Highlights a cell that is provably safe, or tells the player a guess is needed
+    public void hint() {
+        clearHint();
+        hintCell = t.hint();
+        if (hintCell < 0 && t.gameResult() == GameConstants.GAME_IN_PROGRESS) {
+            status.setText("No safe move left - time to guess!");
+        } else if (hintCell >= 0 && viewport != null) {
+            // Brings the hint into view, as it may be anywhere on a large board
+            viewport.centerOn(hintCell / config.getCols(), hintCell % config.getCols());
+            repaint();
+        } else if (hintCell >= 0) {
+            repaint(renderer.bounds(hintCell, config.getCols()));
+        }
+        requestFocusInWindow();
+    }
+    
+    //Removes the hint highlight and repaints its cell
+    private void clearHint() {
+        if (hintCell >= 0) {
+            if (viewport == null) {
+                repaint(renderer.bounds(hintCell, config.getCols()));
+            } else {
+                repaint();
+            }
+            hintCell = -1;
+        }
+    }
+
+    /**
+     * Updates the JLabel to reflect the current state of the game.
+     */
+    private void updateStatus() {
+        
+        int gameStatus = t.gameResult();
+        if (gameStatus != 0 && myTimer.isRunning()) {
+            // Taken when the game ends rather than at the last timer tick, so replays can check it
+            gameTime = (System.currentTimeMillis() - startTime) / 1000;
+        }
+        if (gameStatus == 1) {
+            myTimer.stop();
+            String won = "You won!!!  Time: " + gameTime + "  NumMoves: " + (numMoves + 1);
+            if (leaderboard != null) {
+                won += "  Rank: " + leaderboard.rank(config, (int) gameTime, numMoves + 1)
+                        + " of " + (leaderboard.size(config) + 1);
+            }
+            status.setText(won);
+        } else if (gameStatus == -1) {
+            myTimer.stop();
+            status.setText("You lost   Time: " + gameTime + "  NumMoves: " + (numMoves + 1));
+        } 
+    }
+
+    /**
+     * Draws the game board.
+     * 
+     * There are many ways to draw a game board.  This approach
+     * will not be sufficient for most games, because it is not 
+     * modular.  All of the logic for drawing the game board is
+     * in this method, and it does not take advantage of helper 
+     * methods.  Consider breaking up your paintComponent logic
+     * into multiple methods or classes, like Mushroom of Doom.
+     */
+    @Override
+    public void paintComponent(Graphics g) {
+        long start = EngineMetrics.start();
+        super.paintComponent(g);
+        if (viewport != null) {
+            if (getWidth() > 0 && getHeight() > 0) {
+                viewport.setSize(getWidth(), getHeight());
+            }
+            viewportRenderer.paint((Graphics2D) g, t.getEngine(), hintCell, viewport,
+                    getBackground());
+        } else {
+            // The renderer redraws only the cells that changed since the last frame
+            renderer.paint(g, t.getEngine(), hintCell, getVisibleRect(), getBackground());
+        }
+        EngineMetrics.recordPaint(start);
+    }
+    
+    /**
+     * Saves the game next to the score log if it is in progress, so the next start can resume
+     * it, and otherwise removes any saved game.
+     */
+    public void saveGame() {
+        Path path = Paths.get(scoresPath + GameConstants.SNAPSHOT_SUFFIX);
+        try {
+            if (t.gameResult() == GameConstants.GAME_IN_PROGRESS && t.areMinesPlaced()) {
+                GameSnapshot.save(path, t, numMoves, System.currentTimeMillis() - startTime);
+            } else {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save game", e);
+        }
+    }
+    
+    /**
+     * Resumes the game saved by saveGame, if there is one for this board configuration.
+     * A game saved on another board is left in place for a start with that board. The saved
+     * game is removed once resumed, so it is only resumed once.
+     * @return true if a game was resumed
+     */
+    public boolean resumeGame() {
+        Path path = Paths.get(scoresPath + GameConstants.SNAPSHOT_SUFFIX);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        GameSnapshot snapshot;
+        try {
+            if (!GameSnapshot.readConfig(path).equals(config)) {
+                return false;
+            }
+            snapshot = GameSnapshot.load(path, t);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not resume game", e);
+            return false;
+        }
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            // The game is resumed all the same; saveGame replaces or removes the file later
+            LOGGER.log(Level.WARNING, "Could not remove saved game", e);
+        }
+        updateScores();
+        updateHighScores();
+        leaderBoard.setText(toStringHighScores());
+        hintCell = -1;
+        numMoves = snapshot.getMoves();
+        startTime = System.currentTimeMillis() - snapshot.getElapsedMillis();
+        gameTime = snapshot.getElapsedMillis() / 1000;
+        myTimer.restart();
+        requestFocusInWindow();
+        return true;
+    }
+    
+    //Opens the replay log next to the score log and records every game into it
+    private void openReplays() {
+        try {
+            replays = ReplayRecorder.open(Paths.get(scoresPath + GameConstants.REPLAY_SUFFIX));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open replays", e);
+            return;
+        }
+        t.setRecorder(replays);
+    }
+    
+    //Opens the score log, importing the old FastestTime.txt the first time the default log
+    //is created
+    private void openScores() {
+        try {
+            Path path = Paths.get(scoresPath);
+            boolean created = !Files.exists(path);
+            scoreStore = new ScoreStore(path);
+            Path legacy = Paths.get(GameConstants.SCORES_FILE_PATH);
+            if (created && scoresPath.equals(GameConstants.SCORES_LOG_PATH)
+                    && Files.exists(legacy)) {
+                scoreStore.importText(legacy);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open scores", e);
+            return;
+        }
+        // Reads the whole log into the leaderboard off the event thread; the high scores switch
+        // to this board's rankings once it is ready
+        Thread loader = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    final Leaderboard loaded = scoreStore.openLeaderboard();
+                    SwingUtilities.invokeLater(new Runnable() {
+                        public void run() {
+                            leaderboard = loaded;
+                            updateHighScores();
+                            leaderBoard.setText(toStringHighScores());
+                        }
+                    });
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not read the leaderboard", e);
+                }
+            }
+        }, "leaderboard-loader");
+        loader.setDaemon(true);
+        loader.start();
+        scoreWriter = new ScoreWriter(scoreStore, ScoreWriter.Durability.GROUP_COMMIT,
+                GameConstants.SCORE_GROUP_COMMIT_MS, GameConstants.SCORE_QUEUE_CAPACITY);
+        // Shows new scores once they are written, back on the event thread
+        scoreWriter.setListener(new Runnable() {
+            public void run() {
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        updateHighScores();
+                        leaderBoard.setText(toStringHighScores());
+                    }
+                });
+            }
+        });
+        // Writes queued scores before the JVM exits
+        scoreShutdown = new Thread(new Runnable() {
+            public void run() {
+                closeScores();
+            }
+        }, "score-shutdown");
+        Runtime.getRuntime().addShutdownHook(scoreShutdown);
+    }
+    
+    //Writes any queued scores and replays, and closes their logs. Only the first call does
+    //anything; it also removes the shutdown hook, so a closed board is not kept until exit.
+    public synchronized void closeScores() {
+        if (scoreShutdown != null && Thread.currentThread() != scoreShutdown) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(scoreShutdown);
+            } catch (IllegalStateException e) {
+                // The JVM is already exiting; the hook finds the logs closed and returns
+            }
+        }
+        scoreShutdown = null;
+        if (replays != null) {
+            try {
+                replays.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not close replays", e);
+            }
+            replays = null;
+        }
+        if (scoreWriter == null) {
+            return;
+        }
+        scoreWriter.close();
+        scoreWriter = null;
+        try {
+            scoreStore.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not close scores", e);
+        }
+    }
+    
+    //Queues the score of the current game; the background writer appends it to the score log
+    public void write() {
+        if (scoreWriter != null) {
+            scoreWriter.submit((int) gameTime, numMoves + 1, config);
+        }
+    }
+    
+    //Asks the background writer for the games other processes have added to the score log.
+    //Only the new records are read, so this stays cheap however long the log grows.
+    public void updateScores() {
+        if (scoreWriter != null) {
+            scoreWriter.requestRefresh();
+        }
+    }
+    
+    //Picks the best games on this board to be the high scores, or the best on any board when
+    //the leaderboard could not be read
+    public void updateHighScores() {
+        if (leaderboard != null) {
+            highscores = leaderboard.top(config, GameConstants.MAX_HIGH_SCORES);
+        } else if (scoreStore != null) {
+            highscores = scoreStore.top(GameConstants.MAX_HIGH_SCORES);
+        }
+    }
+    
+    //Returns the number of moves of the best high score with the given time, or 0 if there is
+    //none
+    public int getDataMoves(int dataTime) {
+        for (ScoreRecord record : highscores) {
+            if (record.getTime() == dataTime) {
+                return record.getMoves();
+            }
+        }
+        return 0;
+    }
+    
+    //Converts the values in the high scores list to a string
+    public String toStringHighScores() {
+        StringBuilder s = new StringBuilder("Top 5 Scores: ");
+        for (ScoreRecord record : highscores) {
+            s.append(record.getTime()).append(' ').append(record.getMoves()).append(", ");
+        }
+        if (scoreWriter != null && scoreWriter.getLostCount() > 0) {
+            s.append(" (").append(scoreWriter.getLostCount()).append(" scores not saved)");
+        }
+        return s.toString();
+    }
+    
+    //Gets the score log behind the leaderboard, or null if it could not be opened
+    public ScoreStore getScoreStore() {
+        return scoreStore;
+    }
+    
+    //Gets the rankings of every game in the score log, or null if they could not be read
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+    
+    //Gets the background writer of the score log, or null if the log could not be opened or
+    //has been closed
+    public ScoreWriter getScoreWriter() {
+        return scoreWriter;
+    }
+    
+
+    /**
+     * Returns the size of the game board.
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        if (viewport != null) {
+            return new Dimension(viewport.getWidth(), viewport.getHeight());
+        }
+        return new Dimension(config.getCols() * GameConstants.CELL_SIZE,
+                config.getRows() * GameConstants.CELL_SIZE);
+    }
+    
+    //Gets the zoom and pan state, or null outside viewport mode
+    public Viewport getViewport() {
+        return viewport;
+    }
+    
+    //Gets the renderer used in viewport mode, or null outside it
+    public ViewportRenderer getViewportRenderer() {
+        return viewportRenderer;
+    }
+    
+    //Gets the renderer, e.g. to read paint times
+    public BoardRenderer getRenderer() {
+        return renderer;
+    }
+    
+    //Gets the model behind this board
+    public Minesweeper getModel() {
+        return t;
+    }
+    
+    //Gets the board configuration this board was created with
+    public BoardConfig getConfig() {
+        return config;
+    }
+}
+
+
@@ -1,13 +1,11 @@
+package minesweeper;
+
 /**
  * Constants class for the Minesweeper game.
  * Contains all game configuration values in one centralized location.
  */
 public final class GameConstants {
     
-    public static final int BOARD_ROWS = 8;
-    public static final int BOMB_COUNT = 10;
-
-    
     // Board dimensions
     public static final int BOARD_ROWS = 8;
     public static final int BOARD_COLS = 8;
@@ -32,10 +30,30 @@ public final class GameConstants {
     
     // File paths
     public static final String SCORES_FILE_PATH = "Files/FastestTime.txt";
+    public static final String SCORES_LOG_PATH = "Files/FastestTime.log";
     public static final String SCORES_DIRECTORY = "Files";
+    // Replays are logged next to the score log, at its path plus this suffix
+    public static final String REPLAY_SUFFIX = ".replay";
+    // A game left unfinished is saved next to the score log, at its path plus this suffix
+    public static final String SNAPSHOT_SUFFIX = ".save";
     
     // Leaderboard configuration
     public static final int MAX_HIGH_SCORES = 5;
+    public static final int SCORE_QUEUE_CAPACITY = 1024;
+    public static final long SCORE_GROUP_COMMIT_MS = 50;
+    
+    // No-guess boards: longest search for a solvable board before a random one is used
+    public static final long NO_GUESS_SEARCH_MS = 250;
+    
+    // Undo history: bytes of encoded moves kept per game
+    public static final int MOVE_JOURNAL_BYTES = 1 << 20;
+    
+    // Game server: sessions, board size and undo history per session, idle timeout
+    public static final int SERVER_PORT = 7171;
+    public static final int SERVER_MAX_SESSIONS = 100_000;
+    public static final int SERVER_MAX_CELLS = 256 * 256;
+    public static final int SERVER_JOURNAL_BYTES = 16 * 1024;
+    public static final long SERVER_IDLE_TIMEOUT_MS = 5 * 60 * 1000;
     
     // Private constructor to prevent instantiation
     private GameConstants() {
@@ -0,0 +1,493 @@
+package minesweeper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Headless server hosting many games over a line protocol on a local TCP port.
+ *
+ * Connections are spread over a few event loops, each a thread with its own Selector that
+ * reads command lines, runs them on the connection's GameSession and writes the replies. A
+ * connection costs a socket and two small buffers rather than a thread, so tens of thousands
+ * of sessions fit in one JVM. A connection's replies are written before it is read again,
+ * which keeps its output buffer bounded by the largest reply.
+ *
+ * Besides the GameSession commands a connection may send
+ * <pre>
+ *     NEW [preset | rows cols mines]   OK id rows cols mines   (new game, in place if attached)
+ *     ATTACH id                        OK id rows cols mines   (continue an existing session)
+ *     QUIT                             OK                      (ends the session and the line)
+ * </pre>
+ * Sessions outlive their connection so they can be attached again. A sweeper thread ends
+ * sessions idle for longer than the idle timeout, and each loop closes its idle connections.
+ *
+ * Java 17 has no virtual threads, so connections are multiplexed on Selectors instead of
+ * getting a thread each.
+ */
+public final class GameServer implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(GameServer.class.getName());
+
+    // Longest command line accepted; longer lines end the connection
+    private static final int MAX_LINE = 256;
+    private static final int INITIAL_OUTPUT = 1024;
+    private static final long SELECT_MS = 250;
+    private static final Pattern SPACES = Pattern.compile(" +");
+
+    private final int port;
+    private final int maxSessions;
+    private final int maxCells;
+    private final long idleNanos;
+    private final ConcurrentHashMap<Long, GameSession> sessions =
+            new ConcurrentHashMap<Long, GameSession>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final Loop[] loops;
+    private ServerSocketChannel server;
+    private Thread acceptor;
+    private Thread sweeper;
+    private volatile boolean closed;
+
+    /**
+     * Creates a server; start() opens the port.
+     * @param port the local port, or 0 for any free port
+     * @param loopCount number of event loop threads
+     * @param idleTimeoutMillis how long a session or connection may go without a command
+     * @param maxSessions the most sessions kept at once
+     */
+    public GameServer(int port, int loopCount, long idleTimeoutMillis, int maxSessions) {
+        this.port = port;
+        this.maxSessions = maxSessions;
+        this.maxCells = GameConstants.SERVER_MAX_CELLS;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.loops = new Loop[loopCount];
+    }
+
+    /**
+     * Binds the port on the loopback interface and starts the threads.
+     * @return the bound port
+     */
+    public int start() throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new Loop(i);
+            Thread thread = new Thread(loops[i], "game-server-loop-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        acceptor = new Thread(new Runnable() {
+            public void run() {
+                accept();
+            }
+        }, "game-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        sweeper = new Thread(new Runnable() {
+            public void run() {
+                sweep();
+            }
+        }, "game-server-sweep");
+        sweeper.setDaemon(true);
+        sweeper.start();
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    // Acceptor thread: hands new connections to the loops in turn
+    private void accept() {
+        int next = 0;
+        while (!closed) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                connections.incrementAndGet();
+                loops[next].add(channel);
+                next = (next + 1) % loops.length;
+            } catch (IOException e) {
+                if (!closed) {
+                    LOGGER.log(Level.WARNING, "Could not accept a connection", e);
+                }
+            }
+        }
+    }
+
+    // Sweeper thread: ends sessions idle for longer than the timeout
+    private void sweep() {
+        long period = Math.max(1, TimeUnit.NANOSECONDS.toMillis(idleNanos) / 4);
+        while (!closed) {
+            try {
+                Thread.sleep(Math.min(period, 1000));
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            Iterator<GameSession> it = sessions.values().iterator();
+            while (it.hasNext()) {
+                if (now - it.next().getLastUsed() > idleNanos) {
+                    it.remove();
+                    evicted.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one command line for a connection.
+     * @param connection the connection the line came from
+     * @param line the command, without the line break
+     * @param reply receives the reply, without the line break
+     * @return false if the connection should be closed after the reply
+     */
+    boolean handle(Connection connection, String line, StringBuilder reply) {
+        commands.incrementAndGet();
+        String[] words = SPACES.split(line.trim());
+        String command = words[0];
+        if ("NEW".equals(command)) {
+            newGame(connection, words, reply);
+        } else if ("ATTACH".equals(command)) {
+            attach(connection, words, reply);
+        } else if ("QUIT".equals(command)) {
+            if (connection.session != null) {
+                sessions.remove(connection.session.getId());
+            }
+            reply.append("OK");
+            return false;
+        } else if (connection.session == null) {
+            reply.append("ERR no session; send NEW first");
+        } else if (sessions.get(connection.session.getId()) != connection.session) {
+            connection.session = null;
+            reply.append("ERR session expired");
+        } else {
+            connection.session.execute(words, reply);
+        }
+        return true;
+    }
+
+    private void newGame(Connection connection, String[] words, StringBuilder reply) {
+        BoardConfig config;
+        try {
+            config = words.length == 1 ? BoardConfig.BEGINNER
+                    : BoardConfig.fromArgs(Arrays.copyOfRange(words, 1, words.length));
+        } catch (IllegalArgumentException e) {
+            reply.append("ERR ").append(e.getMessage());
+            return;
+        }
+        if (config.getTotalTiles() > maxCells) {
+            reply.append("ERR board larger than ").append(maxCells).append(" cells");
+            return;
+        }
+        GameSession session = connection.session;
+        if (session != null && sessions.get(session.getId()) == session) {
+            session.newGame(config);
+        } else {
+            if (sessions.size() >= maxSessions) {
+                reply.append("ERR server full");
+                return;
+            }
+            session = new GameSession(nextId.getAndIncrement(), config,
+                    connection.loop.seeds.nextLong());
+            sessions.put(session.getId(), session);
+            connection.session = session;
+        }
+        describe(session, reply);
+    }
+
+    private void attach(Connection connection, String[] words, StringBuilder reply) {
+        GameSession session = null;
+        if (words.length == 2) {
+            try {
+                session = sessions.get(Long.parseLong(words[1]));
+            } catch (NumberFormatException e) {
+                session = null;
+            }
+        }
+        if (session == null) {
+            reply.append("ERR no such session");
+            return;
+        }
+        connection.session = session;
+        describe(session, reply);
+    }
+
+    private static void describe(GameSession session, StringBuilder reply) {
+        BoardConfig config = session.getConfig();
+        reply.append("OK ").append(session.getId()).append(' ').append(config.getRows())
+                .append(' ').append(config.getCols()).append(' ').append(config.getMines());
+    }
+
+    //Gets the number of live sessions
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    //Gets the number of open connections
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    //Gets the number of command lines handled
+    public long getCommandCount() {
+        return commands.get();
+    }
+
+    //Gets the number of sessions ended for being idle
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    /**
+     * Stops accepting, closes every connection and stops the threads. Sessions are dropped.
+     */
+    public void close() throws IOException {
+        closed = true;
+        if (server != null) {
+            server.close();
+        }
+        for (Loop loop : loops) {
+            if (loop != null) {
+                loop.selector.wakeup();
+            }
+        }
+        if (sweeper != null) {
+            sweeper.interrupt();
+        }
+        sessions.clear();
+    }
+
+    /**
+     * One client connection: its buffers and the session it plays.
+     */
+    final class Connection {
+        final SocketChannel channel;
+        final Loop loop;
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        ByteBuffer out = ByteBuffer.allocate(INITIAL_OUTPUT);
+        GameSession session;
+        long lastActive = System.nanoTime();
+        boolean closing;
+
+        Connection(SocketChannel channel, Loop loop) {
+            this.channel = channel;
+            this.loop = loop;
+        }
+    }
+
+    /**
+     * An event loop: one thread, one Selector, and the connections registered with it.
+     */
+    final class Loop implements Runnable {
+        final Selector selector;
+        final SplittableRandom seeds;
+        private final ConcurrentLinkedQueue<SocketChannel> added =
+                new ConcurrentLinkedQueue<SocketChannel>();
+        private final StringBuilder reply = new StringBuilder();
+        private long lastIdleCheck = System.nanoTime();
+
+        Loop(int index) throws IOException {
+            selector = Selector.open();
+            seeds = new SplittableRandom(System.nanoTime() + index);
+        }
+
+        void add(SocketChannel channel) {
+            added.add(channel);
+            selector.wakeup();
+        }
+
+        public void run() {
+            while (!closed) {
+                try {
+                    selector.select(SELECT_MS);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Event loop failed", e);
+                    break;
+                }
+                register();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isWritable()) {
+                            write(key, connection);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(key, connection);
+                        }
+                    } catch (IOException e) {
+                        close(key);
+                    }
+                }
+                closeIdle();
+            }
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not close selector", e);
+            }
+        }
+
+        private void register() {
+            SocketChannel channel;
+            while ((channel = added.poll()) != null) {
+                try {
+                    channel.register(selector, SelectionKey.OP_READ, new Connection(channel, this));
+                } catch (ClosedChannelException e) {
+                    connections.decrementAndGet();
+                }
+            }
+        }
+
+        // Runs every complete line in the input buffer, then writes the replies
+        private void read(SelectionKey key, Connection connection) throws IOException {
+            if (connection.channel.read(connection.in) < 0) {
+                close(key);
+                return;
+            }
+            connection.lastActive = System.nanoTime();
+            ByteBuffer in = connection.in;
+            in.flip();
+            int start = in.position();
+            for (int i = start; i < in.limit(); i++) {
+                if (in.get(i) != '\n') {
+                    continue;
+                }
+                int end = i > start && in.get(i - 1) == '\r' ? i - 1 : i;
+                String line = ascii(in, start, end);
+                start = i + 1;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                reply.setLength(0);
+                if (!handle(connection, line, reply)) {
+                    connection.closing = true;
+                }
+                append(connection, reply);
+                if (connection.closing) {
+                    break;
+                }
+            }
+            in.position(start);
+            in.compact();
+            if (!connection.closing && !in.hasRemaining()) {
+                reply.setLength(0);
+                reply.append("ERR line longer than ").append(MAX_LINE).append(" bytes");
+                append(connection, reply);
+                connection.closing = true;
+            }
+            write(key, connection);
+        }
+
+        // Writes pending replies; reading resumes only once they are all out
+        private void write(SelectionKey key, Connection connection) throws IOException {
+            ByteBuffer out = connection.out;
+            out.flip();
+            connection.channel.write(out);
+            boolean done = !out.hasRemaining();
+            out.compact();
+            if (done && out.capacity() > INITIAL_OUTPUT) {
+                // The buffer a large reply needed is not kept for the life of the connection
+                connection.out = ByteBuffer.allocate(INITIAL_OUTPUT);
+            }
+            if (done && connection.closing) {
+                close(key);
+            } else {
+                key.interestOps(done ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void append(Connection connection, StringBuilder text) {
+            int needed = text.length() + 1;
+            if (connection.out.remaining() < needed) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(connection.out.capacity() * 2,
+                        connection.out.position() + needed));
+                connection.out.flip();
+                grown.put(connection.out);
+                connection.out = grown;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                connection.out.put((byte) text.charAt(i));
+            }
+            connection.out.put((byte) '\n');
+        }
+
+        private void closeIdle() {
+            long now = System.nanoTime();
+            if (now - lastIdleCheck < TimeUnit.MILLISECONDS.toNanos(SELECT_MS)) {
+                return;
+            }
+            lastIdleCheck = now;
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                if (connection != null && now - connection.lastActive > idleNanos) {
+                    close(key);
+                }
+            }
+        }
+
+        private void close(SelectionKey key) {
+            if (!key.isValid()) {
+                return;
+            }
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not close connection", e);
+            }
+            connections.decrementAndGet();
+        }
+    }
+
+    private static String ascii(ByteBuffer buffer, int from, int to) {
+        char[] chars = new char[to - from];
+        for (int i = from; i < to; i++) {
+            chars[i - from] = (char) (buffer.get(i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Runs a server from the command line.
+     * Usage: java GameServer [port] [idle seconds]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameConstants.SERVER_PORT;
+        long idle = args.length > 1 ? Long.parseLong(args[1]) * 1000
+                : GameConstants.SERVER_IDLE_TIMEOUT_MS;
+        GameServer server = new GameServer(port, Runtime.getRuntime().availableProcessors(),
+                idle, GameConstants.SERVER_MAX_SESSIONS);
+        System.out.println("Listening on 127.0.0.1:" + server.start());
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(server.getSessionCount() + " sessions, "
+                    + server.getConnectionCount() + " connections, "
+                    + server.getCommandCount() + " commands, "
+                    + server.getEvictedCount() + " evicted");
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package minesweeper;
+
+/**
+ * One game hosted by GameServer, and the text commands that drive it.
+ *
+ * Commands are single lines of space-separated words; every command gets exactly one reply
+ * line, starting with OK or ERR:
+ * <pre>
+ *     FLIP row col   OK state safeLeft cell:number ...   (a mine shows as cell:*)
+ *     CHORD row col  OK state safeLeft cell:number ...   (the neighbors it revealed)
+ *     FLAG row col   OK state safeLeft cell              (toggles the flag on a hidden cell)
+ *     UNDO | REDO    OK state safeLeft cell ...          (the cells hidden or revealed)
+ *     HINT           OK cell                             (-1 if a guess is needed)
+ *     BOARD          OK rows cols cells                  (# hidden, F flagged, 0-8, * mine)
+ * </pre>
+ * where state is 0 while the game runs, 1 once won and -1 once lost. NEW, ATTACH and QUIT
+ * are handled by the server.
+ *
+ * A session keeps one Minesweeper for its whole life; a new game resets it in place. The
+ * board size is capped by the server and the undo journal is capped at SERVER_JOURNAL_BYTES,
+ * so the memory a session holds is bounded.
+ */
+final class GameSession {
+
+    private final long id;
+    private final Minesweeper game;
+    private MoveEvent lastMove; // changes of the latest successful move, reused by the game
+    private volatile long lastUsed;
+
+    GameSession(long id, BoardConfig config, long seed) {
+        this.id = id;
+        this.game = new Minesweeper(config, seed);
+        game.setJournalCapacity(GameConstants.SERVER_JOURNAL_BYTES);
+        game.addMoveListener(new MoveListener() {
+            @Override
+            public void moveApplied(MoveEvent move) {
+                lastMove = move;
+            }
+
+            @Override
+            public void gameReset(Minesweeper reset) {
+                lastMove = null;
+            }
+        });
+        touch();
+    }
+
+    //Starts a new game in this session, reusing its board when the size is unchanged
+    synchronized void newGame(BoardConfig config) {
+        game.reset(config);
+        touch();
+    }
+
+    /**
+     * Runs one game command.
+     * @param words the command line split into words, the command first
+     * @param reply receives the reply line, without the line break
+     */
+    synchronized void execute(String[] words, StringBuilder reply) {
+        touch();
+        String command = words[0];
+        if ("FLIP".equals(command) || "CHORD".equals(command) || "FLAG".equals(command)) {
+            cellMove(words, reply);
+        } else if ("UNDO".equals(command)) {
+            if (game.undo()) {
+                moved(reply);
+            } else {
+                reply.append("ERR nothing to undo");
+            }
+        } else if ("REDO".equals(command)) {
+            if (game.redo()) {
+                moved(reply);
+            } else {
+                reply.append("ERR nothing to redo");
+            }
+        } else if ("HINT".equals(command)) {
+            reply.append("OK ").append(game.hint());
+        } else if ("BOARD".equals(command)) {
+            board(reply);
+        } else {
+            reply.append("ERR unknown command ").append(command);
+        }
+    }
+
+    // Runs FLIP, CHORD or FLAG on the cell the command names
+    private void cellMove(String[] words, StringBuilder reply) {
+        String command = words[0];
+        if (words.length != 3) {
+            reply.append("ERR usage: ").append(command).append(" row col");
+            return;
+        }
+        int row;
+        int col;
+        try {
+            row = Integer.parseInt(words[1]);
+            col = Integer.parseInt(words[2]);
+        } catch (NumberFormatException e) {
+            reply.append("ERR usage: ").append(command).append(" row col");
+            return;
+        }
+        boolean moved;
+        if ("FLIP".equals(command)) {
+            moved = game.flip(row, col);
+        } else if ("CHORD".equals(command)) {
+            moved = game.chord(row, col);
+        } else {
+            BoardEngine board = game.getEngine();
+            moved = board.contains(row, col)
+                    && game.setFlagged(row, col, !board.isFlagged(board.index(row, col)));
+        }
+        if (!moved) {
+            reply.append("ERR invalid move");
+            return;
+        }
+        moved(reply);
+    }
+
+    // Replies with the cells the move changed, with their numbers when a move revealed them
+    private void moved(StringBuilder reply) {
+        BoardEngine board = game.getEngine();
+        MoveEvent move = lastMove;
+        reply.append("OK ").append(move.getState()).append(' ').append(move.getSafeTiles());
+        for (int i = 0; i < move.getCellCount(); i++) {
+            int cell = move.getCell(i);
+            reply.append(' ').append(cell);
+            if (!move.isReveal() || move.getKind() == MoveEvent.REDO) {
+                continue;
+            }
+            reply.append(':');
+            if (board.isMine(cell)) {
+                reply.append('*');
+            } else {
+                reply.append(board.adjacentMines(cell));
+            }
+        }
+    }
+
+    private void board(StringBuilder reply) {
+        BoardEngine board = game.getEngine();
+        reply.append("OK ").append(board.rows()).append(' ').append(board.cols()).append(' ');
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (!board.isRevealed(cell)) {
+                reply.append(board.isFlagged(cell) ? 'F' : '#');
+            } else if (board.isMine(cell)) {
+                reply.append('*');
+            } else {
+                reply.append((char) ('0' + board.adjacentMines(cell)));
+            }
+        }
+    }
+
+    private void touch() {
+        lastUsed = System.nanoTime();
+    }
+
+    long getId() {
+        return id;
+    }
+
+    //Gets the System.nanoTime() of the last command
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    BoardConfig getConfig() {
+        return game.getConfig();
+    }
+}
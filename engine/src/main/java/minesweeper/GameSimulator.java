@@ -0,0 +1,143 @@
+package minesweeper;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Headless batch simulator for automated games.
+ * Plays N seeded games with a pluggable MoveStrategy on a ForkJoinPool. Game i always gets
+ * the same board and random stream for a given base seed, so results do not depend on how the
+ * work is split between threads. Each worker thread keeps one Minesweeper and resets it for
+ * every game, so the board storage is reused rather than reallocated. Uses no AWT classes.
+ */
+public final class GameSimulator {
+
+    // Games played by one leaf task before it stops splitting
+    private static final int GAMES_PER_TASK = 4096;
+
+    private final BoardConfig config;
+    private final MoveStrategy strategy;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Minesweeper> workerGames;
+
+    /**
+     * Creates a simulator that runs on the common pool.
+     */
+    public GameSimulator(BoardConfig config, MoveStrategy strategy) {
+        this(config, strategy, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a simulator.
+     * @param config the board every game is played on
+     * @param strategy chooses the moves; shared by all threads
+     * @param pool the pool the games run on
+     */
+    public GameSimulator(final BoardConfig config, MoveStrategy strategy, ForkJoinPool pool) {
+        this.config = config;
+        this.strategy = strategy;
+        this.pool = pool;
+        this.workerGames = new ThreadLocal<Minesweeper>() {
+            @Override
+            protected Minesweeper initialValue() {
+                return new Minesweeper(config, 0L);
+            }
+        };
+    }
+
+    /**
+     * Plays a batch of games and waits for all of them to finish.
+     * @param games number of games to play
+     * @param seed base seed; equal seeds give equal results
+     * @return the merged totals with the wall-clock time of the batch
+     */
+    public SimulationResult run(long games, long seed) {
+        long start = System.nanoTime();
+        SimulationResult result = pool.invoke(new Batch(seed, 0, games));
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    // Plays games [from, to) on the calling thread's reusable game
+    private SimulationResult playRange(long seed, long from, long to) {
+        Minesweeper game = workerGames.get();
+        SimulationResult result = new SimulationResult();
+        for (long i = from; i < to; i++) {
+            playOne(game, mix(seed + i * 0x9E3779B97F4A7C15L), result);
+        }
+        return result;
+    }
+
+    private void playOne(Minesweeper game, long gameSeed, SimulationResult result) {
+        game.reset(config, gameSeed);
+        SplittableRandom random = new SplittableRandom(~gameSeed);
+        BoardEngine board = game.getEngine();
+        while (game.gameResult() == GameConstants.GAME_IN_PROGRESS) {
+            int cell = strategy.nextMove(game, random);
+            if (cell < 0 || !game.flip(board.rowOf(cell), board.colOf(cell))) {
+                break;
+            }
+            result.addMove(game.getLastReveal().size());
+        }
+        result.addGame(game.gameResult());
+    }
+
+    // SplitMix64 finalizer, spreads consecutive game numbers over the seed space
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @SuppressWarnings("serial")
+    private final class Batch extends RecursiveTask<SimulationResult> {
+        private final long seed;
+        private final long from;
+        private final long to;
+
+        Batch(long seed, long from, long to) {
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                return playRange(seed, from, to);
+            }
+            long mid = (from + to) >>> 1;
+            Batch left = new Batch(seed, from, mid);
+            left.fork();
+            SimulationResult result = new Batch(seed, mid, to).compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * Runs a batch from the command line.
+     * Usage: java GameSimulator [games] [preset | rows cols mines] [seed]
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        BoardConfig config = BoardConfig.BEGINNER;
+        long seed = 42;
+        if (args.length == 2 || args.length == 3) {
+            config = BoardConfig.fromArgs(new String[] {args[1]});
+            seed = args.length == 3 ? Long.parseLong(args[2]) : seed;
+        } else if (args.length >= 4) {
+            config = BoardConfig.fromArgs(new String[] {args[1], args[2], args[3]});
+            seed = args.length == 5 ? Long.parseLong(args[4]) : seed;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        GameSimulator simulator = new GameSimulator(config, new RandomMoveStrategy(), pool);
+        // Warm-up so the timed batch runs compiled code
+        simulator.run(Math.min(games, 100_000), seed + 1);
+        System.out.println(config + " on " + pool.getParallelism() + " threads");
+        System.out.println(simulator.run(games, seed));
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,373 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves a game in progress to a compact binary snapshot and resumes it later.
+ *
+ * A snapshot holds everything needed to carry on playing: the board configuration and game
+ * seed, the mine, revealed and flagged masks, the game state and safe-tile counter, the move
+ * count and elapsed time kept by the front end, and the undo journal. All values are
+ * big-endian:
+ * <pre>
+ *     MAGIC, VERSION (byte), rows, cols, mines, game seed (long), mines placed (byte),
+ *     state + 1 (byte), safe tiles left, moves, elapsed millis (long),
+ *     mine mask, revealed mask, flagged mask,
+ *     undo count, journal bytes, journal entries as MoveJournal encodes them
+ * </pre>
+ * A mask starts with its encoding. RLE masks are varint run lengths alternating between
+ * clear and set cells, starting with clear; masks whose runs are too short to gain from that,
+ * such as a dense random mine layout, are stored as the raw plane words instead.
+ *
+ * Snapshots are written through a FileChannel with one reusable buffer, to a temporary file
+ * that replaces the old snapshot once complete. They are read back with a single read into
+ * one buffer rather than mapped, since a mapping keeps the file open until it is garbage
+ * collected and Windows will not delete or replace a mapped file.
+ */
+public final class GameSnapshot {
+
+    public static final int MAGIC = 0x4D53534E; // "MSSN"
+    public static final int VERSION = 1;
+
+    private static final byte RLE = 0;
+    private static final byte RAW = 1;
+
+    // A run costs up to five bytes, so raw words win once runs average fewer than 24 cells
+    private static final int RLE_BYTES_PER_RUN = 3;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    // MAGIC, VERSION, rows, cols, mines
+    private static final int HEADER_BYTES = 17;
+
+    private final int moves;
+    private final long elapsedMillis;
+
+    private GameSnapshot(int moves, long elapsedMillis) {
+        this.moves = moves;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    //Gets the move count the front end saved with the game
+    public int getMoves() {
+        return moves;
+    }
+
+    //Gets the playing time the front end saved with the game
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Saves a game, replacing any snapshot already at the path.
+     * @param file where to save
+     * @param game the game, usually in progress
+     * @param moves the move count shown to the player
+     * @param elapsedMillis the time played so far
+     */
+    public static void save(Path file, Minesweeper game, int moves, long elapsedMillis)
+            throws IOException {
+        BoardEngine board = game.getEngine();
+        BoardConfig config = game.getConfig();
+        MoveJournal journal = game.getJournal();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putByte(VERSION);
+            out.putInt(config.getRows());
+            out.putInt(config.getCols());
+            out.putInt(config.getMines());
+            out.putLong(game.getGameSeed());
+            out.putByte(game.areMinesPlaced() ? 1 : 0);
+            out.putByte(game.gameResult() + 1);
+            out.putInt(game.getSafeTiles());
+            out.putInt(moves);
+            out.putLong(elapsedMillis);
+            writeMask(out, board.minePlane(), board.cellCount());
+            writeMask(out, board.revealedPlane(), board.cellCount());
+            writeMask(out, board.flaggedPlane(), board.cellCount());
+            out.putInt(journal.getUndoCount());
+            out.putInt(journal.getBytes());
+            out.putBytes(journal.entryData(), journal.entryOffset(), journal.getBytes());
+            out.flush();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Resumes a saved game on the given Minesweeper, which takes the saved configuration.
+     * An undo history larger than the game's journal capacity is dropped.
+     * @param file the snapshot
+     * @param game the game to restore into; on failure it is reset to its old configuration
+     * @return the move count and time saved with the game
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static GameSnapshot load(Path file, Minesweeper game) throws IOException {
+        BoardConfig previous = game.getConfig();
+        try {
+            return read(readFully(file, Integer.MAX_VALUE), game);
+        } catch (BufferUnderflowException e) {
+            game.reset(previous);
+            throw new IOException("Snapshot is truncated", e);
+        } catch (IOException e) {
+            game.reset(previous);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads only the board configuration of a snapshot, so a front end can check it before
+     * loading the game over its own.
+     * @param file the snapshot
+     * @return the configuration of the saved game
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static BoardConfig readConfig(Path file) throws IOException {
+        try {
+            return readHeader(readFully(file, HEADER_BYTES));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot is truncated", e);
+        }
+    }
+
+    // Reads up to limit bytes from the start of a file into a buffer ready to be read
+    private static ByteBuffer readFully(Path file, int limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large");
+            }
+            ByteBuffer in = ByteBuffer.allocate((int) Math.min(size, limit));
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // Until the buffer is full or the file ends
+            }
+            return in.flip();
+        }
+    }
+
+    private static BoardConfig readHeader(ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIC || in.get() != VERSION) {
+            throw new IOException("Not a game snapshot");
+        }
+        int rows = in.getInt();
+        int cols = in.getInt();
+        int mines = in.getInt();
+        try {
+            return new BoardConfig(rows, cols, mines);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot has an invalid board: " + e.getMessage(), e);
+        }
+    }
+
+    private static GameSnapshot read(ByteBuffer in, Minesweeper game) throws IOException {
+        BoardConfig config = readHeader(in);
+        long seed = in.getLong();
+        boolean placed = in.get() != 0;
+        int state = in.get() - 1;
+        int safeTiles = in.getInt();
+        int moves = in.getInt();
+        long elapsedMillis = in.getLong();
+        if (state < GameConstants.GAME_LOST || state > GameConstants.GAME_WON || safeTiles < 0
+                || safeTiles > config.getSafeTileCount()) {
+            throw new IOException("Snapshot has an invalid game state");
+        }
+        BoardEngine board = game.beginRestore(config, seed);
+        readMask(in, board.minePlane(), board.cellCount());
+        board.recount();
+        readMask(in, board.revealedPlane(), board.cellCount());
+        readMask(in, board.flaggedPlane(), board.cellCount());
+        int undoCount = in.getInt();
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException("Snapshot is truncated");
+        }
+        byte[] entries = new byte[length];
+        in.get(entries);
+        MoveJournal journal = game.getJournal();
+        if (!journal.restore(entries, 0, length, undoCount) && length <= journal.getCapacity()) {
+            throw new IOException("Snapshot has a malformed undo journal");
+        }
+        game.finishRestore(placed, state, safeTiles);
+        return new GameSnapshot(moves, elapsedMillis);
+    }
+
+    private static void writeMask(Output out, long[] words, int cellCount) throws IOException {
+        // Counts the places where the bit changes, which is about the number of runs
+        long runs = 1;
+        long carry = 0;
+        for (long word : words) {
+            runs += Long.bitCount(word ^ ((word << 1) | carry));
+            carry = word >>> 63;
+        }
+        if (runs * RLE_BYTES_PER_RUN >= words.length * 8L) {
+            out.putByte(RAW);
+            out.putLongs(words);
+            return;
+        }
+        out.putByte(RLE);
+        int pos = 0;
+        boolean set = false;
+        while (pos < cellCount) {
+            int next = nextChange(words, pos, set, cellCount);
+            out.putVarint(next - pos);
+            pos = next;
+            set = !set;
+        }
+    }
+
+    // First cell at or after from whose bit differs from set, or the cell count if none does
+    private static int nextChange(long[] words, int from, boolean set, int cellCount) {
+        int word = from >>> 6;
+        long bits = (set ? ~words[word] : words[word]) & (-1L << from);
+        while (bits == 0) {
+            if (++word == words.length) {
+                return cellCount;
+            }
+            bits = set ? ~words[word] : words[word];
+        }
+        return (int) Math.min(cellCount, ((long) word << 6) + Long.numberOfTrailingZeros(bits));
+    }
+
+    private static void readMask(ByteBuffer in, long[] words, int cellCount) throws IOException {
+        byte encoding = in.get();
+        if (encoding == RAW) {
+            LongBuffer raw = in.asLongBuffer();
+            raw.get(words);
+            in.position(in.position() + words.length * 8);
+            // Bits past the last cell must stay clear
+            if ((cellCount & 63) != 0) {
+                words[words.length - 1] &= -1L >>> -cellCount;
+            }
+            return;
+        }
+        if (encoding != RLE) {
+            throw new IOException("Unknown mask encoding " + encoding);
+        }
+        int pos = 0;
+        boolean set = false;
+        while (pos < cellCount) {
+            int run = readVarint(in);
+            if (run < 0 || run > cellCount - pos) {
+                throw new IOException("Snapshot mask runs past the board");
+            }
+            if (set) {
+                setRange(words, pos, pos + run);
+            }
+            pos += run;
+            set = !set;
+        }
+    }
+
+    // Sets the bits of cells [from, to)
+    private static void setRange(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        for (int word = first + 1; word < last; word++) {
+            words[word] = -1L;
+        }
+        words[last] |= lastMask;
+    }
+
+    private static int readVarint(ByteBuffer in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Snapshot has a malformed varint");
+    }
+
+    /**
+     * Buffered writer over a FileChannel.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putVarint(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void putLongs(long[] values) throws IOException {
+            int pos = 0;
+            while (pos < values.length) {
+                ensure(8);
+                int count = Math.min(values.length - pos, buffer.remaining() >>> 3);
+                buffer.asLongBuffer().put(values, pos, count);
+                buffer.position(buffer.position() + count * 8);
+                pos += count;
+            }
+        }
+
+        void putBytes(byte[] values, int offset, int length) throws IOException {
+            int end = offset + length;
+            while (offset < end) {
+                ensure(1);
+                int count = Math.min(end - offset, buffer.remaining());
+                buffer.put(values, offset, count);
+                offset += count;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
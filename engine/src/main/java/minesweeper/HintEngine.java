@@ -0,0 +1,325 @@
+package minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * Incremental deduction of provably safe and provably mined cells.
+ * Every revealed number is a constraint: its hidden neighbors hold exactly its count minus the
+ * neighbors already proven to be mines. The engine applies the single-cell rules (no mines
+ * left, or as many mines as hidden cells) and the subset rule between nearby constraints until
+ * nothing more follows.
+ *
+ * Only constraints whose neighborhood changed are re-examined: the cells revealed by a flip,
+ * the numbers around them, and the numbers around any cell a deduction settles. Each
+ * constraint's unknown cells are encoded as a 49-bit mask over the 7x7 window around the cell
+ * being examined, so subset checks are plain bit operations.
+ *
+ * Hiding cells can make deductions unprovable again, and retracting one would mean retracting
+ * everything that followed from it. So invalidate() only marks the deductions stale, and the
+ * next query starts over from the revealed cells.
+ */
+public final class HintEngine {
+
+    private static final int WINDOW = 7;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private BoardEngine board;
+    private long[] knownMines;
+    private long[] knownSafe;
+    private long[] queued;
+
+    private int[] queue = new int[INITIAL_CAPACITY];
+    private int queueHead;
+    private int queueTail;
+    private int[] safeCells = new int[INITIAL_CAPACITY];
+    private int safeCount;
+    private int[] mineCells = new int[INITIAL_CAPACITY];
+    private int mineCount;
+
+    private final int[] neighbors = new int[8];
+    private boolean stale; // deductions are rebuilt from the board on the next query
+
+    /**
+     * Creates a hint engine for the given board and examines everything already revealed.
+     * @param board the board to deduce on
+     */
+    public HintEngine(BoardEngine board) {
+        reset(board);
+    }
+
+    /**
+     * Forgets all deductions and starts over on the given board, which may be a new engine.
+     * Revealed numbers already on the board are queued and examined on the next query.
+     * @param newBoard the board to deduce on
+     */
+    public void reset(BoardEngine newBoard) {
+        int words = (newBoard.cellCount() + 63) >>> 6;
+        if (knownMines == null || knownMines.length != words) {
+            knownMines = new long[words];
+            knownSafe = new long[words];
+            queued = new long[words];
+        } else {
+            Arrays.fill(knownMines, 0L);
+            Arrays.fill(knownSafe, 0L);
+            Arrays.fill(queued, 0L);
+        }
+        board = newBoard;
+        stale = false;
+        queueHead = 0;
+        queueTail = 0;
+        safeCount = 0;
+        mineCount = 0;
+        long[] revealed = board.revealedPlane();
+        for (int word = 0; word < revealed.length; word++) {
+            long bits = revealed[word];
+            while (bits != 0) {
+                enqueue((word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Records cells that have just been revealed. Their constraints, and those of the
+     * numbers around them, are re-examined on the next query.
+     * @param revealed the cells revealed by the latest flip
+     */
+    public void onReveal(FloodReveal revealed) {
+        for (int i = 0; i < revealed.size(); i++) {
+            onReveal(revealed.cell(i));
+        }
+    }
+
+    /**
+     * Records a single cell that has just been revealed.
+     * @param cell the revealed cell
+     */
+    public void onReveal(int cell) {
+        if (stale) {
+            return;
+        }
+        enqueue(cell);
+        enqueueRevealedNeighbors(cell);
+    }
+
+    /**
+     * Drops every deduction, as after cells were hidden again. Takes constant time; the
+     * revealed cells are examined again on the next query.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Returns a hidden cell that is provably safe.
+     * @return the cell index, or -1 if no hidden cell is provably safe
+     */
+    public int nextSafeCell() {
+        propagate();
+        while (safeCount > 0) {
+            int cell = safeCells[safeCount - 1];
+            if (!board.isRevealed(cell)) {
+                return cell;
+            }
+            safeCount--;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns every hidden cell that is provably safe.
+     */
+    public int[] getSafeCells() {
+        propagate();
+        int kept = 0;
+        for (int i = 0; i < safeCount; i++) {
+            if (!board.isRevealed(safeCells[i])) {
+                safeCells[kept++] = safeCells[i];
+            }
+        }
+        safeCount = kept;
+        return Arrays.copyOf(safeCells, safeCount);
+    }
+
+    /**
+     * Returns every cell that is provably a mine.
+     */
+    public int[] getMineCells() {
+        propagate();
+        return Arrays.copyOf(mineCells, mineCount);
+    }
+
+    public boolean isKnownSafe(int cell) {
+        propagate();
+        return (knownSafe[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public boolean isKnownMine(int cell) {
+        propagate();
+        return (knownMines[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    // Examines queued constraints until no deduction adds anything new
+    private void propagate() {
+        if (stale) {
+            reset(board);
+        }
+        while (queueHead < queueTail) {
+            int cell = queue[queueHead++];
+            queued[cell >>> 6] &= ~(1L << cell);
+            examine(cell);
+        }
+        queueHead = 0;
+        queueTail = 0;
+    }
+
+    private void examine(int cell) {
+        if (!isConstraint(cell)) {
+            return;
+        }
+        int rows = board.rows();
+        int cols = board.cols();
+        int row = cell / cols;
+        int col = cell - row * cols;
+        long unknown = unknownMask(row, col, row, col);
+        if (unknown == 0) {
+            return;
+        }
+        int remaining = remainingMines(row, col);
+        int size = Long.bitCount(unknown);
+        if (remaining == 0) {
+            settle(unknown, row, col, false);
+            return;
+        }
+        if (remaining == size) {
+            settle(unknown, row, col, true);
+            return;
+        }
+        // Subset rule against every number within two cells
+        for (int r = Math.max(0, row - 2); r <= Math.min(rows - 1, row + 2); r++) {
+            for (int c = Math.max(0, col - 2); c <= Math.min(cols - 1, col + 2); c++) {
+                if ((r == row && c == col) || !isConstraint(r * cols + c)) {
+                    continue;
+                }
+                long other = unknownMask(r, c, row, col);
+                if (other == 0) {
+                    continue;
+                }
+                int otherRemaining = remainingMines(r, c);
+                if ((unknown & other) == unknown && other != unknown) {
+                    applySubset(other & ~unknown, otherRemaining - remaining, row, col);
+                } else if ((unknown & other) == other && other != unknown) {
+                    applySubset(unknown & ~other, remaining - otherRemaining, row, col);
+                }
+            }
+        }
+    }
+
+    // The cells in difference hold exactly mines mines
+    private void applySubset(long difference, int mines, int row, int col) {
+        if (mines == 0) {
+            settle(difference, row, col, false);
+        } else if (mines == Long.bitCount(difference)) {
+            settle(difference, row, col, true);
+        }
+    }
+
+    // Revealed, safe numbers are the only cells that constrain their neighbors
+    private boolean isConstraint(int cell) {
+        return board.isRevealed(cell) && !board.isMine(cell);
+    }
+
+    // Unknown neighbors of (row, col) as a mask over the window centered at (centerRow, centerCol)
+    private long unknownMask(int row, int col, int centerRow, int centerCol) {
+        int rows = board.rows();
+        int cols = board.cols();
+        long mask = 0;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                int n = r * cols + c;
+                if (!board.isRevealed(n) && !isSettled(n)) {
+                    mask |= 1L << ((r - centerRow + 3) * WINDOW + (c - centerCol + 3));
+                }
+            }
+        }
+        return mask;
+    }
+
+    // Mines around (row, col) not yet accounted for by proven mines
+    private int remainingMines(int row, int col) {
+        int cols = board.cols();
+        int proven = 0;
+        for (int r = Math.max(0, row - 1); r <= Math.min(board.rows() - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                int n = r * cols + c;
+                if ((knownMines[n >>> 6] & (1L << n)) != 0) {
+                    proven++;
+                }
+            }
+        }
+        return board.adjacentMines(row * cols + col) - proven;
+    }
+
+    // Marks every cell of a window mask as safe or as a mine
+    private void settle(long mask, int centerRow, int centerCol, boolean mine) {
+        int cols = board.cols();
+        while (mask != 0) {
+            int bit = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            int r = centerRow + bit / WINDOW - 3;
+            int c = centerCol + bit % WINDOW - 3;
+            int cell = r * cols + c;
+            if (isSettled(cell)) {
+                continue;
+            }
+            if (mine) {
+                knownMines[cell >>> 6] |= 1L << cell;
+                mineCells = push(mineCells, mineCount++, cell);
+            } else {
+                knownSafe[cell >>> 6] |= 1L << cell;
+                safeCells = push(safeCells, safeCount++, cell);
+            }
+            enqueueRevealedNeighbors(cell);
+        }
+    }
+
+    private boolean isSettled(int cell) {
+        long bit = 1L << cell;
+        return ((knownMines[cell >>> 6] | knownSafe[cell >>> 6]) & bit) != 0;
+    }
+
+    private void enqueueRevealedNeighbors(int cell) {
+        int n = board.neighbors(cell, neighbors);
+        for (int i = 0; i < n; i++) {
+            if (board.isRevealed(neighbors[i])) {
+                enqueue(neighbors[i]);
+            }
+        }
+    }
+
+    private void enqueue(int cell) {
+        long bit = 1L << cell;
+        if ((queued[cell >>> 6] & bit) != 0) {
+            return;
+        }
+        queued[cell >>> 6] |= bit;
+        if (queueTail == queue.length) {
+            if (queueHead > 0) {
+                System.arraycopy(queue, queueHead, queue, 0, queueTail - queueHead);
+                queueTail -= queueHead;
+                queueHead = 0;
+            } else {
+                queue = Arrays.copyOf(queue, queue.length << 1);
+            }
+        }
+        queue[queueTail++] = cell;
+    }
+
+    private static int[] push(int[] cells, int size, int cell) {
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, cells.length << 1);
+        }
+        cells[size] = cell;
+        return cells;
+    }
+}
@@ -0,0 +1,172 @@
+package minesweeper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Lock-free histogram of non-negative long values, such as latencies in nanoseconds.
+ *
+ * Values are counted in log-linear buckets: each power of two is split into eight buckets, so
+ * a percentile read back is within 12.5% of the recorded value at any magnitude. Recording
+ * is a few atomic increments and allocates nothing, so it can sit on the hot path and be
+ * called from any thread.
+ */
+public final class Histogram {
+
+    // Buckets per power of two, as a bit count
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value. Negative values are counted as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    // Values below eight get a bucket each; above that, eight buckets per power of two
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Gets the largest value that falls in a bucket
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    /**
+     * Returns the value below which the given fraction of recorded values fall.
+     * @param fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the upper bound of the bucket holding that value, at most the maximum recorded;
+     *         0 if nothing has been recorded
+     */
+    public long percentile(double fraction) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    //Gets the mean of the recorded values, 0 if there are none
+    public double getMean() {
+        long total = count.get();
+        return total == 0 ? 0 : (double) sum.get() / total;
+    }
+
+    //Forgets every recorded value. Values recorded during the call may be partly kept.
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Summarizes the histogram, dividing every value by unit, e.g. 1000 for nanoseconds read
+     * as microseconds.
+     */
+    public Snapshot snapshot(double unit) {
+        return new Snapshot(getCount(), getMean() / unit, percentile(0.5) / unit,
+                percentile(0.9) / unit, percentile(0.99) / unit, getMax() / unit);
+    }
+
+    /**
+     * Summary of a histogram at one point in time, readable over JMX as composite data.
+     */
+    public static final class Snapshot {
+
+        private final long count;
+        private final double mean;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double max;
+
+        @ConstructorParameters({"count", "mean", "p50", "p90", "p99", "max"})
+        public Snapshot(long count, double mean, double p50, double p90, double p99,
+                double max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f",
+                    count, mean, p50, p90, p99, max);
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rankings of every won game, kept separately for each board configuration.
+ *
+ * Games rank by time, ties by fewer moves, and games with the same time and moves by the
+ * order they were won in, as ScoreRecord.FASTEST orders them. Each configuration keeps its
+ * games in an order-statistic tree: a treap whose nodes also hold the size of their subtree,
+ * so top-K, the rank a score would take and its percentile are answered in O(log n + K)
+ * however many games are stored. Nodes live in parallel primitive arrays rather than objects,
+ * about 32 bytes a game, so millions of games fit without a million small allocations.
+ *
+ * Adding a game only stores it; the next query links it into the tree. When many games arrive
+ * at once, as when a whole log is read, the tree is rebuilt instead: the games are sorted and
+ * the treap is built from the sorted run in linear time, which is far cheaper than inserting
+ * them one at a time into a tree too big for the cache.
+ *
+ * A ScoreStore feeds its leaderboard every record in the log; see ScoreStore.openLeaderboard.
+ * All methods are thread-safe.
+ */
+public final class Leaderboard {
+
+    // A ranking rebuilds its tree when more than 1 / REBUILD_SHARE of its games are pending
+    private static final int REBUILD_SHARE = 16;
+
+    private final Map<BoardConfig, Ranking> rankings = new HashMap<BoardConfig, Ranking>();
+    private Ranking lastRanking; // the ranking the last record went to, checked first
+    private long games;
+
+    /**
+     * Adds a won game. Records whose board is not a valid configuration are ignored.
+     */
+    public synchronized void add(ScoreRecord record) {
+        Ranking ranking = lastRanking;
+        if (ranking == null || !record.isOn(ranking.config)) {
+            BoardConfig config;
+            try {
+                config = new BoardConfig(record.getRows(), record.getCols(), record.getMines());
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            ranking = rankings.get(config);
+            if (ranking == null) {
+                ranking = new Ranking(config);
+                rankings.put(config, ranking);
+            }
+            lastRanking = ranking;
+        }
+        ranking.add(record);
+        games++;
+    }
+
+    /**
+     * Returns the best games on a board, best first.
+     * @param config the board
+     * @param k the maximum number of games
+     */
+    public synchronized List<ScoreRecord> top(BoardConfig config, int k) {
+        Ranking ranking = rankings.get(config);
+        List<ScoreRecord> best = new ArrayList<ScoreRecord>(
+                ranking == null ? 0 : (int) Math.min(k, ranking.size()));
+        if (ranking != null) {
+            ranking.top(k, best);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the game at a position of a board's ranking.
+     * @param config the board
+     * @param rank the position, 1 for the best game
+     * @return the game, or null if fewer games were won on the board
+     */
+    public synchronized ScoreRecord get(BoardConfig config, long rank) {
+        Ranking ranking = rankings.get(config);
+        if (ranking == null || rank < 1 || rank > ranking.size()) {
+            return null;
+        }
+        return ranking.select(rank - 1);
+    }
+
+    /**
+     * Returns the position a game with the given score takes on a board: one more than the
+     * number of stored games that were faster, or as fast in fewer moves. Games with exactly
+     * the same time and moves share a rank.
+     * @param config the board
+     * @param time time to win in seconds
+     * @param moves number of moves
+     */
+    public synchronized long rank(BoardConfig config, int time, int moves) {
+        Ranking ranking = rankings.get(config);
+        return ranking == null ? 1 : ranking.countBefore(time, moves, false) + 1;
+    }
+
+    /**
+     * Returns the percentage of the games on a board that a score beats, counting games with
+     * the same time and moves as beaten by half, so the median game scores 50.
+     * @param config the board
+     * @param time time to win in seconds
+     * @param moves number of moves
+     * @return 0 to 100, or 100 if no game was won on the board
+     */
+    public synchronized double percentile(BoardConfig config, int time, int moves) {
+        Ranking ranking = rankings.get(config);
+        if (ranking == null || ranking.size() == 0) {
+            return 100;
+        }
+        long better = ranking.countBefore(time, moves, false);
+        long asGood = ranking.countBefore(time, moves, true);
+        long worse = ranking.size() - asGood;
+        return 100.0 * (worse + (asGood - better) / 2.0) / ranking.size();
+    }
+
+    // Links every stored game into its tree, so the next queries do no catching up
+    synchronized void settle() {
+        for (Ranking ranking : rankings.values()) {
+            ranking.settle();
+        }
+    }
+
+    //Gets the number of games won on a board
+    public synchronized long size(BoardConfig config) {
+        Ranking ranking = rankings.get(config);
+        return ranking == null ? 0 : ranking.size();
+    }
+
+    //Gets the number of games on all boards
+    public synchronized long size() {
+        return games;
+    }
+
+    //Gets the boards with at least one game
+    public synchronized List<BoardConfig> getConfigs() {
+        return new ArrayList<BoardConfig>(rankings.keySet());
+    }
+
+    /**
+     * The games of one board in an array-backed treap ordered by time, moves and sequence.
+     * Node 0 is the empty tree, so size[0] is always 0. Nodes past settled are stored but not
+     * yet in the tree.
+     */
+    static final class Ranking {
+        final BoardConfig config;
+        private int[] left = new int[64];
+        private int[] right = new int[64];
+        private int[] size = new int[64];
+        private int[] priority = new int[64];
+        private int[] time = new int[64];
+        private int[] moves = new int[64];
+        private long[] sequence = new long[64];
+        private int nodes;
+        private int settled;
+        private int root;
+        private int seed = 0x2545F491;
+        // Whether games were added in sequence order, so node order breaks ties in scores
+        private boolean ordered = true;
+        private long lastSequence = Long.MIN_VALUE;
+        private int[] stack = new int[64];
+
+        // Trees the last split produced
+        private int splitLeft;
+        private int splitRight;
+
+        Ranking(BoardConfig config) {
+            this.config = config;
+        }
+
+        long size() {
+            return nodes;
+        }
+
+        void add(ScoreRecord record) {
+            int node = ++nodes;
+            if (node == left.length) {
+                grow();
+            }
+            time[node] = record.getTime();
+            moves[node] = record.getMoves();
+            sequence[node] = record.getSequence();
+            priority[node] = nextPriority();
+            if (record.getSequence() > lastSequence) {
+                lastSequence = record.getSequence();
+            } else {
+                ordered = false;
+            }
+        }
+
+        // xorshift, random enough to keep the expected depth logarithmic
+        private int nextPriority() {
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            return seed;
+        }
+
+        // Links the stored games into the tree, rebuilding it when they are a large share
+        void settle() {
+            int pending = nodes - settled;
+            if (pending == 0) {
+                return;
+            }
+            if (pending > nodes / REBUILD_SHARE) {
+                rebuild();
+            } else {
+                for (int node = settled + 1; node <= nodes; node++) {
+                    left[node] = 0;
+                    right[node] = 0;
+                    size[node] = 1;
+                    split(root, node);
+                    int before = splitLeft;
+                    int after = splitRight;
+                    root = merge(merge(before, node), after);
+                }
+            }
+            settled = nodes;
+        }
+
+        /**
+         * Renumbers the nodes in ranking order and builds the treap over them with a stack.
+         * Numbered in order, the nodes of every subtree are neighbors in the arrays, so the
+         * build and later queries walk memory mostly in sequence.
+         */
+        private void rebuild() {
+            int[] order = sortedNodes();
+            int[] sortedTime = new int[time.length];
+            int[] sortedMoves = new int[moves.length];
+            long[] sortedSequence = new long[sequence.length];
+            for (int i = 0; i < nodes; i++) {
+                sortedTime[i + 1] = time[order[i]];
+                sortedMoves[i + 1] = moves[order[i]];
+                sortedSequence[i + 1] = sequence[order[i]];
+            }
+            time = sortedTime;
+            moves = sortedMoves;
+            sequence = sortedSequence;
+            int depth = 0;
+            for (int node = 1; node <= nodes; node++) {
+                priority[node] = nextPriority();
+                int last = 0;
+                while (depth > 0 && priority[stack[depth - 1]] < priority[node]) {
+                    last = stack[--depth];
+                }
+                left[node] = last;
+                right[node] = 0;
+                if (depth > 0) {
+                    right[stack[depth - 1]] = node;
+                }
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+            }
+            root = stack[0];
+            resize(root);
+        }
+
+        // Recomputes subtree sizes below t, recursing only as deep as the tree
+        private int resize(int t) {
+            if (t == 0) {
+                return 0;
+            }
+            size[t] = resize(left[t]) + resize(right[t]) + 1;
+            return size[t];
+        }
+
+        /**
+         * Sorts nodes 1 to nodes into ranking order with an LSD radix sort, one stable pass per
+         * byte of the key, least significant first. Time and moves are packed into one key
+         * that moves with each node, and passes over a byte that is the same in every key are
+         * skipped, so scores of a few thousand seconds and moves take about three passes.
+         * While games arrive in sequence order, node order already breaks ties; otherwise the
+         * sequence bytes are sorted first.
+         */
+        private int[] sortedNodes() {
+            int[] order = new int[nodes];
+            long[] keys = new long[nodes];
+            int[] tempOrder = new int[nodes];
+            long[] tempKeys = new long[nodes];
+            int[] count = new int[256];
+            for (int i = 0; i < nodes; i++) {
+                order[i] = i + 1;
+                keys[i] = ordered ? packedScore(i + 1) : sequence[i + 1] ^ Long.MIN_VALUE;
+            }
+            for (int round = ordered ? 1 : 0; round < 2; round++) {
+                if (round == 1 && !ordered) {
+                    for (int i = 0; i < nodes; i++) {
+                        keys[i] = packedScore(order[i]);
+                    }
+                }
+                for (int shift = 0; shift < 64; shift += 8) {
+                    if (radixPass(keys, order, tempKeys, tempOrder, shift, count)) {
+                        int[] swapOrder = order;
+                        order = tempOrder;
+                        tempOrder = swapOrder;
+                        long[] swapKeys = keys;
+                        keys = tempKeys;
+                        tempKeys = swapKeys;
+                    }
+                }
+            }
+            return order;
+        }
+
+        // Time and moves as one key whose unsigned order is ranking order
+        private long packedScore(int node) {
+            return (((long) time[node] << 32) | ((moves[node] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL))
+                    ^ Long.MIN_VALUE;
+        }
+
+        /**
+         * Moves keys and nodes into the to arrays, stably ordered by one byte of the keys.
+         * @return false, moving nothing, when that byte is the same in every key
+         */
+        private static boolean radixPass(long[] keys, int[] order, long[] toKeys, int[] toOrder,
+                int shift, int[] count) {
+            int n = keys.length;
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) {
+                count[(int) (keys[i] >>> shift) & 0xFF]++;
+            }
+            int start = 0;
+            for (int digit = 0; digit < 256; digit++) {
+                if (count[digit] == n) {
+                    return false;
+                }
+                int c = count[digit];
+                count[digit] = start;
+                start += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int at = count[(int) (keys[i] >>> shift) & 0xFF]++;
+                toKeys[at] = keys[i];
+                toOrder[at] = order[i];
+            }
+            return true;
+        }
+
+        private void grow() {
+            int capacity = left.length * 2;
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            size = Arrays.copyOf(size, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+            time = Arrays.copyOf(time, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            sequence = Arrays.copyOf(sequence, capacity);
+        }
+
+        // Checks whether node a ranks before node b
+        private boolean before(int a, int b) {
+            if (time[a] != time[b]) {
+                return time[a] < time[b];
+            }
+            if (moves[a] != moves[b]) {
+                return moves[a] < moves[b];
+            }
+            return sequence[a] < sequence[b];
+        }
+
+        // Splits tree t into the nodes ranking before key and the rest
+        private void split(int t, int key) {
+            if (t == 0) {
+                splitLeft = 0;
+                splitRight = 0;
+                return;
+            }
+            if (before(t, key)) {
+                split(right[t], key);
+                right[t] = splitLeft;
+                splitLeft = t;
+            } else {
+                split(left[t], key);
+                left[t] = splitRight;
+                splitRight = t;
+            }
+            size[t] = size[left[t]] + size[right[t]] + 1;
+        }
+
+        // Joins two trees where every node of a ranks before every node of b
+        private int merge(int a, int b) {
+            if (a == 0 || b == 0) {
+                return a | b;
+            }
+            if (priority[a] > priority[b]) {
+                right[a] = merge(right[a], b);
+                size[a] = size[left[a]] + size[right[a]] + 1;
+                return a;
+            }
+            left[b] = merge(a, left[b]);
+            size[b] = size[left[b]] + size[right[b]] + 1;
+            return b;
+        }
+
+        /**
+         * Counts the games faster than a score, or as fast in fewer moves; with orEqual, also
+         * the games with the same time and moves.
+         */
+        long countBefore(int t, int m, boolean orEqual) {
+            settle();
+            long count = 0;
+            int node = root;
+            while (node != 0) {
+                boolean goesBefore = time[node] != t ? time[node] < t
+                        : moves[node] != m ? moves[node] < m : orEqual;
+                if (goesBefore) {
+                    count += size[left[node]] + 1;
+                    node = right[node];
+                } else {
+                    node = left[node];
+                }
+            }
+            return count;
+        }
+
+        // Finds the game at a 0-based position
+        ScoreRecord select(long k) {
+            settle();
+            int node = root;
+            while (true) {
+                int leftSize = size[left[node]];
+                if (k < leftSize) {
+                    node = left[node];
+                } else if (k == leftSize) {
+                    return record(node);
+                } else {
+                    k -= leftSize + 1;
+                    node = right[node];
+                }
+            }
+        }
+
+        // Appends the first k games in order, walking the tree with an explicit stack
+        void top(int k, List<ScoreRecord> out) {
+            settle();
+            int depth = 0;
+            int node = root;
+            while ((node != 0 || depth > 0) && out.size() < k) {
+                if (node != 0) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = node;
+                    node = left[node];
+                } else {
+                    node = stack[--depth];
+                    out.add(record(node));
+                    node = right[node];
+                }
+            }
+        }
+
+        private ScoreRecord record(int node) {
+            return new ScoreRecord(sequence[node], time[node], moves[node], config.getRows(),
+                    config.getCols(), config.getMines());
+        }
+    }
+}
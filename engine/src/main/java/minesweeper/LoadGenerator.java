@@ -0,0 +1,223 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load generator for GameServer: many connections on one Selector thread, each playing
+ * beginner-sized random games in a closed loop with one command in flight.
+ *
+ * A connection sends NEW, then flips random cells it has not seen revealed until the game
+ * ends, then starts another. The time from sending a command to reading its reply is
+ * recorded in a Histogram, so the run reports moves per second and latency percentiles.
+ */
+public final class LoadGenerator {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final InetSocketAddress address;
+    private final int connectionCount;
+    private final BoardConfig config;
+    private final Histogram latency = new Histogram();
+    // Shared by every client; each read is consumed before the next one
+    private final ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+    private long moves;
+    private long games;
+    private long errors;
+
+    /**
+     * Creates a load generator.
+     * @param address the server
+     * @param connectionCount number of concurrent connections, one session each
+     * @param config the board every game is played on
+     */
+    public LoadGenerator(InetSocketAddress address, int connectionCount, BoardConfig config) {
+        this.address = address;
+        this.connectionCount = connectionCount;
+        this.config = config;
+    }
+
+    /**
+     * Connects every client and plays until the time is up.
+     * @param millis how long to play once every connection is open
+     */
+    public void run(long millis) throws IOException {
+        Selector selector = Selector.open();
+        Client[] clients = new Client[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            clients[i] = new Client(i);
+            SocketChannel channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            clients[i].key = channel.register(selector, SelectionKey.OP_READ, clients[i]);
+        }
+        latency.reset();
+        moves = 0;
+        games = 0;
+        errors = 0;
+        for (Client client : clients) {
+            client.send("NEW " + config.getRows() + " " + config.getCols() + " "
+                    + config.getMines());
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < deadline) {
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client client = (Client) key.attachment();
+                if (key.isValid() && key.isWritable()) {
+                    client.flush();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    client.read();
+                }
+            }
+        }
+        for (Client client : clients) {
+            client.key.channel().close();
+        }
+        selector.close();
+    }
+
+    //Gets the number of FLIP replies received
+    public long getMoves() {
+        return moves;
+    }
+
+    //Gets the number of games started
+    public long getGames() {
+        return games;
+    }
+
+    //Gets the number of ERR replies
+    public long getErrors() {
+        return errors;
+    }
+
+    //Gets the time from sending a command to reading its reply, in nanoseconds
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * One connection and the game it is playing.
+     */
+    private final class Client {
+        SelectionKey key;
+        private final ByteBuffer out = ByteBuffer.allocate(64);
+        private final SplittableRandom random;
+        private final boolean[] revealed = new boolean[config.getTotalTiles()];
+        private final StringBuilder line = new StringBuilder();
+        private long sentAt;
+        private boolean flipping;
+
+        Client(int index) {
+            random = new SplittableRandom(index);
+        }
+
+        void send(String command) throws IOException {
+            out.clear();
+            for (int i = 0; i < command.length(); i++) {
+                out.put((byte) command.charAt(i));
+            }
+            out.put((byte) '\n');
+            out.flip();
+            sentAt = System.nanoTime();
+            flush();
+        }
+
+        void flush() throws IOException {
+            ((SocketChannel) key.channel()).write(out);
+            key.interestOps(out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void read() throws IOException {
+            in.clear();
+            if (((SocketChannel) key.channel()).read(in) < 0) {
+                key.cancel();
+                return;
+            }
+            in.flip();
+            while (in.hasRemaining()) {
+                char c = (char) in.get();
+                if (c != '\n') {
+                    line.append(c);
+                    continue;
+                }
+                latency.record(System.nanoTime() - sentAt);
+                reply();
+                line.setLength(0);
+            }
+        }
+
+        // Reads a reply and sends the next command
+        private void reply() throws IOException {
+            boolean ok = line.length() >= 2 && line.charAt(0) == 'O' && line.charAt(1) == 'K';
+            if (!ok) {
+                errors++;
+            }
+            int state = 0;
+            if (flipping && ok) {
+                moves++;
+                state = parseReveal();
+            } else if (!flipping) {
+                games++;
+                Arrays.fill(revealed, false);
+            }
+            if (state != 0 || (flipping && !ok)) {
+                flipping = false;
+                send("NEW " + config.getRows() + " " + config.getCols() + " "
+                        + config.getMines());
+                return;
+            }
+            flipping = true;
+            int cell = random.nextInt(revealed.length);
+            while (revealed[cell]) {
+                cell = cell + 1 == revealed.length ? 0 : cell + 1;
+            }
+            send("FLIP " + cell / config.getCols() + " " + cell % config.getCols());
+        }
+
+        // Marks the cells of an OK state safeLeft cell:number ... reply; returns the state
+        private int parseReveal() {
+            int pos = 3;
+            int end = line.indexOf(" ", pos);
+            int state = Integer.parseInt(line, pos, end, 10);
+            pos = line.indexOf(" ", end + 1);
+            while (pos >= 0) {
+                int colon = line.indexOf(":", pos);
+                revealed[Integer.parseInt(line, pos + 1, colon, 10)] = true;
+                pos = line.indexOf(" ", colon);
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Plays against a running server and prints the rate and latency.
+     * Usage: java LoadGenerator [connections] [seconds] [port]
+     */
+    public static void main(String[] args) throws IOException {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : GameConstants.SERVER_PORT;
+        LoadGenerator generator = new LoadGenerator(new InetSocketAddress("127.0.0.1", port),
+                connections, BoardConfig.BEGINNER);
+        generator.run(seconds * 1000);
+        Histogram.Snapshot micros = generator.getLatency().snapshot(1000.0);
+        System.out.printf("%d connections: %.0f moves/s, %d games, %d errors%n", connections,
+                generator.getMoves() / (double) seconds, generator.getGames(),
+                generator.getErrors());
+        System.out.println("latency us: " + micros);
+    }
+}
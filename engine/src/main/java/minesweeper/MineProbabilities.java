@@ -0,0 +1,71 @@
+package minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * Exact mine probabilities for the hidden cells of a position.
+ * Frontier cells (hidden cells next to a revealed number) each have their own probability;
+ * every other hidden cell shares the interior probability.
+ */
+public final class MineProbabilities {
+
+    private final int[] frontierCells;
+    private final double[] frontierProbabilities;
+    private final double interiorProbability;
+    private final int interiorCell;
+    private final int interiorCount;
+
+    MineProbabilities(int[] frontierCells, double[] frontierProbabilities,
+            double interiorProbability, int interiorCell, int interiorCount) {
+        this.frontierCells = frontierCells;
+        this.frontierProbabilities = frontierProbabilities;
+        this.interiorProbability = interiorProbability;
+        this.interiorCell = interiorCell;
+        this.interiorCount = interiorCount;
+    }
+
+    /**
+     * Returns the probability that a hidden cell holds a mine.
+     * @param cell the cell index
+     * @return the frontier probability of the cell, or the interior probability otherwise
+     */
+    public double probability(int cell) {
+        int i = Arrays.binarySearch(frontierCells, cell);
+        return i >= 0 ? frontierProbabilities[i] : interiorProbability;
+    }
+
+    //Returns the frontier cells in ascending order
+    public int[] getFrontierCells() {
+        return frontierCells.clone();
+    }
+
+    //Returns the probabilities matching getFrontierCells()
+    public double[] getFrontierProbabilities() {
+        return frontierProbabilities.clone();
+    }
+
+    public double getInteriorProbability() {
+        return interiorProbability;
+    }
+
+    //Returns the number of hidden cells that are not on the frontier
+    public int getInteriorCount() {
+        return interiorCount;
+    }
+
+    /**
+     * Returns the hidden cell least likely to be a mine.
+     * @return the cell index, or -1 if there are no hidden cells
+     */
+    public int getSafestCell() {
+        int best = interiorCount > 0 ? interiorCell : -1;
+        double bestProbability = interiorCount > 0 ? interiorProbability : 2;
+        for (int i = 0; i < frontierCells.length; i++) {
+            if (frontierProbabilities[i] < bestProbability) {
+                bestProbability = frontierProbabilities[i];
+                best = frontierCells[i];
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,89 @@
+package minesweeper;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Places mines on a BoardEngine in time proportional to the mine count.
+ * Uses Floyd's sampling algorithm over the cell indices that are not excluded, with the
+ * engine's mine plane as the membership set, so every draw is accepted at any density and no
+ * temporary collections are built. Callers placing mines for every game can pass their own
+ * generator and exclusion buffer, so placing allocates nothing.
+ */
+public final class MineSampler {
+
+    private static final int[] NO_EXCLUSIONS = new int[0];
+
+    private MineSampler() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Places mines uniformly at random on an empty board.
+     * @param board the board, which must not contain mines yet
+     * @param mines number of mines to place, fewer than the number of cells
+     * @param random source of randomness
+     */
+    public static void place(BoardEngine board, int mines, RandomGenerator random) {
+        place(board, mines, random, NO_EXCLUSIONS, 0);
+    }
+
+    /**
+     * Places mines uniformly at random while keeping the safe cell and, when the density
+     * allows it, all of its neighbors free of mines.
+     * @param board the board, which must not contain mines yet
+     * @param mines number of mines to place, fewer than the number of cells
+     * @param random source of randomness
+     * @param safeCell the cell that must stay mine-free, usually the first click
+     */
+    public static void placeAvoiding(BoardEngine board, int mines, RandomGenerator random,
+            int safeCell) {
+        placeAvoiding(board, mines, random, safeCell, new int[9]);
+    }
+
+    // As placeAvoiding, with a buffer of at least nine cells for the excluded neighborhood
+    static void placeAvoiding(BoardEngine board, int mines, RandomGenerator random,
+            int safeCell, int[] excluded) {
+        int count = 0;
+        int row = board.rowOf(safeCell);
+        int col = board.colOf(safeCell);
+        // Row-major order keeps the excluded cells sorted
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (board.contains(r, c)) {
+                    excluded[count++] = board.index(r, c);
+                }
+            }
+        }
+        if (board.cellCount() - count < mines) {
+            // Too dense to clear the neighborhood, so only the clicked cell is kept safe
+            excluded[0] = safeCell;
+            count = 1;
+        }
+        place(board, mines, random, excluded, count);
+    }
+
+    // Floyd's algorithm over the n non-excluded cells
+    private static void place(BoardEngine board, int mines, RandomGenerator random,
+            int[] excluded, int excludedCount) {
+        int n = board.cellCount() - excludedCount;
+        if (mines < 0 || mines > n) {
+            throw new IllegalArgumentException("Cannot place " + mines + " mines in "
+                    + n + " free cells");
+        }
+        for (int j = n - mines; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            if (!board.placeMine(toCell(t, excluded, excludedCount))) {
+                board.placeMine(toCell(j, excluded, excludedCount));
+            }
+        }
+    }
+
+    // Maps a position among the non-excluded cells to its cell index
+    private static int toCell(int position, int[] excluded, int excludedCount) {
+        int cell = position;
+        for (int k = 0; k < excludedCount && excluded[k] <= cell; k++) {
+            cell++;
+        }
+        return cell;
+    }
+}
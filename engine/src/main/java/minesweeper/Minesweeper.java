@@ -0,0 +1,740 @@
+package minesweeper;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * Minesweeper game logic class.
+ * Handles the core game mechanics including board generation, tile flipping,
+ * game state management, and win/loss conditions.
+ * Every successful move is also sent as one batch of changed cells to the MoveListeners
+ * registered with addMoveListener.
+ * Once its buffers have grown to the board, a game allocates nothing to reset, place its
+ * mines, flip, flag, chord, undo or redo, unless FINE logging is on.
+ */
+public class Minesweeper {
+    
+    // Holds the logger, so java.util.logging starts at the first game end rather than with
+    // the first game; its start-up takes longer than the rest of a terminal game's
+    private static final class Log {
+        static final Logger LOGGER = Logger.getLogger(Minesweeper.class.getName());
+    }
+    
+    private BoardConfig config;
+    private BoardEngine board;
+    private int gameState;
+    private int remainingSafeTiles;
+    private MoveJournal journal = new MoveJournal(GameConstants.MOVE_JOURNAL_BYTES);
+    private final FloodReveal floodReveal = new FloodReveal();
+    private final int[] neighbors = new int[8];
+    // Reused to place the mines of every game, so a new game allocates nothing
+    private final SeededRandom layoutRandom = new SeededRandom();
+    private final int[] excluded = new int[9];
+    private HintEngine hints;
+    private final SplittableRandom seeds;
+    private long gameSeed;
+    private boolean minesPlaced;
+    private NoGuessGenerator noGuess;
+    private ReplayRecorder recorder;
+    private MoveListener[] listeners = new MoveListener[0];
+    private final MoveEvent event = new MoveEvent();
+    
+    /**
+     * Default constructor.
+     * Initializes a new beginner game with random bomb placement.
+     */
+    public Minesweeper() {
+        this(BoardConfig.BEGINNER);
+    }
+    
+    /**
+     * Initializes a new game with random bomb placement on the given board configuration.
+     * @param config the board dimensions and mine count
+     */
+    public Minesweeper(BoardConfig config) {
+        this(config, new SplittableRandom());
+    }
+    
+    /**
+     * Initializes a reproducible game: equal seeds give the same sequence of boards for the
+     * same sequence of first clicks.
+     * @param config the board dimensions and mine count
+     * @param seed seed for the game seeds drawn on every reset
+     */
+    public Minesweeper(BoardConfig config, long seed) {
+        this(config, new SplittableRandom(seed));
+    }
+    
+    private Minesweeper(BoardConfig config, SplittableRandom seeds) {
+        this.config = config;
+        this.seeds = seeds;
+        reset();
+    }
+    
+    /**
+     * Constructor for testing purposes.
+     * Creates a beginner game with predictable bomb placement for unit tests.
+     * @param isTestMode flag to indicate test mode (value doesn't matter)
+     */
+    public Minesweeper(boolean isTestMode) {
+        this.config = BoardConfig.BEGINNER;
+        this.seeds = new SplittableRandom();
+        resetForTest();
+    }
+    
+    /**
+     * Flips a tile at the specified coordinates.
+     * Handles game state changes and auto-reveals adjacent tiles with zero bombs.
+     * The cells revealed by the move are available from getLastReveal() until the next flip.
+     * @param row the row coordinate
+     * @param col the column coordinate
+     * @return true if the flip was successful, false if invalid or game is over
+     */
+    public boolean flip(int row, int col) {
+        if (!isValidMove(row, col)) {
+            recordFlip(row, col);
+            return false;
+        }
+        
+        long start = EngineMetrics.start();
+        int cell = board.index(row, col);
+        placeMinesFor(cell, start);
+        recordFlip(row, col);
+        int previousState = gameState;
+        long revealStart = EngineMetrics.start();
+        int revealed = floodReveal.reveal(board, cell);
+        EngineMetrics.recordFloodReveal(revealStart);
+        finishMove(MoveEvent.FLIP, cell, previousState, board.isMine(cell) ? 1 : 0);
+        EngineMetrics.recordFlip(start, cell, revealed);
+        
+        return true;
+    }
+    
+    /**
+     * Sets or clears a flag on a hidden cell. Flips and cascades leave flagged cells hidden.
+     * @param row the row coordinate
+     * @param col the column coordinate
+     * @param flag whether the cell should be flagged
+     * @return true if the flag changed
+     */
+    public boolean setFlagged(int row, int col, boolean flag) {
+        if (!board.contains(row, col) || gameState != GameConstants.GAME_IN_PROGRESS) {
+            return false;
+        }
+        int cell = board.index(row, col);
+        if (board.isRevealed(cell) || board.isFlagged(cell) == flag) {
+            return false;
+        }
+        board.setFlagged(cell, flag);
+        if (recorder != null) {
+            recorder.flag(cell);
+        }
+        if (listeners.length > 0) {
+            event.begin(MoveEvent.FLAG, cell, gameState);
+            event.add(cell);
+            fireMove();
+        }
+        return true;
+    }
+    
+    /**
+     * Reveals every hidden, unflagged neighbor of a revealed number that has as many flags
+     * around it as mines, as one move. Whether a chord is allowed is checked in O(1) from the
+     * flagged-neighbor counts the board keeps up to date. A misplaced flag loses the game, as
+     * the chord then reveals the mine that was left unflagged.
+     * The cells revealed by the move are available from getLastReveal() until the next move.
+     * @param row the row coordinate of the number
+     * @param col the column coordinate of the number
+     * @return true if the chord revealed any cell
+     */
+    public boolean chord(int row, int col) {
+        if (!board.contains(row, col)) {
+            recordFlip(row, col);
+            return false;
+        }
+        int cell = board.index(row, col);
+        if (recorder != null) {
+            recorder.chord(cell);
+        }
+        int mines = board.adjacentMines(cell);
+        if (gameState != GameConstants.GAME_IN_PROGRESS || !board.isRevealed(cell)
+                || board.isMine(cell) || mines == 0 || board.adjacentFlags(cell) != mines) {
+            return false;
+        }
+        long start = EngineMetrics.start();
+        int previousState = gameState;
+        floodReveal.clear();
+        int minesRevealed = 0;
+        int count = board.neighbors(cell, neighbors);
+        for (int i = 0; i < count; i++) {
+            int next = neighbors[i];
+            if (!board.isFlagged(next) && floodReveal.extend(board, next) > 0
+                    && board.isMine(next)) {
+                minesRevealed++;
+            }
+        }
+        if (floodReveal.size() == 0) {
+            return false;
+        }
+        finishMove(MoveEvent.CHORD, cell, previousState, minesRevealed);
+        EngineMetrics.recordFlip(start, cell, floodReveal.size());
+        return true;
+    }
+    
+    /**
+     * Flips many cells as one move, for bots and the simulator. The cells are revealed in
+     * order, cascades included, and the game is won or lost once at the end; the journal gets
+     * one entry and listeners one event for the whole batch. Cells that are off the board,
+     * revealed or flagged are skipped, and the batch stops at the first mine.
+     * The cells revealed are available from getLastReveal() until the next move.
+     * @param cells the cell indices to flip
+     * @return the number of cells revealed
+     */
+    public int flipAll(int[] cells) {
+        return flipAll(cells, cells.length);
+    }
+    
+    /**
+     * Flips the first count cells of an array as one move, as flipAll(int[]) does.
+     * @param cells the cell indices to flip
+     * @param count number of entries of cells to use
+     * @return the number of cells revealed
+     */
+    public int flipAll(int[] cells, int count) {
+        int first = -1;
+        for (int i = 0; i < count && first < 0; i++) {
+            if (isFlippable(cells[i])) {
+                first = cells[i];
+            }
+        }
+        long start = EngineMetrics.start();
+        if (first >= 0 && gameState == GameConstants.GAME_IN_PROGRESS) {
+            placeMinesFor(first, start);
+        }
+        if (recorder != null) {
+            recorder.batch(cells, count);
+        }
+        if (first < 0 || gameState != GameConstants.GAME_IN_PROGRESS) {
+            return 0;
+        }
+        int previousState = gameState;
+        floodReveal.clear();
+        int minesRevealed = 0;
+        for (int i = 0; i < count && minesRevealed == 0; i++) {
+            int cell = cells[i];
+            if (isFlippable(cell)) {
+                floodReveal.extend(board, cell);
+                minesRevealed += board.isMine(cell) ? 1 : 0;
+            }
+        }
+        finishMove(MoveEvent.BATCH, first, previousState, minesRevealed);
+        EngineMetrics.recordFlip(start, first, floodReveal.size());
+        return floodReveal.size();
+    }
+    
+    private boolean isFlippable(int cell) {
+        return cell >= 0 && cell < board.cellCount() && !board.isRevealed(cell)
+                && !board.isFlagged(cell);
+    }
+    
+    //Places the mines before the first cell of a game is revealed, keeping that cell safe
+    private void placeMinesFor(int cell, long start) {
+        if (minesPlaced) {
+            return;
+        }
+        if (isNoGuess() && !noGuess.isSolvable(gameSeed, cell)) {
+            // Queued seeds are verified for the center, so search again for this first click;
+            // the search is bounded by NO_GUESS_SEARCH_MS, after which the board is random
+            gameSeed = noGuess.generate(cell);
+            placeMinesAvoiding(cell);
+            // The recorded seed is not the one the mines came from
+            recordLayout();
+        } else {
+            placeMinesAvoiding(cell);
+        }
+        EngineMetrics.recordGeneration(start, config);
+    }
+    
+    /**
+     * Applies the cells in floodReveal as one move: updates the hints, journal, counters and
+     * game state, then tells the listeners.
+     * @param minesRevealed how many of the revealed cells are mines
+     */
+    private void finishMove(int kind, int cell, int previousState, int minesRevealed) {
+        int revealed = floodReveal.size();
+        if (hints != null) {
+            hints.onReveal(floodReveal);
+        }
+        journal.record(cell, floodReveal);
+        // The whole zero region is revealed in one pass, so the counter moves once per batch
+        remainingSafeTiles -= revealed - minesRevealed;
+        if (minesRevealed > 0) {
+            gameState = GameConstants.GAME_LOST;
+            if (Log.LOGGER.isLoggable(Level.FINE)) {
+                Log.LOGGER.log(Level.FINE, "Game lost - bomb flipped at ({0}, {1})",
+                        new Object[]{board.rowOf(cell), board.colOf(cell)});
+            }
+        } else if (remainingSafeTiles == 0) {
+            // Check for win condition
+            gameState = GameConstants.GAME_WON;
+            Log.LOGGER.fine("Game won - all safe tiles revealed");
+        }
+        if (listeners.length > 0) {
+            event.begin(kind, cell, previousState);
+            for (int i = 0; i < revealed; i++) {
+                event.add(floodReveal.cell(i));
+            }
+            fireMove();
+        }
+    }
+    
+    /**
+     * Returns the cells revealed by the most recent successful flip, chord or batch.
+     * The result is reused by the next move, so copy it if it must outlive that call.
+     * @return the reveal result of the last move
+     */
+    public FloodReveal getLastReveal() {
+        return floodReveal;
+    }
+    
+    /**
+     * Suggests a move that is provably safe for the current position.
+     * Before the first flip every cell is safe, so the center of the board is suggested.
+     * @return the cell index of a safe hidden cell, or -1 if no cell is provably safe
+     */
+    public int hint() {
+        if (gameState != GameConstants.GAME_IN_PROGRESS) {
+            return -1;
+        }
+        if (!minesPlaced) {
+            return board.index(board.rows() / 2, board.cols() / 2);
+        }
+        return getHints().nextSafeCell();
+    }
+    
+    /**
+     * Returns the deduction engine for this game, creating it on first use.
+     * Once created it is kept up to date by every flip, so later queries only re-examine
+     * the constraints the latest moves touched.
+     * @return the hint engine
+     */
+    public HintEngine getHints() {
+        if (hints == null) {
+            hints = new HintEngine(board);
+        }
+        return hints;
+    }
+    
+    /**
+     * Checks if a move is valid.
+     * @param row the row coordinate
+     * @param col the column coordinate
+     * @return true if the move is valid
+     */
+    private boolean isValidMove(int row, int col) {
+        return board.contains(row, col) && 
+               !board.isRevealed(board.index(row, col)) && 
+               !board.isFlagged(board.index(row, col)) && 
+               gameState == GameConstants.GAME_IN_PROGRESS;
+    }
+    
+    //Unflips the most recent move, flip, chord or batch alike, if it revealed a bomb. Only the
+    //latest move can have lost the game. Allows player to keep playing even after loss
+    public boolean unflip() {
+        return gameState == GameConstants.GAME_LOST && undo();
+    }
+    
+    /**
+     * Takes back the latest move, hiding every cell it revealed, cascade included.
+     * The hidden cells are available from getJournal() until the next undo or redo.
+     * Mines stay where they are, so a redone or repeated first click plays the same board.
+     * @return false if there is no move to undo
+     */
+    public boolean undo() {
+        if (recorder != null) {
+            recorder.undo();
+        }
+        if (!journal.undo(board)) {
+            return false;
+        }
+        int previousState = gameState;
+        for (int i = 0; i < journal.getChangedCount(); i++) {
+            if (!board.isMine(journal.getChangedCell(i))) {
+                remainingSafeTiles++;
+            }
+        }
+        gameState = GameConstants.GAME_IN_PROGRESS;
+        if (hints != null) {
+            // Deductions only grow as cells are revealed, so hiding cells starts them over.
+            // That is left to the next hint, so an undo still costs only the cells it hides
+            hints.invalidate();
+        }
+        if (listeners.length > 0) {
+            fireJournal(MoveEvent.UNDO, previousState);
+        }
+        return true;
+    }
+    
+    /**
+     * Plays again the move undone last, revealing the same cells it revealed before.
+     * The revealed cells are available from getJournal() until the next undo or redo.
+     * Cells flagged since the undo lose their flags, each reported to the listeners as a FLAG
+     * change before the redo itself.
+     * @return false if there is no move to redo
+     */
+    public boolean redo() {
+        if (recorder != null) {
+            recorder.redo();
+        }
+        if (!journal.redo(board)) {
+            return false;
+        }
+        int previousState = gameState;
+        if (listeners.length > 0) {
+            // Flags set while the move was undone are gone from the cells it revealed again
+            for (int i = 0; i < journal.getUnflaggedCount(); i++) {
+                int cell = journal.getUnflaggedCell(i);
+                event.begin(MoveEvent.FLAG, cell, previousState);
+                event.add(cell);
+                fireMove();
+            }
+        }
+        for (int i = 0; i < journal.getChangedCount(); i++) {
+            int cell = journal.getChangedCell(i);
+            if (board.isMine(cell)) {
+                gameState = GameConstants.GAME_LOST;
+            } else {
+                remainingSafeTiles--;
+            }
+            if (hints != null) {
+                hints.onReveal(cell);
+            }
+        }
+        if (gameState != GameConstants.GAME_LOST && remainingSafeTiles == 0) {
+            gameState = GameConstants.GAME_WON;
+        }
+        if (listeners.length > 0) {
+            fireJournal(MoveEvent.REDO, previousState);
+        }
+        return true;
+    }
+    
+    /**
+     * Registers a listener for the changes made by every following move and reset.
+     * @param listener the listener
+     */
+    public void addMoveListener(MoveListener listener) {
+        MoveListener[] grown = Arrays.copyOf(listeners, listeners.length + 1);
+        grown[listeners.length] = listener;
+        listeners = grown;
+    }
+    
+    public void removeMoveListener(MoveListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                MoveListener[] shrunk = new MoveListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, shrunk, 0, i);
+                System.arraycopy(listeners, i + 1, shrunk, i, shrunk.length - i);
+                listeners = shrunk;
+                return;
+            }
+        }
+    }
+    
+    // Sends the cells the last undo or redo changed
+    private void fireJournal(int kind, int previousState) {
+        event.begin(kind, -1, previousState);
+        for (int i = 0; i < journal.getChangedCount(); i++) {
+            event.add(journal.getChangedCell(i));
+        }
+        fireMove();
+    }
+    
+    private void fireMove() {
+        event.finish(gameState, remainingSafeTiles);
+        for (MoveListener listener : listeners) {
+            listener.moveApplied(event);
+        }
+    }
+    
+    private void fireReset() {
+        for (MoveListener listener : listeners) {
+            listener.gameReset(this);
+        }
+    }
+    
+    /**
+     * Records every game from the next reset on, or stops recording.
+     * @param newRecorder where games are recorded, or null for none
+     */
+    public void setRecorder(ReplayRecorder newRecorder) {
+        recorder = newRecorder;
+    }
+    
+    public ReplayRecorder getRecorder() {
+        return recorder;
+    }
+    
+    //Gets the undo and redo history of the current game
+    public MoveJournal getJournal() {
+        return journal;
+    }
+    
+    //Replaces the move history with an empty one holding at most the given number of bytes
+    public void setJournalCapacity(int capacityBytes) {
+        journal = new MoveJournal(capacityBytes);
+    }
+    
+    //Resets game. Mines are placed on the first flip so the first click is always safe.
+    public void reset() {
+        reset(config);
+    }
+    
+    //Resets game with a new board configuration. In no-guess mode the seed comes from the
+    //generator's ready queue, so the reset does not wait for a search.
+    public void reset(BoardConfig newConfig) {
+        if (noGuess != null && noGuess.getConfig().equals(newConfig)) {
+            reset(newConfig, noGuess.take());
+        } else {
+            reset(newConfig, seeds.nextLong());
+        }
+    }
+    
+    /**
+     * Switches between random boards and boards that can be solved without guessing.
+     * The generator is used only while the game is on the generator's configuration, and takes
+     * effect from the next reset.
+     * @param generator the no-guess generator, or null for random boards
+     */
+    public void setNoGuess(NoGuessGenerator generator) {
+        noGuess = generator;
+    }
+    
+    //Checks whether the current configuration is generated without guesses
+    public boolean isNoGuess() {
+        return noGuess != null && noGuess.getConfig().equals(config);
+    }
+    
+    //Resets game with a new board configuration and a fixed game seed, e.g. to replay a game
+    public void reset(BoardConfig newConfig, long newGameSeed) {
+        config = newConfig;
+        gameSeed = newGameSeed;
+        prepareBoard();
+        minesPlaced = false;
+        remainingSafeTiles = config.getSafeTileCount();
+        fireReset();
+    }
+    
+  //Resets game
+    public void resetForTest() {
+        prepareBoard();
+        generateBombsforTest();
+        fireReset();
+    }
+    
+    private void prepareBoard() {
+        prepareEngine();
+        gameState = GameConstants.GAME_IN_PROGRESS;
+        journal.clear();
+        if (recorder != null) {
+            recorder.beginGame(config, gameSeed);
+        }
+        if (hints != null) {
+            hints.reset(board);
+        }
+    }
+    
+    //Reuses the engine when the dimensions have not changed, so a reset does not reallocate
+    private void prepareEngine() {
+        if (board == null || board.rows() != config.getRows() || board.cols() != config.getCols()) {
+            board = new BoardEngine(config.getRows(), config.getCols());
+        } else {
+            board.clear();
+        }
+    }
+    
+    /**
+     * Starts restoring a saved game: the board is cleared for the saved configuration and the
+     * history emptied. The caller fills in the planes and the journal, then calls finishRestore.
+     * A restored game is not recorded, as its replay could not start from an empty board.
+     * @return the cleared board
+     */
+    BoardEngine beginRestore(BoardConfig savedConfig, long savedGameSeed) {
+        config = savedConfig;
+        gameSeed = savedGameSeed;
+        prepareEngine();
+        journal.clear();
+        if (recorder != null) {
+            recorder.discardGame();
+        }
+        return board;
+    }
+    
+    //Sets the counters of a restored game and tells listeners about the new board
+    void finishRestore(boolean placed, int state, int safeTiles) {
+        minesPlaced = placed;
+        gameState = state;
+        remainingSafeTiles = safeTiles;
+        if (hints != null) {
+            hints.reset(board);
+        }
+        fireReset();
+    }
+    
+    //Generates the mines for the game right away, as many as the board configuration asks for.
+    public void generateBombs() {
+        long start = EngineMetrics.start();
+        layoutRandom.setSeed(gameSeed);
+        MineSampler.place(board, config.getMines(), layoutRandom);
+        EngineMetrics.recordGeneration(start, config);
+        minesPlaced = true;
+        remainingSafeTiles = board.cellCount() - board.mineCount();
+        recordLayout();
+    }
+    
+    //Generates the mines for the game, keeping the given cell and its neighbors mine-free.
+    public void generateBombs(int safeRow, int safeCol) {
+        placeMinesAvoiding(board.index(safeRow, safeCol));
+        recordLayout();
+    }
+    
+    //Places the mines the first flip of a game gets; a replay repeats them from the seed
+    private void placeMinesAvoiding(int safeCell) {
+        layoutRandom.setSeed(gameSeed);
+        MineSampler.placeAvoiding(board, config.getMines(), layoutRandom, safeCell, excluded);
+        minesPlaced = true;
+        remainingSafeTiles = board.cellCount() - board.mineCount();
+    }
+    
+    /**
+     * Places mines on exactly the given cells instead of drawing them, e.g. to replay a
+     * recorded layout. Mines already on the board stay.
+     * @param cells the mine cells
+     * @param count number of entries of cells to use
+     */
+    public void placeMines(int[] cells, int count) {
+        for (int i = 0; i < count; i++) {
+            board.placeMine(cells[i]);
+        }
+        minesPlaced = true;
+        remainingSafeTiles = board.cellCount() - board.mineCount();
+        recordLayout();
+    }
+    
+    private void recordFlip(int row, int col) {
+        if (recorder == null) {
+            return;
+        }
+        if (board.contains(row, col)) {
+            recorder.flip(board.index(row, col));
+        } else {
+            recorder.miss();
+        }
+    }
+    
+    // Mines placed other than by the first flip are not implied by the seed, so they are recorded
+    private void recordLayout() {
+        if (recorder != null) {
+            recorder.layout(board);
+        }
+    }
+    
+    //Generating bombs in a way that makes testing easy
+    public void generateBombsforTest() {
+        for (int col = 0; col < board.cols(); col++) {
+            board.placeMine(board.index(0, col));
+        }
+        minesPlaced = true;
+        remainingSafeTiles = board.cellCount() - board.mineCount();
+        recordLayout();
+    }
+    
+    //Gets a tile given positions
+    public Tile getTile(int x, int y) {
+        return new Tile(board, x, y);
+    }
+    
+    //Gets the result of the game currently
+    public int gameResult() {
+        return gameState;
+    }
+    
+    //Prints the board with all values shown
+    public void printBoard() {
+
+        for (int row = 0; row < board.rows(); row++) {
+            for (int col = 0; col < board.cols(); col++) {
+                int cell = board.index(row, col);
+                System.out.print(" " + (board.isMine(cell) ? -1 : board.adjacentMines(cell)));
+            }
+            System.out.println();
+        }
+    }
+    
+    //returns the number of remaining safe tiles
+    public int getSafeTiles() {
+        return remainingSafeTiles;
+    }
+    
+    //Prints the outcome of the game
+    public void gameOutcome() {
+        String s = String.valueOf(gameState);
+        System.out.println(s);
+    }
+    
+    //Prints the number of safeTiles remaining
+    public void safeTileSize() {
+        System.out.print(" " + remainingSafeTiles);
+    }
+    
+    //Builds a grid of tile views over the engine. Allocates one view per cell, so prefer
+    //getEngine() for anything larger than a display-sized board.
+    public Tile[][] getBoard() {
+        Tile[][] tiles = new Tile[board.rows()][board.cols()];
+        for (int row = 0; row < board.rows(); row++) {
+            for (int col = 0; col < board.cols(); col++) {
+                tiles[row][col] = new Tile(board, row, col);
+            }
+        }
+        return tiles;
+    }
+    
+    //Gets the seed the mines of the current game are drawn from
+    public long getGameSeed() {
+        return gameSeed;
+    }
+    
+    //Checks whether the mines have been placed yet; they are placed on the first flip
+    public boolean areMinesPlaced() {
+        return minesPlaced;
+    }
+    
+    //Gets the board configuration of the current game
+    public BoardConfig getConfig() {
+        return config;
+    }
+    
+    //Gets the primitive board engine backing this game
+    public BoardEngine getEngine() {
+        return board;
+    }
+    
+    //Main method
+    public static void main(String[] args) {
+        Minesweeper t = new Minesweeper();
+        t.flip(7, 0);
+        t.printBoard();
+        t.flip(7, 1);
+        t.flip(7, 2);
+        t.flip(7, 3);
+        t.flip(7, 4);
+        t.flip(7, 5);
+        t.flip(7, 6);
+        t.gameOutcome();
+        t.flip(7, 7);
+        t.gameOutcome();
+
+    }
+}
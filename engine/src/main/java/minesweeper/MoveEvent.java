@@ -0,0 +1,114 @@
+package minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * One batch of changes made by a Minesweeper move: the cells it revealed, hid or flagged,
+ * and the game state before and after it.
+ * A game keeps a single event and refills it for every move, so notifying listeners costs
+ * time proportional to the change and, once the cell buffer has grown, no allocation.
+ */
+public final class MoveEvent {
+
+    // Kinds of move
+    public static final int FLIP = 0;
+    public static final int UNDO = 1;
+    public static final int REDO = 2;
+    public static final int FLAG = 3;
+    public static final int CHORD = 4;
+    public static final int BATCH = 5;
+
+    private int kind;
+    private int moveCell;
+    private int[] cells = new int[64];
+    private int count;
+    private int previousState;
+    private int state;
+    private int safeTiles;
+
+    MoveEvent() {
+    }
+
+    // Starts a new batch, dropping the cells of the previous one
+    void begin(int newKind, int newMoveCell, int newPreviousState) {
+        kind = newKind;
+        moveCell = newMoveCell;
+        previousState = newPreviousState;
+        count = 0;
+    }
+
+    void add(int cell) {
+        if (count == cells.length) {
+            cells = Arrays.copyOf(cells, Math.min(BoardEngine.MAX_CELLS, count << 1));
+        }
+        cells[count++] = cell;
+    }
+
+    void finish(int newState, int newSafeTiles) {
+        state = newState;
+        safeTiles = newSafeTiles;
+    }
+
+    //Gets the kind of move, FLIP, UNDO, REDO, FLAG, CHORD or BATCH
+    public int getKind() {
+        return kind;
+    }
+
+    //Gets the cell the player flipped, flagged or chorded, the first cell of a batch, or -1
+    //for an undo or redo
+    public int getMoveCell() {
+        return moveCell;
+    }
+
+    //Checks whether the changed cells were revealed, rather than hidden again or (un)flagged
+    public boolean isReveal() {
+        return kind != UNDO && kind != FLAG;
+    }
+
+    public int getCellCount() {
+        return count;
+    }
+
+    /**
+     * Returns the index of the k-th changed cell, in the order the move changed them.
+     * @param k position in the batch, 0 to getCellCount() - 1
+     */
+    public int getCell(int k) {
+        if (k < 0 || k >= count) {
+            throw new IndexOutOfBoundsException("No changed cell at " + k);
+        }
+        return cells[k];
+    }
+
+    /**
+     * Copies the changed cells into a new array.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(cells, count);
+    }
+
+    // The backing buffer, valid up to getCellCount(), for readers in this package
+    int[] cells() {
+        return cells;
+    }
+
+    //Gets the game state before the move, a GameConstants game result
+    public int getPreviousState() {
+        return previousState;
+    }
+
+    //Gets the game state after the move, a GameConstants game result
+    public int getState() {
+        return state;
+    }
+
+    //Checks whether the move won, lost or reopened the game
+    public boolean isStateChanged() {
+        return state != previousState;
+    }
+
+    //Gets the number of safe tiles left to reveal after the move
+    public int getSafeTiles() {
+        return safeTiles;
+    }
+}
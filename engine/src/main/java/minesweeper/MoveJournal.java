@@ -0,0 +1,410 @@
+package minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * Undo and redo history of the moves of one game, one entry per player action.
+ *
+ * An entry holds the clicked cell and every cell the move revealed, cascade included. The
+ * revealed cells are sorted and stored as varint-encoded gaps in one byte array, so a typical
+ * cascade over neighboring cells costs about a byte per cell. Undo hides the cells of the
+ * latest entry and redo reveals them again, each in time proportional to the number of cells
+ * in the entry. Recording a new move discards the entries that were undone.
+ *
+ * The journal holds at most its capacity in bytes. When a new entry does not fit, the oldest
+ * entries are dropped and can no longer be undone; an entry larger than the whole capacity
+ * empties the journal.
+ */
+public final class MoveJournal {
+
+    private static final int INITIAL_BYTES = 256;
+    private static final int INITIAL_ENTRIES = 16;
+    // Moves up to this many cells are insertion sorted, larger ones radix sorted
+    private static final int INSERTION_SORT_CELLS = 32;
+    private static final int RADIX_BITS = 11;
+
+    private final int capacity;
+    private byte[] data = new byte[INITIAL_BYTES];
+    // Byte offset of entry i at index i - base, followed by the end of the last entry
+    private int[] starts = new int[INITIAL_ENTRIES + 1];
+    private int base;
+    private int first;
+    private int applied;
+    private int recorded;
+
+    private int[] changed = new int[INITIAL_ENTRIES];
+    private int changedCount;
+    private int[] unflagged = new int[INITIAL_ENTRIES];
+    private int unflaggedCount;
+    private final int[] varint = new int[1];
+    private int[] sortBuffer = new int[INITIAL_ENTRIES];
+    private final int[] digitCounts = new int[1 << RADIX_BITS];
+
+    /**
+     * Creates an empty journal.
+     * @param capacityBytes the most bytes the encoded entries may take
+     */
+    public MoveJournal(int capacityBytes) {
+        if (capacityBytes <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacityBytes);
+        }
+        this.capacity = capacityBytes;
+    }
+
+    /**
+     * Records a move and forgets the moves that had been undone.
+     * @param clicked the cell the player picked
+     * @param revealed the cells the move revealed
+     */
+    public void record(int clicked, FloodReveal revealed) {
+        int count = revealed.size();
+        ensureChanged(count);
+        for (int i = 0; i < count; i++) {
+            changed[i] = revealed.cell(i);
+        }
+        record(clicked, changed, count);
+    }
+
+    /**
+     * Records a move and forgets the moves that had been undone.
+     * @param clicked the cell the player picked
+     * @param cells the cells the move revealed; the first count entries are sorted in place
+     * @param count number of entries of cells to use
+     */
+    public void record(int clicked, int[] cells, int count) {
+        recorded = applied;
+        sort(cells, count);
+        // Clicked cell, count, then the gaps between sorted cells: 5 bytes each at most
+        long worst = 10L + 5L * count;
+        if (worst > capacity && encodedSize(clicked, cells, count) > capacity) {
+            clear();
+            return;
+        }
+        int end = start(recorded);
+        while (recorded > first && end - start(first) + worst > capacity
+                && end - start(first) + encodedSize(clicked, cells, count) > capacity) {
+            // Dropped entries stay in the arrays until the next compaction
+            first++;
+            applied = Math.max(applied, first);
+        }
+        if (end + worst > data.length || recorded - base + 2 > starts.length) {
+            compact();
+            end = start(recorded);
+            // Kept at most half full after compacting, so compactions stay amortized O(1)
+            if (2 * (end + worst) > data.length) {
+                data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max(data.length * 2L, 2 * (end + worst))));
+            }
+            if (2 * (recorded - base + 2) > starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+        }
+        int pos = writeVarint(data, end, clicked);
+        pos = writeVarint(data, pos, count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            pos = writeVarint(data, pos, cells[i] - previous);
+            previous = cells[i];
+        }
+        recorded++;
+        applied = recorded;
+        starts[recorded - base] = pos;
+    }
+
+    /**
+     * Hides the cells of the latest applied move. They are then available from
+     * getChangedCount() and getChangedCell().
+     * @param board the board the move was made on
+     * @return false if there is no move to undo
+     */
+    public boolean undo(BoardEngine board) {
+        if (applied == first) {
+            return false;
+        }
+        applied--;
+        decode(applied);
+        unflaggedCount = 0;
+        for (int i = 0; i < changedCount; i++) {
+            board.hide(changed[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Reveals again the cells of the move undone last. They are then available from
+     * getChangedCount() and getChangedCell().
+     * Cells flagged since the move was undone lose their flag, as a revealed cell cannot keep
+     * one; they are available from getUnflaggedCount() and getUnflaggedCell().
+     * @param board the board the move was made on
+     * @return false if there is no move to redo
+     */
+    public boolean redo(BoardEngine board) {
+        if (applied == recorded) {
+            return false;
+        }
+        decode(applied);
+        applied++;
+        unflaggedCount = 0;
+        for (int i = 0; i < changedCount; i++) {
+            int cell = changed[i];
+            if (board.isFlagged(cell)) {
+                board.setFlagged(cell, false);
+                if (unflaggedCount == unflagged.length) {
+                    unflagged = Arrays.copyOf(unflagged, unflaggedCount << 1);
+                }
+                unflagged[unflaggedCount++] = cell;
+            }
+            board.reveal(cell);
+        }
+        return true;
+    }
+
+    //Forgets every move
+    public void clear() {
+        base = 0;
+        first = 0;
+        applied = 0;
+        recorded = 0;
+        starts[0] = 0;
+        changedCount = 0;
+    }
+
+    /**
+     * Returns the cell the player picked in the latest applied move.
+     * @return the cell index, or -1 if there is no move to undo
+     */
+    public int getLastMoveCell() {
+        if (applied == first) {
+            return -1;
+        }
+        readVarint(data, start(applied - 1), varint);
+        return varint[0];
+    }
+
+    //Gets the number of cells changed by the last undo or redo
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    //Gets the k-th cell changed by the last undo or redo, in increasing order
+    public int getChangedCell(int k) {
+        if (k < 0 || k >= changedCount) {
+            throw new IndexOutOfBoundsException("No changed cell at " + k);
+        }
+        return changed[k];
+    }
+
+    //Gets the number of flags the last redo removed from the cells it revealed
+    public int getUnflaggedCount() {
+        return unflaggedCount;
+    }
+
+    //Gets the k-th cell whose flag the last redo removed, in increasing order
+    public int getUnflaggedCell(int k) {
+        if (k < 0 || k >= unflaggedCount) {
+            throw new IndexOutOfBoundsException("No unflagged cell at " + k);
+        }
+        return unflagged[k];
+    }
+
+    //Gets the number of moves that can be undone
+    public int getUndoCount() {
+        return applied - first;
+    }
+
+    //Gets the number of moves that can be redone
+    public int getRedoCount() {
+        return recorded - applied;
+    }
+
+    //Gets the number of bytes the kept entries take
+    public int getBytes() {
+        return start(recorded) - start(first);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // The encoded entries, undone ones included, start at entryOffset() for getBytes() bytes
+    byte[] entryData() {
+        return data;
+    }
+
+    int entryOffset() {
+        return start(first);
+    }
+
+    /**
+     * Replaces the history with entries saved from entryData(), e.g. from a snapshot.
+     * @param in the encoded entries, oldest first
+     * @param offset where the entries start in in
+     * @param length number of bytes of entries
+     * @param undoCount how many of the entries are applied; the rest can be redone
+     * @return false, leaving the journal empty, if the bytes do not hold whole entries or
+     *         do not fit the capacity
+     */
+    boolean restore(byte[] in, int offset, int length, int undoCount) {
+        clear();
+        if (length > capacity || undoCount < 0) {
+            return false;
+        }
+        // Zeros after the entries end a truncated varint instead of reading past the array
+        if (data.length < length + 5) {
+            data = new byte[Math.max(length + 5, INITIAL_BYTES)];
+        }
+        System.arraycopy(in, offset, data, 0, length);
+        Arrays.fill(data, length, length + 5, (byte) 0);
+        int pos = 0;
+        int entries = 0;
+        while (pos < length) {
+            pos = readVarint(data, pos, varint);
+            pos = readVarint(data, pos, varint);
+            for (int count = varint[0]; count > 0 && pos < length; count--) {
+                pos = readVarint(data, pos, varint);
+            }
+            if (entries + 2 > starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[++entries] = pos;
+        }
+        if (pos != length || undoCount > entries) {
+            clear();
+            return false;
+        }
+        recorded = entries;
+        applied = undoCount;
+        return true;
+    }
+
+    private int start(int entry) {
+        return starts[entry - base];
+    }
+
+    // Reads entry index into the changed buffer
+    private void decode(int index) {
+        int pos = readVarint(data, start(index), varint);
+        pos = readVarint(data, pos, varint);
+        int count = varint[0];
+        ensureChanged(count);
+        int cell = 0;
+        for (int i = 0; i < count; i++) {
+            pos = readVarint(data, pos, varint);
+            cell += varint[0];
+            changed[i] = cell;
+        }
+        changedCount = count;
+    }
+
+    // Moves the kept entries to the front of the arrays, discarding dropped ones
+    private void compact() {
+        int offset = start(first);
+        int entries = recorded - first;
+        System.arraycopy(data, offset, data, 0, start(recorded) - offset);
+        System.arraycopy(starts, first - base, starts, 0, entries + 1);
+        for (int i = 0; i <= entries; i++) {
+            starts[i] -= offset;
+        }
+        base = first;
+    }
+
+    /**
+     * Sorts the first count cells in place. Arrays.sort allocates run buffers for the partly
+     * ordered runs a cascade produces, so moves are sorted here with buffers the journal keeps:
+     * insertion sort for short moves, and an LSD radix sort over as many 11-bit digits as the
+     * largest cell needs for cascades.
+     */
+    private void sort(int[] cells, int count) {
+        if (count <= INSERTION_SORT_CELLS) {
+            for (int i = 1; i < count; i++) {
+                int cell = cells[i];
+                int j = i - 1;
+                while (j >= 0 && cells[j] > cell) {
+                    cells[j + 1] = cells[j];
+                    j--;
+                }
+                cells[j + 1] = cell;
+            }
+            return;
+        }
+        int max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, cells[i]);
+        }
+        if (sortBuffer.length < count) {
+            sortBuffer = new int[Math.max(count, sortBuffer.length * 2)];
+        }
+        int[] from = cells;
+        int[] to = sortBuffer;
+        int mask = (1 << RADIX_BITS) - 1;
+        for (int shift = 0; shift == 0 || (max >>> shift) != 0; shift += RADIX_BITS) {
+            Arrays.fill(digitCounts, 0);
+            for (int i = 0; i < count; i++) {
+                digitCounts[(from[i] >>> shift) & mask]++;
+            }
+            int start = 0;
+            for (int digit = 0; digit <= mask; digit++) {
+                int c = digitCounts[digit];
+                digitCounts[digit] = start;
+                start += c;
+            }
+            for (int i = 0; i < count; i++) {
+                to[digitCounts[(from[i] >>> shift) & mask]++] = from[i];
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != cells) {
+            System.arraycopy(from, 0, cells, 0, count);
+        }
+    }
+
+    private void ensureChanged(int count) {
+        if (changed.length < count) {
+            changed = new int[Math.max(count, changed.length * 2)];
+        }
+    }
+
+    private static int encodedSize(int clicked, int[] cells, int count) {
+        int size = varintSize(clicked) + varintSize(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            size += varintSize(cells[i] - previous);
+            previous = cells[i];
+        }
+        return size;
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    // Writes a non-negative int seven bits at a time, low bits first
+    static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    static int readVarint(byte[] in, int pos, int[] value) {
+        int result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in[pos++];
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        value[0] = result;
+        return pos;
+    }
+}
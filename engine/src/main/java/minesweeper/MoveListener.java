@@ -0,0 +1,22 @@
+package minesweeper;
+
+/**
+ * Receives the changes a Minesweeper makes, one batch per move, so views and other
+ * consumers can update incrementally instead of rescanning the board.
+ * Listeners are called on the thread that made the move, after the model is up to date.
+ */
+public interface MoveListener {
+
+    /**
+     * Called once per successful flip, flag, chord, batch, undo or redo.
+     * The event is reused by the next move, so copy what must outlive the call.
+     * @param event the cells the move changed and the game state before and after it
+     */
+    void moveApplied(MoveEvent event);
+
+    /**
+     * Called when a new game starts, after the board has been cleared or replaced.
+     * @param game the game that was reset
+     */
+    void gameReset(Minesweeper game);
+}
@@ -0,0 +1,20 @@
+package minesweeper;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chooses moves for a headless game.
+ * Strategies are shared between simulator threads, so implementations must be stateless and
+ * take any randomness from the generator they are given. A strategy should only look at cells
+ * the player can see: revealed cells and their counts.
+ */
+public interface MoveStrategy {
+
+    /**
+     * Picks the next cell to flip.
+     * @param game the game in progress
+     * @param random per-game source of randomness
+     * @return the cell index to flip, or -1 to give up the game
+     */
+    int nextMove(Minesweeper game, SplittableRandom random);
+}
@@ -0,0 +1,329 @@
+package minesweeper;
+
+import java.io.Closeable;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator of boards that can be solved from the first click without guessing.
+ * A board is identified by its game seed: Minesweeper places the mines of a game from its seed
+ * and first click, so a seed verified for a start cell always produces the same solvable
+ * board. Candidate seeds are verified by playing the board with the HintEngine rules (single
+ * cell and subset) until it is cleared or the rules run out, so the hint button can always
+ * finish a generated game.
+ *
+ * One search runs a worker per pool thread. The first worker to verify a seed wins and the
+ * others stop at their next candidate. A small queue of seeds verified for the center cell,
+ * the cell Minesweeper.hint() suggests before the first flip, is refilled in the background so
+ * that take() usually returns at once.
+ *
+ * Some boards are rarely or never solvable without guessing, such as dense custom boards.
+ * A search therefore stops after a time budget, GameConstants.NO_GUESS_SEARCH_MS unless
+ * given, and generate() then returns an ordinary random seed. Only verified seeds are queued,
+ * so a background refill that runs out of time stops until the next take().
+ */
+public final class NoGuessGenerator implements Closeable {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private final BoardConfig config;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int startCell;
+    private final ArrayBlockingQueue<Long> ready;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final SplittableRandom seeds = new SplittableRandom();
+    private final ThreadLocal<Verifier> verifiers;
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong boards = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Creates a generator with its own pool of one thread per core.
+     * @param config the board every generated game is played on
+     */
+    public NoGuessGenerator(BoardConfig config) {
+        this(config, new ForkJoinPool(Runtime.getRuntime().availableProcessors()), true,
+                DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a generator.
+     * @param config the board every generated game is played on
+     * @param pool the pool searches run on; not shut down by close()
+     * @param capacity number of verified seeds kept ready for take()
+     */
+    public NoGuessGenerator(BoardConfig config, ForkJoinPool pool, int capacity) {
+        this(config, pool, false, capacity);
+    }
+
+    private NoGuessGenerator(final BoardConfig config, ForkJoinPool pool, boolean ownsPool,
+            int capacity) {
+        this.config = config;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.startCell = (config.getRows() / 2) * config.getCols() + config.getCols() / 2;
+        this.ready = new ArrayBlockingQueue<Long>(Math.max(1, capacity));
+        this.verifiers = new ThreadLocal<Verifier>() {
+            @Override
+            protected Verifier initialValue() {
+                return new Verifier(config);
+            }
+        };
+    }
+
+    /**
+     * Returns a game seed verified for the start cell, taking it from the ready queue when
+     * possible and searching for one otherwise. Either way the queue is topped up in the
+     * background.
+     * @return a game seed whose board is solvable from getStartCell()
+     */
+    public long take() {
+        Long seed = ready.poll();
+        refill();
+        return seed != null ? seed : generate(startCell);
+    }
+
+    /**
+     * Searches in parallel for a game seed whose board is solvable from the given cell, for at
+     * most GameConstants.NO_GUESS_SEARCH_MS.
+     * @param firstCell index of the first cell the player flips
+     * @return the first seed any worker verified, or a random seed if none was in time
+     */
+    public long generate(int firstCell) {
+        return generate(firstCell, TimeUnit.MILLISECONDS.toNanos(GameConstants.NO_GUESS_SEARCH_MS));
+    }
+
+    /**
+     * Searches in parallel for a game seed whose board is solvable from the given cell.
+     * @param firstCell index of the first cell the player flips
+     * @param budgetNanos how long to search before giving up
+     * @return the first seed any worker verified, or a random seed, whose board may need a
+     *         guess, if none was verified within the budget
+     */
+    public long generate(int firstCell, long budgetNanos) {
+        Search search = search(firstCell, budgetNanos);
+        if (search.done.get()) {
+            return search.found.get();
+        }
+        if (closed) {
+            throw new IllegalStateException("Generator was closed during the search");
+        }
+        fallbacks.incrementAndGet();
+        synchronized (seeds) {
+            return seeds.nextLong();
+        }
+    }
+
+    // Runs one search; it found a seed if done is set
+    private Search search(int firstCell, long budgetNanos) {
+        long seed;
+        synchronized (seeds) {
+            seed = seeds.nextLong();
+        }
+        Search search = new Search(firstCell, seed, System.nanoTime() + budgetNanos);
+        if (ForkJoinTask.inForkJoinPool()) {
+            search.invoke();
+        } else {
+            pool.invoke(search);
+        }
+        return search;
+    }
+
+    /**
+     * Checks whether a board can be solved from a first click without guessing.
+     * @param gameSeed the seed the mines are placed from
+     * @param firstCell index of the first cell the player flips
+     */
+    public boolean isSolvable(long gameSeed, int firstCell) {
+        return verifiers.get().solvable(gameSeed, firstCell);
+    }
+
+    // Starts a background task that fills the ready queue, unless one is already running
+    private void refill() {
+        if (closed || ready.remainingCapacity() == 0 || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        pool.execute(new Runnable() {
+            public void run() {
+                try {
+                    long budget = TimeUnit.MILLISECONDS.toNanos(GameConstants.NO_GUESS_SEARCH_MS);
+                    while (!closed && ready.remainingCapacity() > 0) {
+                        Search search = search(startCell, budget);
+                        if (!search.done.get()) {
+                            // Out of time; the next take() falls back and tries again
+                            break;
+                        }
+                        ready.offer(search.found.get());
+                    }
+                } finally {
+                    refilling.set(false);
+                }
+            }
+        });
+    }
+
+    //Fills the ready queue in the background, e.g. before the first game
+    public void prefill() {
+        refill();
+    }
+
+    //Gets the cell the queued seeds are verified for: the center of the board
+    public int getStartCell() {
+        return startCell;
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    //Gets the number of verified seeds waiting in the ready queue
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    //Gets the number of candidate boards checked so far
+    public long getCandidates() {
+        return candidates.get();
+    }
+
+    //Gets the number of boards that passed verification so far
+    public long getBoards() {
+        return boards.get();
+    }
+
+    //Gets the number of times generate() ran out of time and returned an unverified seed
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    //Stops refilling the ready queue and shuts down the pool if the generator created it
+    public void close() {
+        closed = true;
+        ready.clear();
+        if (ownsPool) {
+            pool.shutdownNow();
+        }
+    }
+
+    // SplitMix64 finalizer, so workers draw from unrelated parts of the seed space
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Forks one worker per pool thread; they share the result slot and stop once it is set or
+    // the deadline passes
+    @SuppressWarnings("serial")
+    private final class Search extends RecursiveAction {
+        private final int firstCell;
+        private final long seed;
+        private final long deadline; // System.nanoTime() to give up at
+        final AtomicLong found = new AtomicLong();
+        final AtomicBoolean done = new AtomicBoolean();
+
+        Search(int firstCell, long seed, long deadline) {
+            this.firstCell = firstCell;
+            this.seed = seed;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void compute() {
+            int workers = Math.max(1, getPool().getParallelism());
+            Worker[] tasks = new Worker[workers];
+            for (int i = 0; i < workers; i++) {
+                tasks[i] = new Worker(this, new SplittableRandom(mix(seed + i)));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class Worker extends RecursiveAction {
+        private final Search search;
+        private final SplittableRandom random;
+
+        Worker(Search search, SplittableRandom random) {
+            this.search = search;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            Verifier verifier = verifiers.get();
+            while (!search.done.get() && !closed && System.nanoTime() - search.deadline < 0) {
+                long candidate = random.nextLong();
+                candidates.incrementAndGet();
+                if (verifier.solvable(candidate, search.firstCell)
+                        && search.done.compareAndSet(false, true)) {
+                    search.found.set(candidate);
+                    boards.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // Plays one candidate board on storage reused by the thread
+    private static final class Verifier {
+        private final BoardConfig config;
+        private final BoardEngine board;
+        private final FloodReveal flood = new FloodReveal();
+        private final HintEngine hints;
+
+        Verifier(BoardConfig config) {
+            this.config = config;
+            this.board = new BoardEngine(config.getRows(), config.getCols());
+            this.hints = new HintEngine(board);
+        }
+
+        boolean solvable(long gameSeed, int firstCell) {
+            board.clear();
+            MineSampler.placeAvoiding(board, config.getMines(), new SplittableRandom(gameSeed),
+                    firstCell);
+            int remaining = board.cellCount() - board.mineCount() - flood.reveal(board, firstCell);
+            hints.reset(board);
+            for (int cell = hints.nextSafeCell(); cell >= 0 && remaining > 0;
+                    cell = hints.nextSafeCell()) {
+                remaining -= flood.reveal(board, cell);
+                hints.onReveal(flood);
+            }
+            return remaining == 0;
+        }
+    }
+
+    /**
+     * Reports generation throughput for each preset.
+     * Usage: java NoGuessGenerator [boards per preset]
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        BoardConfig[] presets = {BoardConfig.BEGINNER, BoardConfig.INTERMEDIATE, BoardConfig.EXPERT};
+        for (BoardConfig preset : presets) {
+            NoGuessGenerator generator = new NoGuessGenerator(preset);
+            // Warm-up so the timed run measures compiled code
+            for (int i = 0; i < count / 10 + 1; i++) {
+                generator.generate(generator.getStartCell());
+            }
+            long candidatesBefore = generator.getCandidates();
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                generator.generate(generator.getStartCell());
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long tried = generator.getCandidates() - candidatesBefore;
+            System.out.printf("%s on %d threads: %.1f boards/s, %.1f%% of candidates solvable%n",
+                    preset, generator.pool.getParallelism(), count / seconds,
+                    100.0 * count / tried);
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,673 @@
+package minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Exact mine-probability calculator.
+ * The frontier is split into independent components: groups of hidden cells linked through
+ * the revealed numbers they share. Every component's solutions are enumerated on a
+ * ForkJoinPool, with large components further split on their first cells, and counted by the
+ * number of mines they use. The counts are then combined with the cells off the frontier,
+ * weighting each total by the binomial number of ways to place the remaining mines there.
+ *
+ * Component results are memoized by their exact constraints. A move usually changes only one
+ * component, so the others are reused on the next calculation. Only components seen in the
+ * latest calculation are kept.
+ *
+ * Calculations run against a snapshot taken on the calling thread, so the game may keep
+ * changing while they run. Every calculation has a time budget, and asynchronous ones can be
+ * cancelled through their future.
+ */
+public final class ProbabilityCalculator {
+
+    // Nodes visited between checks of the deadline and the cancellation flag
+    private static final int CHECK_INTERVAL = 1024;
+
+    // Components with at least this many cells are split across several tasks
+    private static final int SPLIT_THRESHOLD = 16;
+
+    private final ForkJoinPool pool;
+    private Map<ComponentKey, ComponentResult> cache = new HashMap<ComponentKey, ComponentResult>();
+
+    public ProbabilityCalculator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ProbabilityCalculator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Calculates the probabilities for the current position and waits for the result.
+     * @param game the game, read only on the calling thread
+     * @param budgetMillis time budget for the whole calculation
+     * @return the probabilities
+     * @throws TimeoutException if the budget ran out first
+     */
+    public MineProbabilities calculate(Minesweeper game, long budgetMillis)
+            throws TimeoutException {
+        Job job = new Job(System.nanoTime() + budgetMillis * 1_000_000L, null);
+        return solve(Snapshot.of(game), job);
+    }
+
+    // Calculates for a bare board holding totalMines mines in all
+    MineProbabilities calculate(BoardEngine board, int totalMines, long budgetMillis)
+            throws TimeoutException {
+        Job job = new Job(System.nanoTime() + budgetMillis * 1_000_000L, null);
+        return solve(Snapshot.of(board, totalMines), job);
+    }
+
+    /**
+     * Starts a calculation in the background. The snapshot of the position is taken before
+     * this method returns. The future fails with a TimeoutException when the budget runs
+     * out. Cancelling the future stops the enumeration at its next check.
+     * @param game the game, read only on the calling thread
+     * @param budgetMillis time budget for the whole calculation
+     * @return the future result
+     */
+    public CompletableFuture<MineProbabilities> calculateAsync(Minesweeper game,
+            long budgetMillis) {
+        final Snapshot snapshot = Snapshot.of(game);
+        final CompletableFuture<MineProbabilities> future =
+                new CompletableFuture<MineProbabilities>();
+        final Job job = new Job(System.nanoTime() + budgetMillis * 1_000_000L, future);
+        pool.execute(new Runnable() {
+            public void run() {
+                try {
+                    future.complete(solve(snapshot, job));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }
+        });
+        return future;
+    }
+
+    private MineProbabilities solve(Snapshot snapshot, Job job) throws TimeoutException {
+        List<Component> components = snapshot.components;
+        ComponentResult[] results = new ComponentResult[components.size()];
+        List<ForkJoinTask<ComponentResult>> pending = new ArrayList<ForkJoinTask<ComponentResult>>();
+        List<Integer> pendingIndex = new ArrayList<Integer>();
+        synchronized (this) {
+            for (int i = 0; i < components.size(); i++) {
+                results[i] = cache.get(components.get(i).key);
+            }
+        }
+        for (int i = 0; i < components.size(); i++) {
+            if (results[i] == null) {
+                pending.add(new ComponentTask(components.get(i), job, 0, new byte[0]));
+                pendingIndex.add(i);
+            }
+        }
+        try {
+            if (ForkJoinTask.inForkJoinPool()) {
+                ForkJoinTask.invokeAll(pending);
+            } else {
+                for (ForkJoinTask<ComponentResult> task : pending) {
+                    pool.execute(task);
+                }
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                results[pendingIndex.get(i)] = pending.get(i).join();
+            }
+        } catch (StopException e) {
+            for (ForkJoinTask<ComponentResult> task : pending) {
+                task.cancel(false);
+            }
+            if (job.isCancelled()) {
+                throw new CancellationException("Probability calculation cancelled");
+            }
+            throw new TimeoutException("Probability calculation ran out of time");
+        }
+        Map<ComponentKey, ComponentResult> used = new HashMap<ComponentKey, ComponentResult>();
+        for (int i = 0; i < components.size(); i++) {
+            used.put(components.get(i).key, results[i]);
+        }
+        synchronized (this) {
+            cache = used;
+        }
+        return combine(snapshot, results);
+    }
+
+    // Weighs every component's mine counts against the ways to fill the interior
+    private static MineProbabilities combine(Snapshot snapshot, ComponentResult[] results) {
+        int n = results.length;
+        double[][] ways = new double[n][];
+        for (int i = 0; i < n; i++) {
+            ways[i] = normalized(results[i].ways);
+        }
+        // prefix[i] combines components before i, suffix[i] those from i on
+        double[][] prefix = new double[n + 1][];
+        double[][] suffix = new double[n + 1][];
+        prefix[0] = new double[] {1};
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = normalized(convolve(prefix[i], ways[i]));
+        }
+        suffix[n] = new double[] {1};
+        for (int i = n - 1; i >= 0; i--) {
+            suffix[i] = normalized(convolve(ways[i], suffix[i + 1]));
+        }
+        double[] weight = interiorWeights(snapshot.interiorCount, snapshot.mines,
+                prefix[n].length - 1);
+
+        double total = 0;
+        double interiorMines = 0;
+        for (int s = 0; s < prefix[n].length; s++) {
+            total += prefix[n][s] * weight[s];
+            interiorMines += prefix[n][s] * weight[s] * (snapshot.mines - s);
+        }
+        if (total == 0) {
+            throw new IllegalStateException("Position has no consistent mine layout");
+        }
+        double interiorProbability = snapshot.interiorCount == 0
+                ? 0 : interiorMines / total / snapshot.interiorCount;
+
+        int[] cells = snapshot.frontierCells;
+        double[] probabilities = new double[cells.length];
+        for (int i = 0; i < n; i++) {
+            double[] others = convolve(prefix[i], suffix[i + 1]);
+            // g[k]: weight of all layouts in which component i holds k mines
+            double[] g = new double[ways[i].length];
+            double componentTotal = 0;
+            for (int k = 0; k < g.length; k++) {
+                for (int t = 0; t < others.length; t++) {
+                    g[k] += others[t] * weight[k + t];
+                }
+                componentTotal += ways[i][k] * g[k];
+            }
+            ComponentResult result = results[i];
+            double scale = max(result.ways);
+            int[] varCells = snapshot.components.get(i).varCells;
+            for (int v = 0; v < varCells.length; v++) {
+                double mine = 0;
+                for (int k = 0; k < g.length; k++) {
+                    mine += result.mineWays[v][k] / scale * g[k];
+                }
+                probabilities[Arrays.binarySearch(cells, varCells[v])] =
+                        componentTotal == 0 ? 0 : mine / componentTotal;
+            }
+        }
+        return new MineProbabilities(cells, probabilities, interiorProbability,
+                snapshot.interiorCell, snapshot.interiorCount);
+    }
+
+    // Relative binomial weights C(interior, mines - s) for s frontier mines, s = 0..maxFrontier
+    private static double[] interiorWeights(int interior, int mines, int maxFrontier) {
+        double[] log = new double[maxFrontier + 1];
+        double best = Double.NEGATIVE_INFINITY;
+        // Walk m = mines - s downward from its largest valid value using C(U, m-1)/C(U, m)
+        for (int s = 0; s <= maxFrontier; s++) {
+            int m = mines - s;
+            if (m < 0 || m > interior) {
+                log[s] = Double.NEGATIVE_INFINITY;
+            } else if (s > 0 && log[s - 1] != Double.NEGATIVE_INFINITY) {
+                log[s] = log[s - 1] + Math.log((double) (m + 1) / (interior - m));
+            } else {
+                log[s] = 0;
+            }
+            best = Math.max(best, log[s]);
+        }
+        double[] weight = new double[maxFrontier + 1];
+        for (int s = 0; s <= maxFrontier; s++) {
+            weight[s] = best == Double.NEGATIVE_INFINITY ? 0 : Math.exp(log[s] - best);
+        }
+        return weight;
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] out = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                out[i + j] += a[i] * b[j];
+            }
+        }
+        return out;
+    }
+
+    // Scales so the largest entry is 1; the factor cancels between numerator and total
+    private static double[] normalized(double[] values) {
+        double scale = max(values);
+        double[] out = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            out[i] = scale == 0 ? 0 : values[i] / scale;
+        }
+        return out;
+    }
+
+    private static double max(double[] values) {
+        double best = 0;
+        for (double value : values) {
+            best = Math.max(best, value);
+        }
+        return best;
+    }
+
+    // Deadline and cancellation shared by every task of one calculation
+    private static final class Job {
+        private final long deadline;
+        private final CompletableFuture<?> future;
+
+        Job(long deadline, CompletableFuture<?> future) {
+            this.deadline = deadline;
+            this.future = future;
+        }
+
+        boolean isCancelled() {
+            return future != null && future.isCancelled();
+        }
+
+        void check() {
+            if (isCancelled() || System.nanoTime() > deadline) {
+                throw StopException.INSTANCE;
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class StopException extends RuntimeException {
+        static final StopException INSTANCE = new StopException();
+
+        private StopException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Constraints of the position, copied off the live board
+    private static final class Snapshot {
+        int mines;
+        int interiorCount;
+        int interiorCell = -1;
+        int[] frontierCells;
+        List<Component> components = new ArrayList<Component>();
+
+        static Snapshot of(Minesweeper game) {
+            // Before the first flip no mine is placed, so wherever it lands is safe
+            return of(game.getEngine(), game.areMinesPlaced() ? game.getConfig().getMines() : 0);
+        }
+
+        static Snapshot of(BoardEngine board, int totalMines) {
+            Snapshot snapshot = new Snapshot();
+            snapshot.mines = totalMines;
+            int[] neighbors = new int[8];
+            // Frontier cells and the revealed numbers constraining them
+            Map<Integer, Integer> varIndex = new HashMap<Integer, Integer>();
+            List<Integer> vars = new ArrayList<Integer>();
+            List<int[]> constraints = new ArrayList<int[]>();
+            long[] revealed = board.revealedPlane();
+            for (int word = 0; word < revealed.length; word++) {
+                long bits = revealed[word];
+                while (bits != 0) {
+                    int cell = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (board.isMine(cell)) {
+                        snapshot.mines--;
+                        continue;
+                    }
+                    int count = board.neighbors(cell, neighbors);
+                    int target = board.adjacentMines(cell);
+                    int hidden = 0;
+                    for (int i = 0; i < count; i++) {
+                        int n = neighbors[i];
+                        if (board.isRevealed(n)) {
+                            if (board.isMine(n)) {
+                                target--;
+                            }
+                        } else {
+                            neighbors[hidden++] = n;
+                        }
+                    }
+                    if (hidden == 0) {
+                        continue;
+                    }
+                    // Entry 0 is the constraint cell, entry 1 its target, then its variables
+                    int[] constraint = new int[hidden + 2];
+                    constraint[0] = cell;
+                    constraint[1] = target;
+                    for (int i = 0; i < hidden; i++) {
+                        Integer index = varIndex.get(neighbors[i]);
+                        if (index == null) {
+                            index = vars.size();
+                            varIndex.put(neighbors[i], index);
+                            vars.add(neighbors[i]);
+                        }
+                        constraint[i + 2] = index;
+                    }
+                    constraints.add(constraint);
+                }
+            }
+            int hiddenCells = 0;
+            for (int word = 0; word < revealed.length; word++) {
+                int valid = Math.min(64, board.cellCount() - (word << 6));
+                hiddenCells += valid - Long.bitCount(revealed[word]);
+            }
+            snapshot.interiorCount = hiddenCells - vars.size();
+            if (snapshot.interiorCount > 0) {
+                for (int cell = 0; cell < board.cellCount(); cell++) {
+                    if (!board.isRevealed(cell) && !varIndex.containsKey(cell)) {
+                        snapshot.interiorCell = cell;
+                        break;
+                    }
+                }
+            }
+            snapshot.frontierCells = new int[vars.size()];
+            for (int i = 0; i < vars.size(); i++) {
+                snapshot.frontierCells[i] = vars.get(i);
+            }
+            Arrays.sort(snapshot.frontierCells);
+            snapshot.components = Component.split(vars, constraints);
+            return snapshot;
+        }
+    }
+
+    // One independent group of frontier cells and the numbers that constrain them
+    private static final class Component {
+        final int[] varCells;
+        final int[] targets;
+        final int[][] constraintVars;
+        final int[][] varConstraints;
+        final ComponentKey key;
+
+        private Component(int[] varCells, int[] constraintCells, int[] targets,
+                int[][] constraintVars) {
+            this.varCells = varCells;
+            this.targets = targets;
+            this.constraintVars = constraintVars;
+            int[] degree = new int[varCells.length];
+            for (int[] members : constraintVars) {
+                for (int v : members) {
+                    degree[v]++;
+                }
+            }
+            varConstraints = new int[varCells.length][];
+            for (int v = 0; v < varCells.length; v++) {
+                varConstraints[v] = new int[degree[v]];
+                degree[v] = 0;
+            }
+            for (int c = 0; c < constraintVars.length; c++) {
+                for (int v : constraintVars[c]) {
+                    varConstraints[v][degree[v]++] = c;
+                }
+            }
+            this.key = new ComponentKey(varCells, constraintCells, targets);
+        }
+
+        // Groups variables connected through shared constraints, using union-find
+        static List<Component> split(List<Integer> vars, List<int[]> constraints) {
+            int[] parent = new int[vars.size()];
+            for (int i = 0; i < parent.length; i++) {
+                parent[i] = i;
+            }
+            for (int[] constraint : constraints) {
+                int root = find(parent, constraint[2]);
+                for (int i = 3; i < constraint.length; i++) {
+                    int other = find(parent, constraint[i]);
+                    if (other != root) {
+                        parent[other] = root;
+                    }
+                }
+            }
+            Map<Integer, List<Integer>> varsByRoot = new HashMap<Integer, List<Integer>>();
+            Map<Integer, List<int[]>> constraintsByRoot = new HashMap<Integer, List<int[]>>();
+            for (int v = 0; v < parent.length; v++) {
+                int root = find(parent, v);
+                List<Integer> members = varsByRoot.get(root);
+                if (members == null) {
+                    members = new ArrayList<Integer>();
+                    varsByRoot.put(root, members);
+                    constraintsByRoot.put(root, new ArrayList<int[]>());
+                }
+                members.add(v);
+            }
+            for (int[] constraint : constraints) {
+                constraintsByRoot.get(find(parent, constraint[2])).add(constraint);
+            }
+            List<Component> components = new ArrayList<Component>();
+            for (Map.Entry<Integer, List<Integer>> entry : varsByRoot.entrySet()) {
+                List<Integer> members = entry.getValue();
+                // Cell order gives a canonical key and keeps neighboring cells close together
+                int[] cells = new int[members.size()];
+                for (int i = 0; i < cells.length; i++) {
+                    cells[i] = vars.get(members.get(i));
+                }
+                Arrays.sort(cells);
+                List<int[]> owned = constraintsByRoot.get(entry.getKey());
+                int[] constraintCells = new int[owned.size()];
+                int[] targets = new int[owned.size()];
+                int[][] constraintVars = new int[owned.size()][];
+                for (int c = 0; c < owned.size(); c++) {
+                    int[] constraint = owned.get(c);
+                    constraintCells[c] = constraint[0];
+                    targets[c] = constraint[1];
+                    constraintVars[c] = new int[constraint.length - 2];
+                    for (int i = 2; i < constraint.length; i++) {
+                        constraintVars[c][i - 2] =
+                                Arrays.binarySearch(cells, vars.get(constraint[i]));
+                    }
+                }
+                components.add(new Component(cells, constraintCells, targets, constraintVars));
+            }
+            return components;
+        }
+
+        private static int find(int[] parent, int v) {
+            while (parent[v] != v) {
+                parent[v] = parent[parent[v]];
+                v = parent[v];
+            }
+            return v;
+        }
+    }
+
+    // Identifies a component by its cells and the exact targets constraining them
+    private static final class ComponentKey {
+        private final int[] data;
+        private final int hash;
+
+        ComponentKey(int[] varCells, int[] constraintCells, int[] targets) {
+            // Cell indices are non-negative, so packed pairs sort by constraint cell
+            long[] pairs = new long[constraintCells.length];
+            for (int c = 0; c < pairs.length; c++) {
+                pairs[c] = ((long) constraintCells[c] << 32) | (targets[c] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(pairs);
+            data = new int[varCells.length + 2 * pairs.length + 1];
+            data[0] = varCells.length;
+            System.arraycopy(varCells, 0, data, 1, varCells.length);
+            for (int c = 0; c < pairs.length; c++) {
+                data[1 + varCells.length + 2 * c] = (int) (pairs[c] >>> 32);
+                data[2 + varCells.length + 2 * c] = (int) pairs[c];
+            }
+            hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ComponentKey && Arrays.equals(data, ((ComponentKey) o).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // Solution counts of a component, indexed by the number of mines the solution uses
+    private static final class ComponentResult {
+        final double[] ways;
+        final double[][] mineWays;
+
+        ComponentResult(int vars) {
+            ways = new double[vars + 1];
+            mineWays = new double[vars][vars + 1];
+        }
+
+        void add(ComponentResult other) {
+            for (int k = 0; k < ways.length; k++) {
+                ways[k] += other.ways[k];
+            }
+            for (int v = 0; v < mineWays.length; v++) {
+                for (int k = 0; k < ways.length; k++) {
+                    mineWays[v][k] += other.mineWays[v][k];
+                }
+            }
+        }
+    }
+
+    /**
+     * Enumerates the solutions of a component that start with a fixed prefix of assignments.
+     * Forks one subtask per value of the next cell until the prefix is long enough for the
+     * pool, then backtracks iteratively over the remaining cells.
+     */
+    @SuppressWarnings("serial")
+    private static final class ComponentTask extends RecursiveTask<ComponentResult> {
+        private final Component component;
+        private final Job job;
+        private final int depth;
+        private final byte[] prefix;
+
+        ComponentTask(Component component, Job job, int depth, byte[] prefix) {
+            this.component = component;
+            this.job = job;
+            this.depth = depth;
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected ComponentResult compute() {
+            int vars = component.varCells.length;
+            int splitDepth = vars < SPLIT_THRESHOLD ? 0
+                    : 32 - Integer.numberOfLeadingZeros(4 * getPool().getParallelism());
+            if (depth < Math.min(splitDepth, vars)) {
+                byte[] safe = Arrays.copyOf(prefix, depth + 1);
+                byte[] mine = Arrays.copyOf(prefix, depth + 1);
+                mine[depth] = 1;
+                ComponentTask left = new ComponentTask(component, job, depth + 1, safe);
+                left.fork();
+                ComponentResult result = new ComponentTask(component, job, depth + 1, mine)
+                        .compute();
+                result.add(left.join());
+                return result;
+            }
+            return new Enumerator(component, job).run(prefix);
+        }
+    }
+
+    // Iterative backtracking over one component with running constraint totals
+    private static final class Enumerator {
+        private final Component component;
+        private final Job job;
+        private final int vars;
+        private final int[] placed;
+        private final int[] open;
+        private final byte[] value;
+        private final byte[] next;
+        private final boolean[] applied;
+        private int mines;
+        private int nodes;
+
+        Enumerator(Component component, Job job) {
+            this.component = component;
+            this.job = job;
+            this.vars = component.varCells.length;
+            this.placed = new int[component.targets.length];
+            this.open = new int[component.targets.length];
+            for (int c = 0; c < open.length; c++) {
+                open[c] = component.constraintVars[c].length;
+            }
+            this.value = new byte[vars];
+            this.next = new byte[vars + 1];
+            this.applied = new boolean[vars + 1];
+        }
+
+        ComponentResult run(byte[] prefix) {
+            ComponentResult result = new ComponentResult(vars);
+            for (int v = 0; v < prefix.length; v++) {
+                if (!assign(v, prefix[v])) {
+                    return result;
+                }
+            }
+            int from = prefix.length;
+            int d = from;
+            next[d] = 0;
+            applied[d] = false;
+            while (d >= from) {
+                if ((++nodes & (CHECK_INTERVAL - 1)) == 0) {
+                    job.check();
+                }
+                if (d == vars) {
+                    record(result);
+                    d--;
+                    continue;
+                }
+                if (applied[d]) {
+                    unassign(d);
+                    applied[d] = false;
+                }
+                if (next[d] > 1) {
+                    d--;
+                    continue;
+                }
+                byte v = next[d]++;
+                if (assign(d, v)) {
+                    applied[d] = true;
+                    d++;
+                    next[d] = 0;
+                    applied[d] = false;
+                }
+            }
+            return result;
+        }
+
+        private void record(ComponentResult result) {
+            result.ways[mines]++;
+            for (int v = 0; v < vars; v++) {
+                if (value[v] == 1) {
+                    result.mineWays[v][mines]++;
+                }
+            }
+        }
+
+        // Applies a value and checks every constraint of the cell; undoes it on conflict
+        private boolean assign(int var, byte v) {
+            int[] constraints = component.varConstraints[var];
+            boolean consistent = true;
+            for (int c : constraints) {
+                open[c]--;
+                placed[c] += v;
+                int target = component.targets[c];
+                if (placed[c] > target || placed[c] + open[c] < target) {
+                    consistent = false;
+                }
+            }
+            value[var] = v;
+            mines += v;
+            if (!consistent) {
+                unassign(var);
+            }
+            return consistent;
+        }
+
+        private void unassign(int var) {
+            byte v = value[var];
+            for (int c : component.varConstraints[var]) {
+                open[c]++;
+                placed[c] -= v;
+            }
+            mines -= v;
+            value[var] = 0;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package minesweeper;
+
+import java.util.SplittableRandom;
+
+/**
+ * Move strategy that flips a uniformly random hidden cell.
+ * Serves as the baseline for balancing runs; any smarter strategy should beat its win rate.
+ */
+public final class RandomMoveStrategy implements MoveStrategy {
+
+    // Random probes before falling back to a scan of the hidden cells
+    private static final int MAX_PROBES = 32;
+
+    @Override
+    public int nextMove(Minesweeper game, SplittableRandom random) {
+        BoardEngine board = game.getEngine();
+        int cells = board.cellCount();
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int cell = random.nextInt(cells);
+            if (!board.isRevealed(cell) && !board.isFlagged(cell)) {
+                return cell;
+            }
+        }
+        int hidden = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (!board.isRevealed(cell) && !board.isFlagged(cell)) {
+                hidden++;
+            }
+        }
+        if (hidden == 0) {
+            return -1;
+        }
+        int target = random.nextInt(hidden);
+        for (int cell = 0; cell < cells; cell++) {
+            if (!board.isRevealed(cell) && !board.isFlagged(cell) && target-- == 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,322 @@
+package minesweeper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless player for replay logs written by ReplayRecorder.
+ *
+ * Every game is played again through a Minesweeper, counting moves the way GameBoard does:
+ * one for every flip, chord or batch that leaves the game running, none for a flag or a
+ * chord that revealed nothing, two for an undo, one for a redo, and one more for the winning
+ * move. A won game is verified when the replay wins too, the move count equals the stored
+ * one, and the stored time in seconds is within a second of the time the replay was won.
+ * One Minesweeper is reused for the whole log and nothing touches AWT, so
+ * verification runs at thousands of games per second.
+ */
+public final class ReplayPlayer {
+
+    // Allowed difference between the stored time and the recorded time of the win, in seconds
+    private static final int TIME_TOLERANCE = 1;
+
+    // Mismatch descriptions kept in a summary; the rest are only counted
+    private static final int MAX_MISMATCHES = 100;
+
+    private static final int BUFFER_BYTES = 8192;
+
+    private final Minesweeper game = new Minesweeper(BoardConfig.BEGINNER, 0L);
+    private InputStream in;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private int position;
+    private int limit;
+    private int[] layout = new int[64];
+    private int[] batch = new int[64];
+
+    /**
+     * Plays every game of a replay log.
+     */
+    public Summary play(Path log) throws IOException {
+        InputStream stream = Files.newInputStream(log);
+        try {
+            return play(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Plays every game of a replay log read from a stream, header included.
+     * @throws IOException if the stream fails or does not start with a replay header
+     */
+    public Summary play(InputStream stream) throws IOException {
+        in = stream;
+        position = 0;
+        limit = 0;
+        long start = System.nanoTime();
+        int magic = (read() << 24) | (read() << 16) | (read() << 8) | read();
+        int version = read();
+        // Each version only added event kinds, so older logs play as they are
+        if (magic != ReplayRecorder.MAGIC || version < 1 || version > ReplayRecorder.VERSION) {
+            throw new IOException("Not a replay log");
+        }
+        Summary summary = new Summary();
+        int next = readOrEnd();
+        while (next >= 0) {
+            next = playGame(next, summary);
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Plays one game, starting at the first byte of its BEGIN event.
+     * @return the first byte of the next game, or -1 at the end of the log
+     */
+    private int playGame(int first, Summary summary) throws IOException {
+        summary.games++;
+        long header = readVarint(first);
+        if ((header & ((1 << ReplayRecorder.KIND_BITS) - 1)) != ReplayRecorder.BEGIN) {
+            throw new IOException("Game " + summary.games + " does not start with BEGIN");
+        }
+        BoardConfig config = new BoardConfig((int) readVarint(read()), (int) readVarint(read()),
+                (int) readVarint(read()));
+        long seed = 0;
+        for (int i = 0; i < 8; i++) {
+            seed = (seed << 8) | read();
+        }
+        game.reset(config, seed);
+        BoardEngine board = game.getEngine();
+        int cols = config.getCols();
+        long millis = 0;
+        long wonAt = -1;
+        int moves = 0;
+        int cell = 0;
+        while (true) {
+            int b = readOrEnd();
+            if (b < 0) {
+                summary.unfinished++;
+                return -1;
+            }
+            header = readVarint(b);
+            int kind = (int) (header & ((1 << ReplayRecorder.KIND_BITS) - 1));
+            millis += header >>> ReplayRecorder.KIND_BITS;
+            switch (kind) {
+                case ReplayRecorder.BEGIN:
+                    summary.unfinished++;
+                    return b;
+                case ReplayRecorder.LAYOUT:
+                    int count = (int) readVarint(read());
+                    if (layout.length < count) {
+                        layout = new int[Math.max(count, layout.length * 2)];
+                    }
+                    int mine = 0;
+                    for (int i = 0; i < count; i++) {
+                        mine += (int) readVarint(read());
+                        layout[i] = mine;
+                    }
+                    game.placeMines(layout, count);
+                    break;
+                case ReplayRecorder.FLIP:
+                    cell = readCell(cell);
+                    game.flip(cell / cols, cell % cols);
+                    moves += running() ? 1 : 0;
+                    break;
+                case ReplayRecorder.FLAG:
+                    cell = readCell(cell);
+                    game.setFlagged(cell / cols, cell % cols, !board.isFlagged(cell));
+                    break;
+                case ReplayRecorder.CHORD:
+                    cell = readCell(cell);
+                    // GameBoard only counts a chord that revealed something
+                    moves += game.chord(cell / cols, cell % cols) && running() ? 1 : 0;
+                    break;
+                case ReplayRecorder.BATCH:
+                    int cells = (int) readVarint(read());
+                    if (batch.length < cells) {
+                        batch = new int[Math.max(cells, batch.length * 2)];
+                    }
+                    for (int i = 0; i < cells; i++) {
+                        cell = readCell(cell);
+                        batch[i] = cell;
+                    }
+                    game.flipAll(batch, cells);
+                    moves += running() ? 1 : 0;
+                    break;
+                case ReplayRecorder.MISS:
+                    moves += running() ? 1 : 0;
+                    break;
+                case ReplayRecorder.UNDO:
+                    moves += game.undo() ? 2 : 0;
+                    break;
+                case ReplayRecorder.REDO:
+                    moves += game.redo() ? 1 : 0;
+                    break;
+                case ReplayRecorder.END:
+                    int result = (int) readVarint(read()) - 1;
+                    int time = (int) readVarint(read());
+                    int storedMoves = (int) readVarint(read());
+                    check(summary, result, time, storedMoves, wonAt, moves);
+                    return readOrEnd();
+                default:
+                    throw new IOException("Unknown replay event " + kind + " in game "
+                            + summary.games);
+            }
+            if (wonAt < 0 && game.gameResult() == GameConstants.GAME_WON) {
+                wonAt = millis;
+            } else if (game.gameResult() != GameConstants.GAME_WON) {
+                wonAt = -1;
+            }
+        }
+    }
+
+    private boolean running() {
+        return game.gameResult() == GameConstants.GAME_IN_PROGRESS;
+    }
+
+    private void check(Summary summary, int result, int time, int storedMoves, long wonAt,
+            int moves) {
+        if (result != game.gameResult()) {
+            summary.mismatch("Game " + summary.games + " ended " + result + " but replays to "
+                    + game.gameResult());
+            return;
+        }
+        if (result != GameConstants.GAME_WON) {
+            return;
+        }
+        summary.won++;
+        if (storedMoves != moves + 1) {
+            summary.mismatch("Game " + summary.games + " stored " + storedMoves
+                    + " moves but replays in " + (moves + 1));
+        } else if (Math.abs(time - wonAt / 1000) > TIME_TOLERANCE) {
+            summary.mismatch("Game " + summary.games + " stored " + time
+                    + "s but was won after " + wonAt + "ms");
+        } else {
+            summary.verified++;
+        }
+    }
+
+    // Reads a cell stored as a zigzag difference from the previous cell
+    private int readCell(int previous) throws IOException {
+        long zigzag = readVarint(read());
+        return previous + ((int) (zigzag >>> 1) ^ -(int) (zigzag & 1));
+    }
+
+    private int readOrEnd() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private int read() throws IOException {
+        int b = readOrEnd();
+        if (b < 0) {
+            throw new EOFException("Replay log ends inside an event");
+        }
+        return b;
+    }
+
+    // Reads a varint whose first byte has already been read
+    private long readVarint(int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0) {
+            b = read();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    /**
+     * Counts of a replay log run.
+     */
+    public static final class Summary {
+        private long games;
+        private long won;
+        private long verified;
+        private long mismatched;
+        private long unfinished;
+        private long elapsedNanos;
+        private final List<String> mismatches = new ArrayList<String>();
+
+        private void mismatch(String description) {
+            mismatched++;
+            if (mismatches.size() < MAX_MISMATCHES) {
+                mismatches.add(description);
+            }
+        }
+
+        //Gets the number of games in the log, finished or not
+        public long getGames() {
+            return games;
+        }
+
+        //Gets the number of games recorded and replayed as won
+        public long getWon() {
+            return won;
+        }
+
+        //Gets the number of won games whose stored time and moves match the replay
+        public long getVerified() {
+            return verified;
+        }
+
+        //Gets the number of games whose stored result, time or moves disagree with the replay
+        public long getMismatched() {
+            return mismatched;
+        }
+
+        //Gets the number of games without an END event
+        public long getUnfinished() {
+            return unfinished;
+        }
+
+        //Gets descriptions of the first mismatches
+        public List<String> getMismatches() {
+            return mismatches;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        //Gets the playback rate
+        public double getGamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games, %d won, %d verified, %d mismatched, %d unfinished"
+                    + " (%.0f games/s)", games, won, verified, mismatched, unfinished,
+                    getGamesPerSecond());
+        }
+    }
+
+    /**
+     * Verifies a replay log from the command line.
+     * Usage: java ReplayPlayer [log], by default the log next to the score log
+     */
+    public static void main(String[] args) throws IOException {
+        Path log = Paths.get(args.length > 0 ? args[0]
+                : GameConstants.SCORES_LOG_PATH + GameConstants.REPLAY_SUFFIX);
+        Summary summary = new ReplayPlayer().play(log);
+        System.out.println(summary);
+        for (String mismatch : summary.getMismatches()) {
+            System.out.println("  " + mismatch);
+        }
+    }
+}
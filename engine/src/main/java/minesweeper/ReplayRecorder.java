@@ -0,0 +1,285 @@
+package minesweeper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams the games played on a Minesweeper to a compact binary replay log.
+ *
+ * A log starts with a five-byte header, MAGIC then VERSION, followed by the events of any
+ * number of games. Every event starts with a varint holding the milliseconds since the
+ * previous event of the game, shifted left four bits, with the event kind in the low bits:
+ * <pre>
+ *     BEGIN  rows, cols, mines (varints), game seed (8 bytes, big-endian)
+ *     LAYOUT mine count, then the gaps between sorted mine cells (varints)
+ *     FLIP   cell minus the previously flipped cell, zigzag varint
+ *     MISS   a flip outside the board
+ *     UNDO, REDO
+ *     END    result + 1, the time and moves stored for the game (varints)
+ *     FLAG   a flag set or cleared, CHORD a chord on a number: cell as for FLIP
+ *     BATCH  cell count, then every cell as for FLIP
+ * </pre>
+ * Mines come from the seed and the first flip, as in Minesweeper.flip, unless a LAYOUT
+ * event lists them. Events are collected in a buffer that is written out at the end of every
+ * game, so recording a move never touches the disk.
+ *
+ * A write failure is logged once at WARNING and stops the recording; the game carries on.
+ */
+public final class ReplayRecorder implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(ReplayRecorder.class.getName());
+
+    public static final int MAGIC = 0x4D535250; // "MSRP"
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 5;
+
+    static final int BEGIN = 0;
+    static final int LAYOUT = 1;
+    static final int FLIP = 2;
+    static final int MISS = 3;
+    static final int UNDO = 4;
+    static final int REDO = 5;
+    static final int END = 6;
+    static final int FLAG = 7;
+    static final int CHORD = 8;
+    static final int BATCH = 9;
+    static final int KIND_BITS = 4;
+
+    private static final int BUFFER_BYTES = 8192;
+
+    private final OutputStream out;
+    private byte[] buffer = new byte[BUFFER_BYTES];
+    private int length;
+    private int gameStart; // where the current game's events start in the buffer
+    private long lastEventNanos;
+    private int lastCell;
+    private boolean inGame;
+    private long games;
+    private volatile IOException lastError;
+
+    /**
+     * Creates a recorder writing to a stream.
+     * @param out the stream; the recorder closes it when it is closed
+     * @param writeHeader whether to start with the log header, false when appending to a log
+     */
+    public ReplayRecorder(OutputStream out, boolean writeHeader) {
+        this.out = out;
+        if (writeHeader) {
+            buffer[length++] = (byte) (MAGIC >>> 24);
+            buffer[length++] = (byte) (MAGIC >>> 16);
+            buffer[length++] = (byte) (MAGIC >>> 8);
+            buffer[length++] = (byte) MAGIC;
+            buffer[length++] = (byte) VERSION;
+        }
+    }
+
+    /**
+     * Opens a replay log for appending, creating it with a header if it is new or empty.
+     */
+    public static ReplayRecorder open(Path log) throws IOException {
+        boolean empty = !Files.exists(log) || Files.size(log) == 0;
+        OutputStream out = Files.newOutputStream(log, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        return new ReplayRecorder(out, empty);
+    }
+
+    /**
+     * Starts a new game. A game that was not ended is left without an END event, and the
+     * player counts it as unfinished.
+     */
+    public void beginGame(BoardConfig config, long seed) {
+        lastEventNanos = System.nanoTime();
+        lastCell = 0;
+        inGame = true;
+        gameStart = length;
+        event(BEGIN);
+        writeVarint(config.getRows());
+        writeVarint(config.getCols());
+        writeVarint(config.getMines());
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            put((byte) (seed >>> shift));
+        }
+    }
+
+    /**
+     * Records mines that were placed some other way than from the seed and the first flip.
+     */
+    public void layout(BoardEngine board) {
+        if (!inGame) {
+            return;
+        }
+        event(LAYOUT);
+        writeVarint(board.mineCount());
+        int previous = 0;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.isMine(cell)) {
+                writeVarint(cell - previous);
+                previous = cell;
+            }
+        }
+    }
+
+    //Records a flip of a cell on the board
+    public void flip(int cell) {
+        if (inGame) {
+            event(FLIP);
+            writeCell(cell);
+        }
+    }
+
+    //Records a flag set or cleared on a cell
+    public void flag(int cell) {
+        if (inGame) {
+            event(FLAG);
+            writeCell(cell);
+        }
+    }
+
+    //Records a chord on a cell of the board
+    public void chord(int cell) {
+        if (inGame) {
+            event(CHORD);
+            writeCell(cell);
+        }
+    }
+
+    /**
+     * Records a batch of flips made as one move.
+     * @param cells the cells, as passed to Minesweeper.flipAll
+     * @param count number of entries of cells to use
+     */
+    public void batch(int[] cells, int count) {
+        if (inGame) {
+            event(BATCH);
+            writeVarint(count);
+            for (int i = 0; i < count; i++) {
+                writeCell(cells[i]);
+            }
+        }
+    }
+
+    //Records a flip outside the board
+    public void miss() {
+        if (inGame) {
+            event(MISS);
+        }
+    }
+
+    public void undo() {
+        if (inGame) {
+            event(UNDO);
+        }
+    }
+
+    public void redo() {
+        if (inGame) {
+            event(REDO);
+        }
+    }
+
+    /**
+     * Ends the current game and writes it out.
+     * @param result the game state, a GameConstants game result
+     * @param time the time in seconds stored for the game
+     * @param moves the move count stored for the game
+     */
+    public void endGame(int result, int time, int moves) {
+        if (!inGame) {
+            return;
+        }
+        event(END);
+        writeVarint(result + 1);
+        writeVarint(Math.max(0, time));
+        writeVarint(Math.max(0, moves));
+        inGame = false;
+        games++;
+        flush();
+    }
+
+    /**
+     * Drops the events of the current game, which is then not recorded at all.
+     */
+    public void discardGame() {
+        if (inGame) {
+            // Nothing of a game is written before it ends unless recording already failed
+            length = Math.min(length, gameStart);
+            inGame = false;
+        }
+    }
+
+    //Writes buffered events to the stream
+    public void flush() {
+        if (length == 0 || lastError != null) {
+            length = 0;
+            return;
+        }
+        try {
+            out.write(buffer, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            lastError = e;
+            LOGGER.log(Level.WARNING, "Could not write replay; recording stopped", e);
+        }
+        length = 0;
+    }
+
+    //Gets the number of games ended so far
+    public long getGames() {
+        return games;
+    }
+
+    //Gets the failure that stopped the recording, or null
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Writes what is buffered, including an unfinished game, and closes the stream.
+     */
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    private void event(int kind) {
+        long now = System.nanoTime();
+        long millis = (now - lastEventNanos) / 1_000_000;
+        // Only whole milliseconds are taken, so rounding does not add up over a game
+        lastEventNanos += millis * 1_000_000;
+        writeVarint((millis << KIND_BITS) | kind);
+    }
+
+    // Writes a cell as a zigzag varint of the difference from the previous cell
+    private void writeCell(int cell) {
+        int delta = cell - lastCell;
+        writeVarint(((delta << 1) ^ (delta >> 31)) & 0xFFFFFFFFL);
+        lastCell = cell;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        put((byte) value);
+    }
+
+    private void put(byte b) {
+        if (length == buffer.length) {
+            if (inGame && lastError == null) {
+                // Long games grow the buffer instead of writing half a game
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                flush();
+            }
+        }
+        buffer[length++] = b;
+    }
+}
@@ -0,0 +1,95 @@
+package minesweeper;
+
+import java.util.Comparator;
+
+/**
+ * One won game in the score log.
+ * The sequence number is the record's position in the log, so two wins with the same time and
+ * move count stay separate entries and the earlier one ranks first.
+ */
+public final class ScoreRecord {
+
+    /**
+     * Orders records from best to worst: fastest time, then fewest moves, then earliest.
+     */
+    public static final Comparator<ScoreRecord> FASTEST = new Comparator<ScoreRecord>() {
+        @Override
+        public int compare(ScoreRecord a, ScoreRecord b) {
+            if (a.time != b.time) {
+                return Integer.compare(a.time, b.time);
+            }
+            if (a.moves != b.moves) {
+                return Integer.compare(a.moves, b.moves);
+            }
+            return Long.compare(a.sequence, b.sequence);
+        }
+    };
+
+    private final long sequence;
+    private final int time;
+    private final int moves;
+    private final int rows;
+    private final int cols;
+    private final int mines;
+
+    ScoreRecord(long sequence, int time, int moves, int rows, int cols, int mines) {
+        this.sequence = sequence;
+        this.time = time;
+        this.moves = moves;
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+    }
+
+    //Gets the position of the record in the log
+    public long getSequence() {
+        return sequence;
+    }
+
+    //Gets the time to win in seconds
+    public int getTime() {
+        return time;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    //Checks whether the game was played on the given board configuration
+    public boolean isOn(BoardConfig config) {
+        return rows == config.getRows() && cols == config.getCols()
+                && mines == config.getMines();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ScoreRecord)) {
+            return false;
+        }
+        ScoreRecord other = (ScoreRecord) o;
+        return sequence == other.sequence && time == other.time && moves == other.moves
+                && rows == other.rows && cols == other.cols && mines == other.mines;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(sequence) * 31 + time;
+    }
+
+    @Override
+    public String toString() {
+        return time + " " + moves;
+    }
+}
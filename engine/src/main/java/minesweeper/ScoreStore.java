@@ -0,0 +1,482 @@
+package minesweeper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of won games with an in-memory index of the best records.
+ *
+ * The log is a 16-byte header followed by fixed 24-byte records (time, moves, rows, cols,
+ * mines, CRC32). Records are only ever appended, under an exclusive file lock, at the end of
+ * the last complete record, so several game processes can share one log and a record torn by
+ * a crash is overwritten by the next append. Records that fail their checksum are skipped.
+ *
+ * The index keeps the best records in FASTEST order, up to a fixed capacity. It is saved to a
+ * checkpoint file next to the log together with the number of records it covers, so opening
+ * the store reads the checkpoint plus the records appended after it, and refresh() reads only
+ * the records other processes appended since the last call. Neither grows with the log.
+ *
+ * Rankings over every record, per board, come from a Leaderboard. It is built by one pass
+ * over the log when first asked for, and then kept up to date by appends and refreshes.
+ */
+public final class ScoreStore implements Closeable {
+
+    static final long MAGIC = 0x4D494E4553434F52L; // "MINESCOR"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 24;
+
+    // Records read or appended past the checkpoint before it is rewritten
+    private static final int CHECKPOINT_INTERVAL = 4096;
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int READ_BATCH = 4096;
+
+    // Best records published for lock-free reads, so the UI never waits on a writer's I/O
+    private static final int LEADERS = 32;
+
+    // FileChannel locks are held per process, so threads of one process take this monitor first
+    private static final ConcurrentHashMap<Path, Object> MONITORS =
+            new ConcurrentHashMap<Path, Object>();
+
+    private final Path log;
+    private final Path checkpoint;
+    private final FileChannel channel;
+    private final Object monitor;
+    private final int capacity;
+    private final TreeSet<ScoreRecord> index = new TreeSet<ScoreRecord>(ScoreRecord.FASTEST);
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * READ_BATCH);
+    private final CRC32 crc = new CRC32();
+    private long records;
+    private long checkpointed;
+    private volatile ScoreRecord[] leaders = new ScoreRecord[0];
+    private Leaderboard leaderboard; // every record of the log, once opened
+
+    /**
+     * Opens or creates a score log with the default index capacity.
+     * @param log path of the log; its directory is created if needed
+     */
+    public ScoreStore(Path log) throws IOException {
+        this(log, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens or creates a score log.
+     * @param log path of the log; its directory is created if needed
+     * @param capacity number of best records kept in the index
+     */
+    public ScoreStore(Path log, int capacity) throws IOException {
+        this.log = log.toAbsolutePath().normalize();
+        this.checkpoint = this.log.resolveSibling(this.log.getFileName() + ".idx");
+        this.capacity = capacity;
+        Path parent = this.log.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.monitor = monitorFor(this.log);
+        this.channel = FileChannel.open(this.log, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            synchronized (monitor) {
+                FileLock lock = channel.lock();
+                try {
+                    checkHeader();
+                } finally {
+                    lock.release();
+                }
+            }
+            loadCheckpoint();
+            refresh();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static Object monitorFor(Path path) {
+        Object monitor = MONITORS.get(path);
+        if (monitor == null) {
+            Object created = new Object();
+            monitor = MONITORS.putIfAbsent(path, created);
+            if (monitor == null) {
+                monitor = created;
+            }
+        }
+        return monitor;
+    }
+
+    // Writes the header of a new log, or checks that an existing log is one of ours
+    private void checkHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (channel.size() < HEADER_BYTES) {
+            header.putLong(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).flip();
+            channel.write(header, 0);
+            return;
+        }
+        channel.read(header, 0);
+        header.flip();
+        if (header.getLong() != MAGIC || header.getInt() != VERSION
+                || header.getInt() != RECORD_BYTES) {
+            throw new IOException(log + " is not a score log");
+        }
+    }
+
+    /**
+     * Appends a won game to the log and the index.
+     * Records appended by other processes since the last refresh are read first.
+     * @param time time to win in seconds
+     * @param moves number of moves
+     * @param config board the game was played on
+     * @return the new record
+     */
+    public ScoreRecord append(int time, int moves, BoardConfig config) throws IOException {
+        List<ScoreRecord> one = new ArrayList<ScoreRecord>(1);
+        one.add(new ScoreRecord(-1, time, moves, config.getRows(), config.getCols(),
+                config.getMines()));
+        return appendAll(one).get(0);
+    }
+
+    // Appends several games with one lock and one write; their sequence numbers are assigned here
+    List<ScoreRecord> appendAll(List<ScoreRecord> pending) throws IOException {
+        synchronized (monitor) {
+            FileLock lock = channel.lock();
+            try {
+                readTail();
+                List<ScoreRecord> written = new ArrayList<ScoreRecord>(pending.size());
+                long position = HEADER_BYTES + records * RECORD_BYTES;
+                buffer.clear();
+                for (ScoreRecord p : pending) {
+                    ScoreRecord record = new ScoreRecord(records + written.size(), p.getTime(),
+                            p.getMoves(), p.getRows(), p.getCols(), p.getMines());
+                    if (!buffer.hasRemaining()) {
+                        position = writeBuffer(position);
+                    }
+                    encode(record, buffer);
+                    written.add(record);
+                }
+                writeBuffer(position);
+                records += written.size();
+                for (ScoreRecord record : written) {
+                    add(record);
+                }
+                return written;
+            } finally {
+                lock.release();
+                publishLeaders();
+                maybeCheckpoint();
+            }
+        }
+    }
+
+    private long writeBuffer(long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return position;
+    }
+
+    /**
+     * Forces everything appended so far to the storage device.
+     */
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Reads the records other processes appended since the last call.
+     * @return the number of new records
+     */
+    public int refresh() throws IOException {
+        synchronized (monitor) {
+            long before = records;
+            FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+            try {
+                readTail();
+            } finally {
+                lock.release();
+            }
+            publishLeaders();
+            maybeCheckpoint();
+            return (int) (records - before);
+        }
+    }
+
+    // Reads complete records past the last one this store has seen; the caller holds a lock
+    private void readTail() throws IOException {
+        long complete = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+        while (records < complete) {
+            int batch = (int) Math.min(READ_BATCH, complete - records);
+            readBatch(records, batch);
+            for (int i = 0; i < batch; i++) {
+                ScoreRecord record = decode(records + i, buffer);
+                if (record != null) {
+                    add(record);
+                }
+            }
+            records += batch;
+        }
+    }
+
+    // Reads count records starting at record first into the buffer, ready to decode
+    private void readBatch(long first, int count) throws IOException {
+        buffer.clear().limit(count * RECORD_BYTES);
+        long position = HEADER_BYTES + first * RECORD_BYTES;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Score log shrank while reading");
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    private void add(ScoreRecord record) {
+        if (leaderboard != null) {
+            leaderboard.add(record);
+        }
+        if (index.size() < capacity) {
+            index.add(record);
+        } else if (ScoreRecord.FASTEST.compare(record, index.last()) < 0) {
+            index.pollLast();
+            index.add(record);
+        }
+    }
+
+    private void encode(ScoreRecord record, ByteBuffer out) {
+        int start = out.position();
+        out.putInt(record.getTime()).putInt(record.getMoves()).putInt(record.getRows())
+                .putInt(record.getCols()).putInt(record.getMines());
+        crc.reset();
+        crc.update(out.array(), start, RECORD_BYTES - 4);
+        out.putInt((int) crc.getValue());
+    }
+
+    // Returns null for a record that fails its checksum
+    private ScoreRecord decode(long sequence, ByteBuffer in) {
+        int start = in.position();
+        crc.reset();
+        crc.update(in.array(), start, RECORD_BYTES - 4);
+        int time = in.getInt();
+        int moves = in.getInt();
+        int rows = in.getInt();
+        int cols = in.getInt();
+        int mines = in.getInt();
+        if (in.getInt() != (int) crc.getValue()) {
+            return null;
+        }
+        return new ScoreRecord(sequence, time, moves, rows, cols, mines);
+    }
+
+    private void maybeCheckpoint() throws IOException {
+        if (records - checkpointed >= CHECKPOINT_INTERVAL) {
+            writeCheckpoint();
+        }
+    }
+
+    /**
+     * Saves the index so the next open only reads records appended after this point.
+     * Written to a temporary file and moved into place, so readers never see a partial one.
+     */
+    public void checkpoint() throws IOException {
+        synchronized (monitor) {
+            if (records != checkpointed) {
+                writeCheckpoint();
+            }
+        }
+    }
+
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + 4
+                + index.size() * (RECORD_BYTES + 8));
+        out.putLong(MAGIC).putLong(records).putInt(index.size());
+        for (ScoreRecord record : index) {
+            out.putLong(record.getSequence());
+            encode(record, out);
+        }
+        Path temp = Files.createTempFile(checkpoint.getParent(), "scores", ".tmp");
+        try {
+            Files.write(temp, out.array());
+            Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        checkpointed = records;
+    }
+
+    // A missing or damaged checkpoint only means the whole log is read once
+    private void loadCheckpoint() throws IOException {
+        if (!Files.exists(checkpoint)) {
+            return;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        if (in.remaining() < HEADER_BYTES + 4 || in.getLong() != MAGIC) {
+            return;
+        }
+        long covered = in.getLong();
+        int count = in.getInt();
+        long complete = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+        if (covered > complete || count < 0 || in.remaining() != count * (RECORD_BYTES + 8)) {
+            return;
+        }
+        List<ScoreRecord> loaded = new ArrayList<ScoreRecord>(count);
+        for (int i = 0; i < count; i++) {
+            ScoreRecord record = decode(in.getLong(), in);
+            if (record == null) {
+                return;
+            }
+            loaded.add(record);
+        }
+        for (ScoreRecord record : loaded) {
+            add(record);
+        }
+        records = covered;
+        checkpointed = covered;
+    }
+
+    /**
+     * Appends the records of an old text scores file: a header line, then "time moves" per
+     * line. Those games were all played on the beginner board.
+     * @param text the text file
+     * @return the number of records imported
+     */
+    public int importText(Path text) throws IOException {
+        int imported = 0;
+        try (BufferedReader br = Files.newBufferedReader(text, StandardCharsets.UTF_8)) {
+            String line = br.readLine();
+            line = br.readLine();
+            while (line != null) {
+                String[] split = line.trim().split(" ");
+                try {
+                    int time = Integer.parseInt(split[0]);
+                    int moves = Integer.parseInt(split[1]);
+                    if (time != 0 && moves != 0) {
+                        append(time, moves, BoardConfig.BEGINNER);
+                        imported++;
+                    }
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    // Skips malformed lines, as the text reader always did
+                }
+                line = br.readLine();
+            }
+        }
+        return imported;
+    }
+
+    // Copies the head of the index when it has changed; the caller holds the monitor
+    private void publishLeaders() {
+        ScoreRecord[] current = leaders;
+        int count = Math.min(LEADERS, index.size());
+        boolean changed = current.length != count;
+        Iterator<ScoreRecord> it = index.iterator();
+        for (int i = 0; i < count && !changed; i++) {
+            changed = it.next() != current[i];
+        }
+        if (changed) {
+            leaders = top(index, count);
+        }
+    }
+
+    private static ScoreRecord[] top(TreeSet<ScoreRecord> index, int count) {
+        ScoreRecord[] best = new ScoreRecord[count];
+        Iterator<ScoreRecord> it = index.iterator();
+        for (int i = 0; i < count; i++) {
+            best[i] = it.next();
+        }
+        return best;
+    }
+
+    /**
+     * Returns the best records in FASTEST order.
+     * Small requests are served from a published copy without waiting for appends in progress.
+     * @param n the maximum number of records, at most the index capacity
+     */
+    public List<ScoreRecord> top(int n) {
+        ScoreRecord[] published = leaders;
+        if (n <= LEADERS || published.length < LEADERS) {
+            List<ScoreRecord> best = new ArrayList<ScoreRecord>(Math.min(n, published.length));
+            for (int i = 0; i < published.length && i < n; i++) {
+                best.add(published[i]);
+            }
+            return best;
+        }
+        synchronized (monitor) {
+            List<ScoreRecord> best = new ArrayList<ScoreRecord>(Math.min(n, index.size()));
+            Iterator<ScoreRecord> it = index.iterator();
+            while (best.size() < n && it.hasNext()) {
+                best.add(it.next());
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Returns the rankings of every record in the log, reading and sorting the whole log the
+     * first time, which for millions of records takes long enough to keep off the UI thread.
+     * Later appends and refreshes keep it up to date.
+     */
+    public Leaderboard openLeaderboard() throws IOException {
+        synchronized (monitor) {
+            if (leaderboard != null) {
+                return leaderboard;
+            }
+            Leaderboard built = new Leaderboard();
+            FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+            try {
+                // Records past the ones this store has seen are added by the next readTail
+                for (long first = 0; first < records; first += READ_BATCH) {
+                    int batch = (int) Math.min(READ_BATCH, records - first);
+                    readBatch(first, batch);
+                    for (int i = 0; i < batch; i++) {
+                        ScoreRecord record = decode(first + i, buffer);
+                        if (record != null) {
+                            built.add(record);
+                        }
+                    }
+                }
+            } finally {
+                lock.release();
+            }
+            built.settle();
+            leaderboard = built;
+            return built;
+        }
+    }
+
+    //Gets the number of records in the log, including any that failed their checksum
+    public long size() {
+        synchronized (monitor) {
+            return records;
+        }
+    }
+
+    public Path getPath() {
+        return log;
+    }
+
+    //Saves the index and closes the log
+    public void close() throws IOException {
+        try {
+            checkpoint();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package minesweeper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background writer that appends scores to a ScoreStore off the calling thread.
+ * Games are handed over through a bounded queue, so submit() never blocks: when the queue is
+ * full the score is dropped and counted. A single daemon thread drains the queue and appends
+ * what it finds in batches, following the durability policy. Refresh requests go through the
+ * same queue, so the Swing event thread never touches the disk.
+ *
+ * Failures are counted and the last one is kept for display; they are also logged once per
+ * failed batch at WARNING.
+ */
+public final class ScoreWriter implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(ScoreWriter.class.getName());
+
+    // How often an idle writer checks whether it has been closed
+    private static final long IDLE_POLL_MS = 200;
+
+    /**
+     * When appended scores reach the log, and whether they are forced to the device.
+     */
+    public enum Durability {
+        /** Each score is written on its own as soon as it is taken from the queue. */
+        FLUSH_PER_RECORD,
+        /** Scores arriving within the group commit interval are written together. */
+        GROUP_COMMIT,
+        /** As GROUP_COMMIT, and every batch is forced to the storage device. */
+        FSYNC
+    }
+
+    // Queued in place of a score to ask for a refresh of the store
+    private static final ScoreRecord REFRESH = new ScoreRecord(-1, 0, 0, 0, 0, 0);
+
+    private final ScoreStore store;
+    private final Durability durability;
+    private final long groupCommitNanos;
+    private final ArrayBlockingQueue<ScoreRecord> queue;
+    private final Thread thread;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final Object progress = new Object();
+    private long written;
+    private long failed;
+    private volatile IOException lastError;
+    private volatile Runnable listener;
+    private volatile boolean closed;
+    private boolean refreshRequested; // a refresh was taken from the queue with this batch
+
+    /**
+     * Starts a writer.
+     * @param store the log scores are appended to
+     * @param durability when scores are written and whether they are forced
+     * @param groupCommitMillis how long a batch collects scores under GROUP_COMMIT and FSYNC
+     * @param capacity number of scores the queue holds before it drops them
+     */
+    public ScoreWriter(ScoreStore store, Durability durability, long groupCommitMillis,
+            int capacity) {
+        this.store = store;
+        this.durability = durability;
+        this.groupCommitNanos = TimeUnit.MILLISECONDS.toNanos(groupCommitMillis);
+        this.queue = new ArrayBlockingQueue<ScoreRecord>(capacity);
+        this.thread = new Thread(new Runnable() {
+            public void run() {
+                drain();
+            }
+        }, "score-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a won game without waiting for the disk.
+     * @return false if the writer is closed or its queue is full; the score is then dropped
+     */
+    public boolean submit(int time, int moves, BoardConfig config) {
+        ScoreRecord score = new ScoreRecord(-1, time, moves, config.getRows(), config.getCols(),
+                config.getMines());
+        if (closed || !queue.offer(score)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        // close() may have started since the check, after the writer thread found the queue
+        // empty and stopped. The score is taken back if it is still queued; if it is gone,
+        // the thread took it and writes it
+        if (closed && queue.remove(score)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Asks the writer thread to read records other processes have appended. The listener runs
+     * once it is done.
+     */
+    public void requestRefresh() {
+        // A full queue means a batch is on its way, and appending reads the new records anyway
+        queue.offer(REFRESH);
+    }
+
+    /**
+     * Sets the callback run on the writer thread after every batch or refresh.
+     * @param newListener the callback, or null for none
+     */
+    public void setListener(Runnable newListener) {
+        listener = newListener;
+    }
+
+    /**
+     * Waits until every score submitted before this call has been written or has failed.
+     * @param timeoutMillis the longest time to wait
+     * @return true if everything was handled in time
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (progress) {
+            while (written + failed < target) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(progress, left);
+            }
+        }
+        return true;
+    }
+
+    // Writer thread: takes the first score of a batch, collects more, and appends them
+    private void drain() {
+        List<ScoreRecord> batch = new ArrayList<ScoreRecord>();
+        while (!closed || !queue.isEmpty()) {
+            ScoreRecord first;
+            try {
+                first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.clear();
+            refreshRequested = false;
+            add(batch, first);
+            if (durability == Durability.FLUSH_PER_RECORD) {
+                addQueued(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    write(batch.subList(i, i + 1));
+                }
+            } else {
+                collect(batch);
+                write(batch);
+            }
+            if (refreshRequested) {
+                refresh();
+            }
+            Runnable current = listener;
+            if (current != null) {
+                current.run();
+            }
+        }
+    }
+
+    // Gathers scores until the group commit interval has passed or the writer is closing
+    private void collect(List<ScoreRecord> batch) {
+        long deadline = System.nanoTime() + groupCommitNanos;
+        while (!closed) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                break;
+            }
+            try {
+                ScoreRecord next = queue.poll(left, TimeUnit.NANOSECONDS);
+                if (next != null) {
+                    add(batch, next);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        addQueued(batch);
+    }
+
+    // Takes everything left in the queue without waiting
+    private void addQueued(List<ScoreRecord> batch) {
+        List<ScoreRecord> rest = new ArrayList<ScoreRecord>();
+        queue.drainTo(rest);
+        for (ScoreRecord score : rest) {
+            add(batch, score);
+        }
+    }
+
+    // Adds a score to the batch, or notes a refresh request, which is not a score
+    private void add(List<ScoreRecord> batch, ScoreRecord score) {
+        if (score == REFRESH) {
+            refreshRequested = true;
+        } else {
+            batch.add(score);
+        }
+    }
+
+    private void write(List<ScoreRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        boolean ok = false;
+        long start = EngineMetrics.start();
+        try {
+            store.appendAll(batch);
+            if (durability == Durability.FSYNC) {
+                store.force();
+            }
+            ok = true;
+            EngineMetrics.recordScoreIo(start, "append", batch.size());
+        } catch (IOException e) {
+            errors.incrementAndGet();
+            lastError = e;
+            LOGGER.log(Level.WARNING, "Could not write " + batch.size() + " scores", e);
+        } finally {
+            synchronized (progress) {
+                if (ok) {
+                    written += batch.size();
+                } else {
+                    failed += batch.size();
+                }
+                progress.notifyAll();
+            }
+        }
+    }
+
+    private void refresh() {
+        long start = EngineMetrics.start();
+        try {
+            store.refresh();
+            EngineMetrics.recordScoreIo(start, "refresh", 0);
+        } catch (IOException e) {
+            errors.incrementAndGet();
+            lastError = e;
+            LOGGER.log(Level.WARNING, "Could not refresh scores", e);
+        }
+    }
+
+    //Gets the number of scores written to the log
+    public long getWrittenCount() {
+        synchronized (progress) {
+            return written;
+        }
+    }
+
+    //Gets the number of scores lost: dropped from a full queue or in a failed write
+    public long getLostCount() {
+        synchronized (progress) {
+            return dropped.get() + failed;
+        }
+    }
+
+    //Gets the number of failed writes and refreshes
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    //Gets the most recent failure, or null if there has been none
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Stops taking scores, writes everything already queued and waits for the writer thread.
+     * The store itself stays open.
+     */
+    public void close() {
+        closed = true;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package minesweeper;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A generator that draws exactly what new SplittableRandom(seed) would, but can be given a
+ * new seed in place, so placing the mines of every game does not allocate a generator.
+ *
+ * Game seeds are stored in replay logs and snapshots and turned back into mine layouts, so
+ * the draws must stay the same as SplittableRandom's: the same SplitMix64 seed sequence and
+ * output mixing, with the bounded draws left to RandomGenerator's defaults as
+ * SplittableRandom leaves them.
+ */
+final class SeededRandom implements RandomGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long seed;
+
+    //Starts the sequence new SplittableRandom(newSeed) starts
+    void setSeed(long newSeed) {
+        seed = newSeed;
+    }
+
+    @Override
+    public int nextInt() {
+        long z = seed += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 33)) * 0x62A9D9ED799705F5L;
+        return (int) (((z ^ (z >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
+    }
+
+    @Override
+    public long nextLong() {
+        long z = seed += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
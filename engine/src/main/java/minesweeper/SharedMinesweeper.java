@@ -0,0 +1,238 @@
+package minesweeper;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Minesweeper for cooperative play, where many players flip cells on one board
+ * at the same time without a global lock.
+ *
+ * Mines and adjacent counts live in a BoardEngine that is written once, by the first flip,
+ * and only read afterwards. The revealed plane is an AtomicLongArray of packed bit-words: a
+ * cell is revealed by a compare-and-set of its bit, so exactly one thread wins every cell.
+ * Each flip cascades with its own queue and only expands the cells it won, so flood reveals
+ * started together by different players merge into one region with no cell revealed twice.
+ *
+ * The safe-cell counter is decremented once per flip by the number of cells that flip won,
+ * and the game state only leaves GAME_IN_PROGRESS through a compare-and-set, so the game is
+ * either won or lost exactly once. Flips that started before the game ended may still finish
+ * their cascade; flips that start afterwards are rejected.
+ */
+public final class SharedMinesweeper {
+
+    private final BoardConfig config;
+    private final BoardEngine board;
+    private final long gameSeed;
+    private final AtomicLongArray revealed;
+    private final AtomicInteger remainingSafeTiles;
+    private final AtomicInteger gameState = new AtomicInteger(GameConstants.GAME_IN_PROGRESS);
+    private volatile boolean minesPlaced;
+
+    // Every thread cascades with its own queue, which doubles as its last reveal
+    private final ThreadLocal<Cascade> cascades = new ThreadLocal<Cascade>() {
+        @Override
+        protected Cascade initialValue() {
+            return new Cascade();
+        }
+    };
+
+    /**
+     * Creates a shared game. Mines are placed by the first flip, keeping it safe.
+     * @param config the board dimensions and mine count
+     * @param seed seed of the mine layout
+     */
+    public SharedMinesweeper(BoardConfig config, long seed) {
+        this.config = config;
+        this.board = new BoardEngine(config.getRows(), config.getCols());
+        this.gameSeed = seed;
+        this.revealed = new AtomicLongArray((board.cellCount() + 63) >>> 6);
+        this.remainingSafeTiles = new AtomicInteger(config.getTotalTiles() - config.getMines());
+    }
+
+    /**
+     * Flips a cell for one player. Safe to call from any number of threads.
+     * The cells revealed by this call are available from getLastReveal() on the same thread.
+     * @param row the row coordinate
+     * @param col the column coordinate
+     * @return the number of cells this call revealed; 0 if the move is off the board, the game
+     *         is over, or another player revealed the cell first
+     */
+    public int flip(int row, int col) {
+        Cascade cascade = cascades.get();
+        cascade.size = 0;
+        if (!board.contains(row, col) || gameState.get() != GameConstants.GAME_IN_PROGRESS) {
+            return 0;
+        }
+        int cell = board.index(row, col);
+        if (!minesPlaced) {
+            placeMines(cell);
+        }
+        int count = cascade.reveal(cell);
+        if (count == 0) {
+            return 0;
+        }
+        if (board.isMine(cell)) {
+            gameState.compareAndSet(GameConstants.GAME_IN_PROGRESS, GameConstants.GAME_LOST);
+        } else if (remainingSafeTiles.addAndGet(-count) == 0) {
+            // Every safe cell is revealed once, so only the last flip sees zero
+            gameState.compareAndSet(GameConstants.GAME_IN_PROGRESS, GameConstants.GAME_WON);
+        }
+        return count;
+    }
+
+    // Only the first flip waits here; later flips see minesPlaced without locking
+    private synchronized void placeMines(int safeCell) {
+        if (!minesPlaced) {
+            MineSampler.placeAvoiding(board, config.getMines(), new SplittableRandom(gameSeed),
+                    safeCell);
+            minesPlaced = true;
+        }
+    }
+
+    // Sets the revealed bit of a cell; true only for the one thread that set it
+    private boolean reveal(int cell) {
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        long current = revealed.get(word);
+        while ((current & bit) == 0) {
+            long witness = revealed.compareAndExchange(word, current, current | bit);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    public boolean isRevealed(int cell) {
+        return (revealed.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    /**
+     * Returns whether a cell holds a mine. Every cell is mine-free until the first flip.
+     */
+    public boolean isMine(int cell) {
+        return minesPlaced && board.isMine(cell);
+    }
+
+    public int adjacentMines(int cell) {
+        return minesPlaced ? board.adjacentMines(cell) : 0;
+    }
+
+    /**
+     * Returns the cells revealed by the calling thread's most recent flip.
+     * The result is reused by that thread's next flip.
+     */
+    public Cascade getLastReveal() {
+        return cascades.get();
+    }
+
+    //Returns the current game state, a GameConstants game result
+    public int gameResult() {
+        return gameState.get();
+    }
+
+    //Gets the number of safe tiles no player has revealed yet
+    public int getSafeTiles() {
+        return remainingSafeTiles.get();
+    }
+
+    public boolean areMinesPlaced() {
+        return minesPlaced;
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    public int rows() {
+        return board.rows();
+    }
+
+    public int cols() {
+        return board.cols();
+    }
+
+    public int cellCount() {
+        return board.cellCount();
+    }
+
+    /**
+     * The cells revealed by one flip, in reveal order. Like FloodReveal, the work queue is a
+     * reusable int[] that doubles as the result, but a cell only enters it after this thread
+     * won the cell's revealed bit.
+     */
+    public final class Cascade {
+
+        private int[] cells = new int[64];
+        private int size;
+
+        private int reveal(int start) {
+            if (!SharedMinesweeper.this.reveal(start)) {
+                return 0;
+            }
+            push(start);
+            if (board.isMine(start)) {
+                return size;
+            }
+            int rows = board.rows();
+            int cols = board.cols();
+            int head = 0;
+            while (head < size) {
+                int cell = cells[head++];
+                if (board.adjacentMines(cell) != 0) {
+                    continue;
+                }
+                int row = cell / cols;
+                int col = cell - row * cols;
+                int rowEnd = Math.min(rows - 1, row + 1);
+                int colStart = Math.max(0, col - 1);
+                int colEnd = Math.min(cols - 1, col + 1);
+                for (int r = Math.max(0, row - 1); r <= rowEnd; r++) {
+                    int base = r * cols;
+                    for (int c = colStart; c <= colEnd; c++) {
+                        // A cell another player won is expanded by that player's cascade
+                        if (SharedMinesweeper.this.reveal(base + c)) {
+                            push(base + c);
+                        }
+                    }
+                }
+            }
+            return size;
+        }
+
+        /**
+         * Returns the number of cells revealed by the last flip.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the index of the k-th cell revealed by the last flip.
+         * @param k position in reveal order, 0 to size() - 1
+         */
+        public int cell(int k) {
+            if (k < 0 || k >= size) {
+                throw new IndexOutOfBoundsException("No revealed cell at " + k);
+            }
+            return cells[k];
+        }
+
+        /**
+         * Copies the cells revealed by the last flip into a new array.
+         */
+        public int[] toArray() {
+            return Arrays.copyOf(cells, size);
+        }
+
+        private void push(int cell) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, Math.min(BoardEngine.MAX_CELLS, cells.length << 1));
+            }
+            cells[size++] = cell;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package minesweeper;
+
+/**
+ * Totals from a batch of simulated games.
+ * Partial results from simulator workers are merged into one instance; the public getters
+ * report throughput, win rate, moves per game and cells revealed per move.
+ */
+public final class SimulationResult {
+
+    private long games;
+    private long wins;
+    private long losses;
+    private long abandoned;
+    private long moves;
+    private long revealedCells;
+    private int largestReveal;
+    private long elapsedNanos;
+
+    // Records one finished game
+    void addGame(int gameResult) {
+        games++;
+        if (gameResult == GameConstants.GAME_WON) {
+            wins++;
+        } else if (gameResult == GameConstants.GAME_LOST) {
+            losses++;
+        } else {
+            abandoned++;
+        }
+    }
+
+    // Records one successful move and the number of cells it revealed
+    void addMove(int revealed) {
+        moves++;
+        revealedCells += revealed;
+        if (revealed > largestReveal) {
+            largestReveal = revealed;
+        }
+    }
+
+    // Folds another partial result into this one
+    void merge(SimulationResult other) {
+        games += other.games;
+        wins += other.wins;
+        losses += other.losses;
+        abandoned += other.abandoned;
+        moves += other.moves;
+        revealedCells += other.revealedCells;
+        largestReveal = Math.max(largestReveal, other.largestReveal);
+    }
+
+    void setElapsedNanos(long nanos) {
+        elapsedNanos = nanos;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getLosses() {
+        return losses;
+    }
+
+    //Games the strategy gave up on or that hit an invalid move
+    public long getAbandoned() {
+        return abandoned;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getRevealedCells() {
+        return revealedCells;
+    }
+
+    public int getLargestReveal() {
+        return largestReveal;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    public double getAverageMoves() {
+        return games == 0 ? 0 : (double) moves / games;
+    }
+
+    public double getAverageRevealSize() {
+        return moves == 0 ? 0 : (double) revealedCells / moves;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games in %.2f s (%.0f games/s, %.1fM games/min): "
+                + "win rate %.2f%%, %d lost, %d abandoned, %.2f moves/game, "
+                + "%.2f cells/move, largest reveal %d",
+                games, elapsedNanos / 1e9, getGamesPerSecond(), getGamesPerSecond() * 60 / 1e6,
+                getWinRate() * 100, losses, abandoned, getAverageMoves(),
+                getAverageRevealSize(), largestReveal);
+    }
+}
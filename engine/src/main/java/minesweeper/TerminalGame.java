@@ -0,0 +1,372 @@
+package minesweeper;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Plays Minesweeper in a text terminal, drawn with ANSI escape sequences and driven from the
+ * keyboard, for machines without a display. Nothing here touches AWT or Swing, so it also
+ * starts much faster than Game.
+ *
+ * The whole board is drawn when a game starts. After that a move rewrites only the cells
+ * listed by its MoveEvent, and moving the cursor rewrites only the cell it leaves and the
+ * cell it enters. Every key therefore writes output in proportion to what changed, not to
+ * the size of the board. The output of one key is written and flushed in a single write.
+ *
+ * Keys:
+ * <pre>
+ *     arrows, h j k l   move the cursor
+ *     space             flip, or chord a revealed number
+ *     f                 flag or unflag
+ *     u / r             undo / redo
+ *     ?                 move the cursor to a safe cell
+ *     n                 new game
+ *     q                 quit
+ * </pre>
+ * When run from a console, main switches the terminal to raw mode with stty, so keys act as
+ * soon as they are pressed; it restores the previous mode on exit. Otherwise keys are read
+ * a line at a time. The board is drawn at full size, so it has to fit in the terminal.
+ */
+public final class TerminalGame {
+
+    private static final char ESC = 27;
+    // Screen rows above and below the board: a title line and a blank line, then status and help
+    private static final int BOARD_TOP = 3;
+    private static final String HELP =
+            "arrows/hjkl move  space flip  f flag  u undo  r redo  ? hint  n new  q quit";
+    // Colors of the numbers 1 to 8, as ANSI foreground codes
+    private static final int[] NUMBER_COLORS = {34, 32, 31, 35, 33, 36, 37, 90};
+
+    private final BoardConfig config;
+    private final Minesweeper game;
+    private final InputStream in;
+    private final Writer out;
+    private final StringBuilder frame = new StringBuilder(256);
+    private int cursor;
+    private int flags;
+    private int moves;
+    private long startTime;
+    private long seconds; // how long the finished game took
+    private String message = "";
+    private int escape; // how far into an arrow key escape sequence the input is, 0 to 2
+
+    /**
+     * Creates a game with random boards.
+     * @param config the board dimensions and mine count
+     * @param in the keys
+     * @param out the terminal
+     */
+    public TerminalGame(BoardConfig config, InputStream in, OutputStream out) {
+        this(config, new Minesweeper(config), in, out);
+    }
+
+    /**
+     * Creates a game with reproducible boards, as Minesweeper(config, seed) does.
+     */
+    public TerminalGame(BoardConfig config, long seed, InputStream in, OutputStream out) {
+        this(config, new Minesweeper(config, seed), in, out);
+    }
+
+    private TerminalGame(BoardConfig config, Minesweeper game, InputStream in, OutputStream out) {
+        this.config = config;
+        this.game = game;
+        this.in = in;
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII));
+        game.addMoveListener(new MoveListener() {
+            @Override
+            public void moveApplied(MoveEvent move) {
+                movePlayed(move);
+            }
+
+            @Override
+            public void gameReset(Minesweeper reset) {
+                newGame();
+            }
+        });
+        cursor = game.getEngine().index(config.getRows() / 2, config.getCols() / 2);
+        startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Draws the board and plays until q is pressed or the input ends, then restores the
+     * screen.
+     * @throws IOException if the terminal cannot be read or written
+     */
+    public void run() throws IOException {
+        // Alternate screen, hidden cursor
+        frame.append(ESC).append("[?1049h").append(ESC).append("[?25l");
+        drawBoard();
+        flush();
+        try {
+            int key;
+            while ((key = in.read()) >= 0 && key(key)) {
+                flush();
+            }
+        } finally {
+            frame.append(ESC).append("[0m").append(ESC).append("[?25h")
+                    .append(ESC).append("[?1049l");
+            flush();
+        }
+    }
+
+    /**
+     * Handles one byte of input, queueing the screen updates it causes.
+     * @param key the byte read
+     * @return false if the player quit
+     */
+    boolean key(int key) {
+        // Arrow keys arrive as ESC [ A to ESC [ D
+        if (escape == 1 && key == '[') {
+            escape = 2;
+            return true;
+        }
+        if (escape == 2) {
+            escape = 0;
+            switch (key) {
+                case 'A': moveCursor(-1, 0); break;
+                case 'B': moveCursor(1, 0); break;
+                case 'C': moveCursor(0, 1); break;
+                case 'D': moveCursor(0, -1); break;
+                default: break;
+            }
+            return true;
+        }
+        escape = 0;
+        BoardEngine board = game.getEngine();
+        int row = board.rowOf(cursor);
+        int col = board.colOf(cursor);
+        switch (key) {
+            case ESC:
+                escape = 1;
+                break;
+            case 'k': moveCursor(-1, 0); break;
+            case 'j': moveCursor(1, 0); break;
+            case 'l': moveCursor(0, 1); break;
+            case 'h': moveCursor(0, -1); break;
+            case ' ':
+                if (board.isRevealed(cursor)) {
+                    game.chord(row, col);
+                } else {
+                    game.flip(row, col);
+                }
+                break;
+            case 'f':
+                game.setFlagged(row, col, !board.isFlagged(cursor));
+                break;
+            case 'u':
+                game.undo();
+                break;
+            case 'r':
+                game.redo();
+                break;
+            case '?':
+                hint();
+                break;
+            case 'n':
+                game.reset();
+                break;
+            case 'q':
+                return false;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    //Moves the cursor onto a provably safe cell, or tells the player a guess is needed
+    private void hint() {
+        int cell = game.hint();
+        if (cell >= 0) {
+            setCursor(cell);
+        } else if (game.gameResult() == GameConstants.GAME_IN_PROGRESS) {
+            message = "No safe move left - time to guess!";
+            drawStatus();
+        }
+    }
+
+    private void moveCursor(int rows, int cols) {
+        BoardEngine board = game.getEngine();
+        int row = board.rowOf(cursor) + rows;
+        int col = board.colOf(cursor) + cols;
+        if (board.contains(row, col)) {
+            setCursor(board.index(row, col));
+        }
+    }
+
+    private void setCursor(int cell) {
+        int previous = cursor;
+        cursor = cell;
+        drawCell(previous);
+        drawCell(cell);
+    }
+
+    // Counts the move and redraws the cells it changed and the status line
+    private void movePlayed(MoveEvent move) {
+        if (move.getKind() == MoveEvent.FLAG) {
+            flags += game.getEngine().isFlagged(move.getMoveCell()) ? 1 : -1;
+        } else {
+            // As in GameBoard, taking a move back costs two
+            moves += move.getKind() == MoveEvent.UNDO ? 2 : 1;
+        }
+        int[] cells = move.cells();
+        for (int i = 0; i < move.getCellCount(); i++) {
+            drawCell(cells[i]);
+        }
+        if (move.isStateChanged() && move.getState() != GameConstants.GAME_IN_PROGRESS) {
+            seconds = (System.currentTimeMillis() - startTime) / 1000;
+        }
+        message = "";
+        drawStatus();
+    }
+
+    // Starts over on a cleared board, redrawing all of it as every cell may have changed
+    private void newGame() {
+        flags = 0;
+        moves = 0;
+        message = "";
+        startTime = System.currentTimeMillis();
+        drawBoard();
+    }
+
+    /**
+     * Clears the screen and draws the title, every cell, the status and the help line.
+     * Text is appended piece by piece rather than joined with +, which Java 9 and later
+     * compile to invokedynamic; bootstrapping that takes longer than the rest of the start.
+     */
+    private void drawBoard() {
+        frame.append(ESC).append("[0m").append(ESC).append("[2J").append(ESC).append("[1;1H")
+                .append("Minesweeper ").append(config.getName()).append(' ')
+                .append(config.getRows()).append('x').append(config.getCols()).append(" (")
+                .append(config.getMines()).append(" mines)");
+        BoardEngine board = game.getEngine();
+        for (int row = 0; row < board.rows(); row++) {
+            frame.append(ESC).append('[').append(BOARD_TOP + row).append(";1H");
+            for (int col = 0; col < board.cols(); col++) {
+                appendCell(board.index(row, col));
+            }
+        }
+        frame.append(ESC).append("[0m").append(ESC).append('[')
+                .append(BOARD_TOP + board.rows() + 2).append(";1H").append(HELP);
+        drawStatus();
+    }
+
+    // Moves to a cell's place on the screen and draws it
+    private void drawCell(int cell) {
+        BoardEngine board = game.getEngine();
+        frame.append(ESC).append('[').append(BOARD_TOP + board.rowOf(cell)).append(';')
+                .append(2 * board.colOf(cell) + 1).append('H');
+        appendCell(cell);
+    }
+
+    // Draws a cell two characters wide from where the screen cursor is, in its own colors
+    private void appendCell(int cell) {
+        BoardEngine board = game.getEngine();
+        frame.append(ESC).append(cell == cursor ? "[0;7m " : "[0m ");
+        if (board.isFlagged(cell)) {
+            frame.append(ESC).append("[31mF");
+        } else if (!board.isRevealed(cell)) {
+            frame.append('#');
+        } else if (board.isMine(cell)) {
+            frame.append(ESC).append("[1;31m*");
+        } else {
+            int number = board.adjacentMines(cell);
+            if (number == 0) {
+                frame.append('.');
+            } else {
+                frame.append(ESC).append('[').append(NUMBER_COLORS[number - 1]).append('m')
+                        .append((char) ('0' + number));
+            }
+        }
+    }
+
+    private void drawStatus() {
+        frame.append(ESC).append("[0m").append(ESC).append('[')
+                .append(BOARD_TOP + game.getEngine().rows() + 1).append(";1H").append(ESC)
+                .append("[2KMines left: ").append(config.getMines() - flags)
+                .append("  NumMoves: ").append(moves);
+        int result = game.gameResult();
+        if (result != GameConstants.GAME_IN_PROGRESS) {
+            frame.append(result == GameConstants.GAME_WON ? "   You won!!!" : "   You lost")
+                    .append("  Time: ").append(seconds);
+        } else if (!message.isEmpty()) {
+            frame.append("   ").append(message);
+        }
+    }
+
+    // Writes everything queued since the last flush in one go
+    private void flush() throws IOException {
+        out.append(frame);
+        out.flush();
+        frame.setLength(0);
+    }
+
+    //Gets the game being played
+    Minesweeper getModel() {
+        return game;
+    }
+
+    //Gets the cell under the cursor
+    int getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Runs a command with the terminal as its input, which is how stty finds the terminal.
+     * @return its output, or null if it could not be run or failed
+     */
+    private static String stty(String... args) throws InterruptedException {
+        String[] command = new String[args.length + 1];
+        command[0] = "stty";
+        System.arraycopy(args, 0, command, 1, args.length);
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectInput(ProcessBuilder.Redirect.INHERIT)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            process.getInputStream().transferTo(output);
+            return process.waitFor() == 0 ? output.toString(StandardCharsets.US_ASCII).trim()
+                    : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts a terminal game. Takes the same arguments as Game: an optional preset name
+     * (beginner, intermediate, expert) or rows cols mines.
+     * Engine timings are published over JMX only with -Dminesweeper.metrics=true, as the
+     * platform MBean server alone takes longer to start than this front end.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BoardConfig config = BoardConfig.fromArgs(args);
+        if (Boolean.getBoolean("minesweeper.metrics")) {
+            EngineMetrics.register();
+        }
+        final String saved = System.console() == null ? null : stty("-g");
+        if (saved != null) {
+            stty("-icanon", "-echo", "min", "1");
+            // Also on Ctrl-C, which stays on in this mode
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        stty(saved);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "terminal-restore"));
+        }
+        new TerminalGame(config, new FileInputStream(FileDescriptor.in),
+                new FileOutputStream(FileDescriptor.out)).run();
+    }
+}
@@ -0,0 +1,118 @@
+package minesweeper;
+
+import java.util.ArrayList;
+//Tile class. A thin view of one cell of a BoardEngine; all state lives in the engine.
+public class Tile {
+
+    //Tile parameters
+    private final BoardEngine board;
+    private final int xPos;
+    private final int yPos;
+
+    //Constructor
+    public Tile(BoardEngine boardInstance, int x, int y) {
+        this.board = boardInstance;
+        this.xPos = x;
+        this.yPos = y;
+    }
+
+    //For views that find their cell themselves; they override every method that reads it
+    protected Tile() {
+        this(null, 0, 0);
+    }
+
+    //Neighbors are derived from the engine on demand, so there is nothing to cache
+    public void setNeighbors() {
+    }
+
+    //Finds the number of bombs around the tile
+    public int findNumBombs() {
+        if (!this.isBomb()) {
+            return board.adjacentMines(cell());
+        }
+        return -1;
+    }
+
+    //Flips the tile
+    public void flipTile() {
+        board.reveal(cell());
+    }
+
+    //Unflips tile
+    public void unflipTile() {
+        board.hide(cell());
+    }
+
+    //Returns number of bombs around tile
+    public int getNumBombs() {
+        return findNumBombs();
+    }
+
+    //checks if tile is flipped
+    public boolean isFlipped() {
+        return board.isRevealed(cell());
+    }
+
+    //checks if tile is a bomb
+    public boolean isBomb() {
+        return board.isMine(cell());
+    }
+
+    public void setBomb(boolean bombOrNot) {
+        if (bombOrNot) {
+            board.placeMine(cell());
+        } else {
+            board.removeMine(cell());
+        }
+    }
+
+    //checks if tile is flagged
+    public boolean isFlagged() {
+        return board.isFlagged(cell());
+    }
+
+    //gets x position of the tile
+    public int getXPos() {
+        return xPos;
+    }
+
+    //gets y position of the tile
+    public int getYPos() {
+        return yPos;
+    }
+
+    //gets the neighbors of the tile
+    public ArrayList<Tile> getNeighbors() {
+        ArrayList<Tile> neighbors = new ArrayList<Tile>(8);
+        if (!this.isBomb()) {
+            for (int row = xPos - 1; row <= xPos + 1; row++) {
+                for (int col = yPos - 1; col <= yPos + 1; col++) {
+                    if ((row != xPos || col != yPos) && board.contains(row, col)) {
+                        neighbors.add(new Tile(board, row, col));
+                    }
+                }
+            }
+        }
+        return neighbors;
+    }
+
+    //Tiles are views, so two tiles are equal when they point at the same cell
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Tile)) {
+            return false;
+        }
+        Tile other = (Tile) o;
+        return board == other.board && xPos == other.xPos && yPos == other.yPos;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * xPos + yPos;
+    }
+
+    private int cell() {
+        return board.index(xPos, yPos);
+    }
+
+}
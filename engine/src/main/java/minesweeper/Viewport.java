@@ -0,0 +1,185 @@
+package minesweeper;
+
+/**
+ * Zoom and pan state of a window onto a board that may be far larger than the screen.
+ * The scale is one of a fixed set of zoom levels: a whole number of pixels per cell, or a
+ * whole number of cells per pixel when zoomed far out, so cells always line up with pixels.
+ * The position is the cell coordinate of the window's top-left corner, kept on a whole pixel.
+ */
+public final class Viewport {
+
+    // Pixels per cell; negative entries -k mean k cells per pixel
+    private static final int[] LEVELS = {
+        -64, -32, -16, -8, -4, -2, 1, 2, 3, 4, 6, 8, 12, 16, 24, 32, 50, 64
+    };
+
+    private final int rows;
+    private final int cols;
+    private int width;
+    private int height;
+    private int level;
+    private double left;
+    private double top;
+
+    /**
+     * Creates a viewport showing the whole board, or as much of it as the zoom levels allow.
+     * @param rows board height in cells
+     * @param cols board width in cells
+     * @param width window width in pixels
+     * @param height window height in pixels
+     */
+    public Viewport(int rows, int cols, int width, int height) {
+        this.rows = rows;
+        this.cols = cols;
+        this.width = width;
+        this.height = height;
+        fit();
+    }
+
+    //Picks the closest zoom level that fits the whole board and centers it
+    public void fit() {
+        level = 0;
+        for (int i = LEVELS.length - 1; i >= 0; i--) {
+            if (cols * scaleOf(i) <= width && rows * scaleOf(i) <= height) {
+                level = i;
+                break;
+            }
+        }
+        left = (cols - width / getScale()) / 2;
+        top = (rows - height / getScale()) / 2;
+        clamp();
+    }
+
+    /**
+     * Moves to another zoom level, keeping the cell under the given point in place.
+     * @param steps number of levels to zoom in, negative to zoom out
+     * @param x window x coordinate of the fixed point
+     * @param y window y coordinate of the fixed point
+     * @return true if the zoom level changed
+     */
+    public boolean zoomAt(int steps, int x, int y) {
+        int next = Math.max(0, Math.min(LEVELS.length - 1, level + steps));
+        if (next == level) {
+            return false;
+        }
+        double col = left + x / getScale();
+        double row = top + y / getScale();
+        level = next;
+        left = col - x / getScale();
+        top = row - y / getScale();
+        clamp();
+        return true;
+    }
+
+    /**
+     * Moves the view by a drag of the given number of pixels.
+     */
+    public void pan(int dx, int dy) {
+        left -= dx / getScale();
+        top -= dy / getScale();
+        clamp();
+    }
+
+    /**
+     * Centers the view on a cell position.
+     */
+    public void centerOn(double row, double col) {
+        left = col - width / getScale() / 2;
+        top = row - height / getScale() / 2;
+        clamp();
+    }
+
+    public void setSize(int newWidth, int newHeight) {
+        width = newWidth;
+        height = newHeight;
+        clamp();
+    }
+
+    // Keeps the board on screen: centered when it fits, otherwise with no gap at the edges
+    private void clamp() {
+        double visibleCols = width / getScale();
+        double visibleRows = height / getScale();
+        left = visibleCols >= cols ? (cols - visibleCols) / 2
+                : Math.max(0, Math.min(cols - visibleCols, left));
+        top = visibleRows >= rows ? (rows - visibleRows) / 2
+                : Math.max(0, Math.min(rows - visibleRows, top));
+        // Whole pixels, so cells line up with the screen
+        left = Math.round(left * getScale()) / getScale();
+        top = Math.round(top * getScale()) / getScale();
+    }
+
+    /**
+     * Returns the cell under a window point.
+     * @return the cell index, or -1 outside the board
+     */
+    public int cellAt(int x, int y) {
+        int col = (int) Math.floor(left + x / getScale());
+        int row = (int) Math.floor(top + y / getScale());
+        if (row < 0 || col < 0 || row >= rows || col >= cols) {
+            return -1;
+        }
+        return row * cols + col;
+    }
+
+    private static double scaleOf(int level) {
+        int value = LEVELS[level];
+        return value > 0 ? value : -1.0 / value;
+    }
+
+    //Gets the number of pixels per cell; below 1 when several cells share a pixel
+    public double getScale() {
+        return scaleOf(level);
+    }
+
+    //Gets the whole number of pixels per cell, or 0 when zoomed out below one
+    public int getPixelsPerCell() {
+        return Math.max(0, LEVELS[level]);
+    }
+
+    //Gets the whole number of cells per pixel, 1 when zoomed in
+    public int getCellsPerPixel() {
+        return LEVELS[level] > 0 ? 1 : -LEVELS[level];
+    }
+
+    //Gets the window x coordinate of the board's left edge
+    public int getOffsetX() {
+        return (int) -Math.round(left * getScale());
+    }
+
+    //Gets the window y coordinate of the board's top edge
+    public int getOffsetY() {
+        return (int) -Math.round(top * getScale());
+    }
+
+    //Gets the column at the left edge of the window; negative when the board is centered
+    public double getLeft() {
+        return left;
+    }
+
+    //Gets the row at the top edge of the window; negative when the board is centered
+    public double getTop() {
+        return top;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    //Checks whether the whole board is in the window
+    public boolean showsWholeBoard() {
+        return left <= 0 && top <= 0 && left + width / getScale() >= cols
+                && top + height / getScale() >= rows;
+    }
+}
@@ -0,0 +1,331 @@
+package minesweeper;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Draws the part of a board inside a Viewport, with less detail the further out it is zoomed.
+ *
+ * Only visible cells are drawn, at one of three levels of detail:
+ * SPRITES at 12 or more pixels per cell uses a BoardRenderer sized to the zoom level;
+ * CELLS fills an image with one pixel per visible cell (or per sampled cell when several share
+ * a screen pixel) and scales it to the screen; OVERVIEW scales a downsampled image of the
+ * whole board in which each pixel blends a square block of cells. The overview is updated
+ * block by block as cells change, and also backs the minimap shown when the board does not
+ * fit in the window.
+ */
+public final class ViewportRenderer {
+
+    /**
+     * How a frame was drawn.
+     */
+    public enum Detail {
+        SPRITES, CELLS, OVERVIEW
+    }
+
+    private static final int SPRITE_PIXELS = 12;
+    private static final int OVERVIEW_SIZE = 1024;
+    private static final int MINIMAP_SIZE = 160;
+    private static final int MINIMAP_MARGIN = 8;
+
+    private static final int HIDDEN = 0x9A9A9A;
+    private static final int REVEALED = 0xE6E6E6;
+    private static final int MINE = 0xD03030;
+    private static final int FLAG = 0xF08020;
+    private static final int HINT = 0x00FF00;
+    private static final int[] NUMBERS = {
+        REVEALED, 0x8080F0, 0x80C080, 0xF08080, 0x6060C0, 0xC06060, 0x60C0C0, 0x606060,
+        0xA0A0A0
+    };
+
+    private BoardRenderer sprites;
+
+    private BufferedImage cells;
+    private int[] cellPixels;
+
+    private BoardEngine board;
+    private int step;
+    private int overviewCols;
+    private int overviewRows;
+    private BufferedImage overview;
+    private int[] overviewPixels;
+    private long[] dirty;
+    private int[] dirtyList = new int[64];
+    private int dirtyCount;
+
+    private Detail lastDetail;
+    private long lastPaintNanos;
+    private long totalPaintNanos;
+    private long frames;
+
+    /**
+     * Starts drawing a new game: the overview is rebuilt from what the board shows now.
+     * @param newBoard the board of the new game
+     */
+    public void boardReset(BoardEngine newBoard) {
+        if (board != newBoard || overview == null) {
+            board = newBoard;
+            step = Math.max(1, (Math.max(board.rows(), board.cols()) + OVERVIEW_SIZE - 1)
+                    / OVERVIEW_SIZE);
+            overviewCols = (board.cols() + step - 1) / step;
+            overviewRows = (board.rows() + step - 1) / step;
+            overview = new BufferedImage(overviewCols, overviewRows,
+                    BufferedImage.TYPE_INT_RGB);
+            overviewPixels = ((DataBufferInt) overview.getRaster().getDataBuffer()).getData();
+            dirty = new long[(overviewPixels.length + 63) >>> 6];
+        }
+        Arrays.fill(overviewPixels, HIDDEN);
+        Arrays.fill(dirty, 0L);
+        dirtyCount = 0;
+        long[] revealed = board.revealedPlane();
+        for (int word = 0; word < revealed.length; word++) {
+            long bits = revealed[word] | board.flaggedPlane()[word];
+            while (bits != 0) {
+                cellChanged((word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        if (sprites != null) {
+            sprites.invalidate();
+        }
+    }
+
+    /**
+     * Records the cells a move revealed or hid, so their overview blocks are redrawn.
+     */
+    public void cellsChanged(MoveEvent move) {
+        for (int i = 0; i < move.getCellCount(); i++) {
+            cellChanged(move.getCell(i));
+        }
+    }
+
+    /**
+     * Records one changed cell, e.g. one hidden again by an undo or a new flag.
+     */
+    public void cellChanged(int cell) {
+        int row = cell / board.cols();
+        int col = cell - row * board.cols();
+        int pixel = (row / step) * overviewCols + col / step;
+        long bit = 1L << pixel;
+        if ((dirty[pixel >>> 6] & bit) == 0) {
+            dirty[pixel >>> 6] |= bit;
+            if (dirtyCount == dirtyList.length) {
+                dirtyList = Arrays.copyOf(dirtyList, dirtyCount << 1);
+            }
+            dirtyList[dirtyCount++] = pixel;
+        }
+    }
+
+    /**
+     * Paints the visible cells of the board and, when the board does not fit, the minimap.
+     * @param g graphics in window coordinates
+     * @param board the board; boardReset must have been called for it
+     * @param hintCell the highlighted cell, or -1
+     * @param view the window onto the board
+     * @param background color of the window behind the board and of hidden sprite cells
+     */
+    public void paint(Graphics2D g, BoardEngine board, int hintCell, Viewport view,
+            Color background) {
+        long start = System.nanoTime();
+        if (this.board != board) {
+            boardReset(board);
+        }
+        updateOverview();
+        g.setColor(background);
+        g.fillRect(0, 0, view.getWidth(), view.getHeight());
+        int pixelsPerCell = view.getPixelsPerCell();
+        if (pixelsPerCell >= SPRITE_PIXELS) {
+            paintSprites(g, hintCell, view, pixelsPerCell, background);
+            lastDetail = Detail.SPRITES;
+        } else if (view.getCellsPerPixel() < step) {
+            paintCells(g, hintCell, view);
+            lastDetail = Detail.CELLS;
+        } else {
+            paintOverview(g, view);
+            lastDetail = Detail.OVERVIEW;
+        }
+        if (!view.showsWholeBoard()) {
+            paintMinimap(g, view);
+        }
+        lastPaintNanos = System.nanoTime() - start;
+        totalPaintNanos += lastPaintNanos;
+        frames++;
+    }
+
+    private void paintSprites(Graphics2D g, int hintCell, Viewport view, int pixelsPerCell,
+            Color background) {
+        if (sprites == null || sprites.getCellSize() != pixelsPerCell) {
+            sprites = new BoardRenderer(pixelsPerCell);
+        }
+        int ox = view.getOffsetX();
+        int oy = view.getOffsetY();
+        Graphics2D boardGraphics = (Graphics2D) g.create();
+        boardGraphics.translate(ox, oy);
+        boardGraphics.clipRect(-ox, -oy, view.getWidth(), view.getHeight());
+        sprites.paint(boardGraphics, board, hintCell,
+                new Rectangle(-ox, -oy, view.getWidth(), view.getHeight()), background);
+        boardGraphics.dispose();
+    }
+
+    // One image pixel per visible cell, or per sampled cell when several share a pixel
+    private void paintCells(Graphics2D g, int hintCell, Viewport view) {
+        int perPixel = view.getCellsPerPixel();
+        int scale = Math.max(1, view.getPixelsPerCell());
+        int cols = board.cols();
+        int firstCol = Math.max(0, (int) Math.floor(view.getLeft()));
+        int firstRow = Math.max(0, (int) Math.floor(view.getTop()));
+        int endCol = Math.min(cols,
+                (int) Math.ceil(view.getLeft() + view.getWidth() / view.getScale()));
+        int endRow = Math.min(board.rows(),
+                (int) Math.ceil(view.getTop() + view.getHeight() / view.getScale()));
+        int width = (endCol - firstCol + perPixel - 1) / perPixel;
+        int height = (endRow - firstRow + perPixel - 1) / perPixel;
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (cells == null || cells.getWidth() < width || cells.getHeight() < height) {
+            cells = new BufferedImage(Math.max(width, view.getWidth() + 1),
+                    Math.max(height, view.getHeight() + 1), BufferedImage.TYPE_INT_RGB);
+            cellPixels = ((DataBufferInt) cells.getRaster().getDataBuffer()).getData();
+        }
+        int stride = cells.getWidth();
+        for (int y = 0; y < height; y++) {
+            int base = (firstRow + y * perPixel) * cols + firstCol;
+            int out = y * stride;
+            for (int x = 0; x < width; x++) {
+                cellPixels[out + x] = colorOf(base + x * perPixel, hintCell);
+            }
+        }
+        int dx = view.getOffsetX() + (int) Math.round(firstCol * view.getScale());
+        int dy = view.getOffsetY() + (int) Math.round(firstRow * view.getScale());
+        g.drawImage(cells, dx, dy, dx + width * scale, dy + height * scale, 0, 0, width,
+                height, null);
+    }
+
+    private void paintOverview(Graphics2D g, Viewport view) {
+        int ox = view.getOffsetX();
+        int oy = view.getOffsetY();
+        double pixelsPerBlock = step * view.getScale();
+        g.drawImage(overview, ox, oy, ox + (int) Math.round(overviewCols * pixelsPerBlock),
+                oy + (int) Math.round(overviewRows * pixelsPerBlock), 0, 0, overviewCols,
+                overviewRows, null);
+    }
+
+    private void paintMinimap(Graphics2D g, Viewport view) {
+        Rectangle map = minimapBounds(view);
+        g.drawImage(overview, map.x, map.y, map.x + map.width, map.y + map.height, 0, 0,
+                overviewCols, overviewRows, null);
+        g.setColor(Color.BLACK);
+        g.drawRect(map.x - 1, map.y - 1, map.width + 1, map.height + 1);
+        double sx = (double) map.width / board.cols();
+        double sy = (double) map.height / board.rows();
+        int x = map.x + (int) Math.floor(Math.max(0, view.getLeft()) * sx);
+        int y = map.y + (int) Math.floor(Math.max(0, view.getTop()) * sy);
+        int w = Math.max(2, (int) Math.ceil(Math.min(board.cols(),
+                view.getWidth() / view.getScale()) * sx));
+        int h = Math.max(2, (int) Math.ceil(Math.min(board.rows(),
+                view.getHeight() / view.getScale()) * sy));
+        g.setColor(Color.RED);
+        g.drawRect(x, y, Math.min(w, map.x + map.width - x),
+                Math.min(h, map.y + map.height - y));
+    }
+
+    /**
+     * Returns where the minimap is drawn in the window, keeping the board's aspect ratio.
+     */
+    public Rectangle minimapBounds(Viewport view) {
+        int rows = view.getRows();
+        int cols = view.getCols();
+        int width = cols >= rows ? MINIMAP_SIZE : Math.max(1, MINIMAP_SIZE * cols / rows);
+        int height = rows >= cols ? MINIMAP_SIZE : Math.max(1, MINIMAP_SIZE * rows / cols);
+        return new Rectangle(view.getWidth() - width - MINIMAP_MARGIN,
+                view.getHeight() - height - MINIMAP_MARGIN, width, height);
+    }
+
+    /**
+     * Centers the view on the board position under a minimap point.
+     * @return false if the point is not on the minimap or the minimap is hidden
+     */
+    public boolean minimapClicked(Viewport view, int x, int y) {
+        Rectangle map = minimapBounds(view);
+        if (view.showsWholeBoard() || !map.contains(x, y)) {
+            return false;
+        }
+        view.centerOn((y - map.y) * (double) view.getRows() / map.height,
+                (x - map.x) * (double) view.getCols() / map.width);
+        return true;
+    }
+
+    // Redraws the overview blocks that contain changed cells
+    private void updateOverview() {
+        for (int i = 0; i < dirtyCount; i++) {
+            int pixel = dirtyList[i];
+            dirty[pixel >>> 6] &= ~(1L << pixel);
+            overviewPixels[pixel] = blockColor(pixel / overviewCols, pixel % overviewCols);
+        }
+        dirtyCount = 0;
+    }
+
+    private int blockColor(int blockRow, int blockCol) {
+        int rowEnd = Math.min(board.rows(), (blockRow + 1) * step);
+        int colEnd = Math.min(board.cols(), (blockCol + 1) * step);
+        int revealed = 0;
+        int total = 0;
+        boolean flag = false;
+        for (int row = blockRow * step; row < rowEnd; row++) {
+            for (int col = blockCol * step; col < colEnd; col++) {
+                int cell = row * board.cols() + col;
+                total++;
+                if (board.isRevealed(cell)) {
+                    if (board.isMine(cell)) {
+                        return MINE;
+                    }
+                    revealed++;
+                } else if (board.isFlagged(cell)) {
+                    flag = true;
+                }
+            }
+        }
+        if (flag) {
+            return FLAG;
+        }
+        return blend(HIDDEN, REVEALED, revealed, total);
+    }
+
+    private int colorOf(int cell, int hintCell) {
+        if (board.isRevealed(cell)) {
+            return board.isMine(cell) ? MINE : NUMBERS[board.adjacentMines(cell)];
+        }
+        if (board.isFlagged(cell)) {
+            return FLAG;
+        }
+        return cell == hintCell ? HINT : HIDDEN;
+    }
+
+    // Mixes two RGB colors in the ratio part / total
+    private static int blend(int from, int to, int part, int total) {
+        int r = ((from >> 16 & 0xFF) * (total - part) + (to >> 16 & 0xFF) * part) / total;
+        int g = ((from >> 8 & 0xFF) * (total - part) + (to >> 8 & 0xFF) * part) / total;
+        int b = ((from & 0xFF) * (total - part) + (to & 0xFF) * part) / total;
+        return r << 16 | g << 8 | b;
+    }
+
+    //Gets the level of detail of the last frame
+    public Detail getLastDetail() {
+        return lastDetail;
+    }
+
+    //Gets the time the last frame took, in nanoseconds
+    public long getLastPaintNanos() {
+        return lastPaintNanos;
+    }
+
+    //Gets the mean frame time, in nanoseconds
+    public long getAveragePaintNanos() {
+        return frames == 0 ? 0 : totalPaintNanos / frames;
+    }
+}
@@ -0,0 +1,1580 @@
+package minesweeper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.JLabel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class Tests {
+
+    @Test
+    public void testBombTiles() {
+        Minesweeper m = new Minesweeper(true);
+        Tile bombTile = m.getTile(0, 1);
+        assertTrue(bombTile.isBomb());
+        assertFalse(bombTile.isFlipped());
+        bombTile.flipTile();
+        assertTrue(bombTile.isFlipped());
+        bombTile.unflipTile();
+        assertFalse(bombTile.isFlipped());
+        bombTile.setNeighbors();
+        assertEquals(-1, bombTile.findNumBombs());
+        assertEquals(0, bombTile.getXPos());
+        assertEquals(1, bombTile.getYPos());
+    }
+    
+    @Test
+    public void testSafeTiles() {
+        Minesweeper m = new Minesweeper(true);
+        Tile[][] board1 = m.getBoard();
+        Tile safeTile = m.getTile(1, 0);
+        Tile bombTile1 = board1[0][0];
+        Tile bombTile2 = board1[0][1];
+        assertFalse(safeTile.isBomb());
+        assertFalse(safeTile.isFlipped());
+        safeTile.flipTile();
+        assertTrue(safeTile.isFlipped());
+        safeTile.unflipTile();
+        assertFalse(safeTile.isFlipped());
+        safeTile.setNeighbors();
+        ArrayList<Tile> neighbors = safeTile.getNeighbors();
+        neighbors.contains(bombTile1);
+        neighbors.contains(bombTile2);
+        assertEquals(2, safeTile.findNumBombs());
+        assertEquals(1, safeTile.getXPos());
+        assertEquals(0, safeTile.getYPos());
+    }
+    
+    @Test
+    public void testSafeTilesWithNoBombs() {
+        Minesweeper m = new Minesweeper(true);
+        Tile[][] board1 = m.getBoard();
+        Tile safeTile = board1[7][7];
+        assertFalse(safeTile.isBomb());
+        safeTile.setNeighbors();
+        assertEquals(0, safeTile.findNumBombs());
+    }
+    
+    @Test
+    public void testMinesweeperExplosion() {
+        Minesweeper m = new Minesweeper(true);
+        Tile[][] board1 = m.getBoard();
+        m.flip(2, 0);
+        assertTrue(board1[1][0].isFlipped());
+        assertTrue(board1[1][1].isFlipped());
+        assertTrue(board1[2][0].isFlipped());
+        assertTrue(board1[2][1].isFlipped());
+        assertTrue(board1[3][0].isFlipped());
+        assertTrue(board1[3][1].isFlipped());
+    }
+    
+    @Test
+    public void testMinesweeperGameOverLoss() {
+        Minesweeper m = new Minesweeper(true);
+        m.flip(0, 0);
+        assertEquals(-1,  m.gameResult());
+        m.reset();
+        assertEquals(0,  m.gameResult());
+    }
+    
+    @Test
+    public void testMinesweeperGameOverWin() {
+        Minesweeper m = new Minesweeper(true);
+        assertEquals(m.getSafeTiles(), 56);
+        m.flip(1, 0);
+        assertEquals(m.getSafeTiles(), 55);
+        assertEquals(0,  m.gameResult());
+        for (int i = 1; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                m.flip(i, j);
+            }
+        }
+        assertEquals(1,  m.gameResult());
+        m.reset();
+        assertEquals(0,  m.gameResult());
+    }
+    
+    @Test
+    public void testMinesweeperUnflip() {
+        Minesweeper m = new Minesweeper(true);
+        Tile[][] board1 = m.getBoard();
+        m.flip(1, 0);
+        assertEquals(0,  m.gameResult());
+        assertTrue(board1[1][0].isFlipped());
+        assertFalse(m.unflip());
+        assertEquals(0,  m.gameResult());
+        m.flip(0, 0);
+        assertEquals(-1,  m.gameResult());
+        assertTrue(board1[0][0].isFlipped());
+        assertTrue(m.unflip());
+        assertEquals(0,  m.gameResult());
+        assertFalse(board1[0][0].isFlipped());
+    }
+    
+    @Test
+    public void testBoardEngineCounts() {
+        BoardEngine engine = new BoardEngine(3, 4);
+        assertTrue(engine.placeMine(engine.index(1, 1)));
+        assertFalse(engine.placeMine(engine.index(1, 1)));
+        assertEquals(1, engine.mineCount());
+        assertEquals(1, engine.adjacentMines(engine.index(0, 0)));
+        assertEquals(0, engine.adjacentMines(engine.index(0, 3)));
+        assertTrue(engine.removeMine(engine.index(1, 1)));
+        assertEquals(0, engine.adjacentMines(engine.index(0, 0)));
+        assertTrue(engine.reveal(5));
+        assertFalse(engine.reveal(5));
+        assertTrue(engine.isRevealed(5));
+        engine.clear();
+        assertFalse(engine.isRevealed(5));
+    }
+    
+    @Test
+    public void testBoardEngineLargeBoard() {
+        BoardEngine engine = new BoardEngine(4000, 4000);
+        int last = engine.cellCount() - 1;
+        engine.placeMine(last);
+        assertTrue(engine.isMine(last));
+        assertEquals(1, engine.adjacentMines(last - 1));
+        assertTrue(engine.footprintBytes() < 2L * engine.cellCount());
+    }
+    
+    @Test
+    public void testFloodRevealBatch() {
+        Minesweeper m = new Minesweeper(true);
+        m.flip(2, 0);
+        // Rows 1 to 7 are safe and connected through zero cells
+        assertEquals(56, m.getLastReveal().size());
+        assertEquals(m.getEngine().index(2, 0), m.getLastReveal().cell(0));
+        assertEquals(1, m.gameResult());
+    }
+    
+    @Test
+    public void testFloodRevealLargeEmptyBoard() {
+        BoardEngine engine = new BoardEngine(2000, 2000);
+        FloodReveal flood = new FloodReveal();
+        assertEquals(engine.cellCount(), flood.reveal(engine, engine.index(1000, 1000)));
+        assertEquals(0, flood.reveal(engine, 0));
+    }
+    
+    @Test
+    public void testBoardConfigPresets() {
+        Minesweeper m = new Minesweeper(BoardConfig.EXPERT);
+        assertEquals(16 * 30 - 99, m.getSafeTiles());
+        assertFalse(m.flip(16, 0));
+        assertTrue(m.flip(15, 29));
+        assertEquals(99, m.getEngine().mineCount());
+        m.reset(new BoardConfig(100, 200, 1));
+        assertEquals(200, m.getEngine().cols());
+        assertEquals(19_999, m.getSafeTiles());
+        assertEquals(BoardConfig.INTERMEDIATE, BoardConfig.fromArgs(new String[] {"intermediate"}));
+        assertThrows(IllegalArgumentException.class, () -> new BoardConfig(8, 8, 64));
+    }
+    
+    @Test
+    public void testEndlessDeterministicLayout() throws Exception {
+        try (EndlessMinesweeper a = new EndlessMinesweeper(42, 0.2, 9, null);
+                EndlessMinesweeper b = new EndlessMinesweeper(42, 0.2, 16, null)) {
+            long far = 1L << 60;
+            for (long col = -70; col < 70; col++) {
+                assertEquals(a.isMine(far, col), b.isMine(far, col));
+                assertEquals(a.adjacentMines(-far, col), b.adjacentMines(-far, col));
+            }
+            assertEquals(a.isMine(far, 3), a.getTile(far, 3).isBomb());
+        }
+    }
+    
+    @Test
+    public void testEndlessChunkEviction() throws Exception {
+        try (EndlessMinesweeper m = new EndlessMinesweeper(7, 0.0, 9, null)) {
+            assertTrue(m.flip(0, 0));
+            assertEquals(EndlessMinesweeper.MAX_CASCADE, m.getRevealedCount());
+            // Touch chunks far away so the first ones are spilled and reloaded
+            for (int i = 1; i <= 20; i++) {
+                m.setFlagged(i * 1_000_000L, 0, true);
+            }
+            assertTrue(m.getLoadedChunks() <= 9);
+            assertTrue(m.getSpilledChunks() > 0);
+            assertTrue(m.isRevealed(0, 0));
+            assertTrue(m.getTile(1_000_000L, 0).isFlagged());
+            assertFalse(m.flip(1_000_000L, 0));
+        }
+    }
+    
+    @Test
+    public void testEndlessSpillIndexGrowsOnDisk(@TempDir Path dir) throws Exception {
+        try (EndlessMinesweeper m = new EndlessMinesweeper(3, 0.2, 9,
+                dir.resolve("chunks.spill").toFile())) {
+            // Enough chunks that the index table in the spill file grows several times
+            int chunks = 1000;
+            for (int i = 0; i < chunks; i++) {
+                long row = (i % 40 - 20) * 7_000_000_000L;
+                long col = (i / 40 - 12) * EndlessMinesweeper.CHUNK_SIZE;
+                assertTrue(m.setFlagged(row, col, true));
+            }
+            assertEquals(chunks - 9, m.getSpilledChunks());
+            for (int i = 0; i < chunks; i++) {
+                long row = (i % 40 - 20) * 7_000_000_000L;
+                long col = (i / 40 - 12) * EndlessMinesweeper.CHUNK_SIZE;
+                assertTrue(m.getTile(row, col).isFlagged());
+                assertFalse(m.getTile(row, col + 1).isFlagged());
+            }
+            assertEquals(chunks, m.getSpilledChunks());
+        }
+        assertFalse(Files.exists(dir.resolve("chunks.spill")));
+    }
+    
+    @Test
+    public void testEndlessTileOutlivesItsChunk() throws Exception {
+        try (EndlessMinesweeper m = new EndlessMinesweeper(11, 0.2, 9, null)) {
+            long row = 5_000_000_000L;
+            long col = -64;
+            while (m.isMine(row, col)) {
+                col++;
+            }
+            EndlessMinesweeper.EndlessTile tile = m.getTile(row, col);
+            assertEquals(row, tile.getRow());
+            assertThrows(ArithmeticException.class, () -> tile.getXPos());
+            assertEquals((int) col, tile.getYPos());
+            // Neighbors across the chunk border are the board's cells, not the chunk's halo
+            EndlessMinesweeper.EndlessTile edge = m.getTile(63, 63);
+            for (Tile neighbor : edge.getNeighbors()) {
+                EndlessMinesweeper.EndlessTile n = (EndlessMinesweeper.EndlessTile) neighbor;
+                assertTrue(Math.abs(n.getRow() - 63) <= 1 && Math.abs(n.getCol() - 63) <= 1);
+                assertEquals(m.isMine(n.getRow(), n.getCol()), n.isBomb());
+            }
+            assertEquals(edge.isBomb() ? 0 : 8, edge.getNeighbors().size());
+            
+            tile.flipTile();
+            assertTrue(tile.isFlipped());
+            // Evicts the tile's chunk, then writes and reads through the tile again
+            for (int i = 1; i <= 20; i++) {
+                m.setFlagged(i * 1_000_000L, 0, true);
+            }
+            assertTrue(m.isRevealed(row, col));
+            tile.unflipTile();
+            for (int i = 21; i <= 40; i++) {
+                m.setFlagged(i * 1_000_000L, 0, true);
+            }
+            assertFalse(tile.isFlipped());
+            assertFalse(m.isRevealed(row, col));
+            assertEquals(m.adjacentMines(row, col), tile.getNumBombs());
+            assertEquals(tile, m.getTile(row, col));
+            assertThrows(UnsupportedOperationException.class, () -> tile.setBomb(true));
+        }
+    }
+    
+    @Test
+    public void testFirstClickIsSafe() {
+        Minesweeper m = new Minesweeper(new BoardConfig(100, 100, 9_900), 1234);
+        assertFalse(m.areMinesPlaced());
+        assertTrue(m.flip(50, 50));
+        assertEquals(9_900, m.getEngine().mineCount());
+        assertEquals(0, m.gameResult());
+        for (int row = 49; row <= 51; row++) {
+            for (int col = 49; col <= 51; col++) {
+                assertFalse(m.getTile(row, col).isBomb());
+            }
+        }
+        // Nothing is left for the neighborhood, so only the clicked cell is kept safe
+        m.reset(new BoardConfig(10, 10, 99));
+        assertTrue(m.flip(0, 0));
+        assertEquals(1, m.gameResult());
+    }
+    
+    @Test
+    public void testSeededGamesAreReproducible() {
+        Minesweeper a = new Minesweeper(BoardConfig.EXPERT, 99);
+        Minesweeper b = new Minesweeper(BoardConfig.EXPERT, 99);
+        assertEquals(a.getGameSeed(), b.getGameSeed());
+        a.flip(3, 3);
+        b.flip(3, 3);
+        for (int cell = 0; cell < a.getEngine().cellCount(); cell++) {
+            assertEquals(a.getEngine().isMine(cell), b.getEngine().isMine(cell));
+        }
+    }
+    
+    @Test
+    public void testSimulatorIsDeterministic() {
+        GameSimulator single = new GameSimulator(BoardConfig.BEGINNER, new RandomMoveStrategy(),
+                new ForkJoinPool(1));
+        GameSimulator shared = new GameSimulator(BoardConfig.BEGINNER, new RandomMoveStrategy());
+        SimulationResult a = single.run(10_000, 5);
+        SimulationResult b = shared.run(10_000, 5);
+        assertEquals(10_000, a.getGames());
+        assertEquals(a.getGames(), a.getWins() + a.getLosses() + a.getAbandoned());
+        assertEquals(a.getWins(), b.getWins());
+        assertEquals(a.getMoves(), b.getMoves());
+        assertEquals(a.getRevealedCells(), b.getRevealedCells());
+    }
+    
+    @Test
+    public void testHintSubsetRule() {
+        BoardEngine engine = new BoardEngine(2, 3);
+        engine.placeMine(engine.index(0, 0));
+        engine.reveal(engine.index(1, 0));
+        engine.reveal(engine.index(1, 1));
+        HintEngine hints = new HintEngine(engine);
+        // (1, 1) has one mine and shares it with (1, 0), so the rest of its neighbors are safe
+        int[] safe = hints.getSafeCells();
+        Arrays.sort(safe);
+        assertArrayEquals(new int[] {engine.index(0, 2), engine.index(1, 2)}, safe);
+        assertEquals(0, hints.getMineCells().length);
+        engine.reveal(engine.index(0, 2));
+        engine.reveal(engine.index(1, 2));
+        hints.onReveal(engine.index(0, 2));
+        hints.onReveal(engine.index(1, 2));
+        // (0, 2) is a zero, which clears (0, 1) and leaves (0, 0) as the mine of (1, 0)
+        assertTrue(hints.isKnownSafe(engine.index(0, 1)));
+        assertTrue(hints.isKnownMine(engine.index(0, 0)));
+    }
+    
+    @Test
+    public void testHintsAreNeverMines() {
+        Minesweeper m = new Minesweeper(BoardConfig.EXPERT, 2024);
+        for (int game = 0; game < 200; game++) {
+            m.reset();
+            int cell = m.hint();
+            while (cell >= 0) {
+                assertFalse(m.getEngine().isMine(cell) && m.areMinesPlaced());
+                assertTrue(m.flip(m.getEngine().rowOf(cell), m.getEngine().colOf(cell)));
+                assertNotEquals(GameConstants.GAME_LOST, m.gameResult());
+                cell = m.hint();
+            }
+            for (int mine : m.getHints().getMineCells()) {
+                assertTrue(m.getEngine().isMine(mine));
+            }
+        }
+    }
+    
+    @Test
+    public void testHintsAfterUndoMatchAFreshEngine() {
+        Minesweeper m = new Minesweeper(BoardConfig.EXPERT, 77);
+        for (int game = 0; game < 50; game++) {
+            m.reset();
+            // Plays hints, then takes moves back, redoes one and flips on from the hints again
+            for (int cell = m.hint(), move = 0; cell >= 0 && move < 20; cell = m.hint(), move++) {
+                m.flip(m.getEngine().rowOf(cell), m.getEngine().colOf(cell));
+            }
+            m.undo();
+            m.undo();
+            m.redo();
+            int[] expected = new HintEngine(m.getEngine()).getSafeCells();
+            int[] actual = m.getHints().getSafeCells();
+            Arrays.sort(expected);
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual);
+            int cell = m.hint();
+            if (cell >= 0) {
+                m.flip(m.getEngine().rowOf(cell), m.getEngine().colOf(cell));
+                assertNotEquals(GameConstants.GAME_LOST, m.gameResult());
+            }
+        }
+    }
+    
+    @Test
+    public void testProbabilitiesFiftyFifty() throws Exception {
+        BoardEngine engine = new BoardEngine(2, 2);
+        engine.placeMine(engine.index(0, 0));
+        engine.reveal(engine.index(1, 0));
+        engine.reveal(engine.index(1, 1));
+        MineProbabilities p = new ProbabilityCalculator().calculate(engine, 1, 1000);
+        // Both numbers see the same two hidden cells, so either could hold the mine
+        assertEquals(0.5, p.probability(engine.index(0, 0)), 1e-9);
+        assertEquals(0.5, p.probability(engine.index(0, 1)), 1e-9);
+        assertEquals(0, p.getInteriorCount());
+    }
+    
+    @Test
+    public void testProbabilitiesAgreeWithHints() throws Exception {
+        ProbabilityCalculator calculator = new ProbabilityCalculator();
+        Minesweeper m = new Minesweeper(BoardConfig.INTERMEDIATE, 77);
+        for (int game = 0; game < 20; game++) {
+            m.reset();
+            for (int cell = m.hint(); cell >= 0; cell = m.hint()) {
+                m.flip(m.getEngine().rowOf(cell), m.getEngine().colOf(cell));
+            }
+            if (m.gameResult() != GameConstants.GAME_IN_PROGRESS) {
+                continue;
+            }
+            MineProbabilities p = calculator.calculateAsync(m, 10000).get();
+            // Expected mines over all hidden cells add up to the mines on the board
+            double expected = p.getInteriorProbability() * p.getInteriorCount();
+            for (double probability : p.getFrontierProbabilities()) {
+                expected += probability;
+            }
+            assertEquals(BoardConfig.INTERMEDIATE.getMines(), expected, 1e-6);
+            for (int mine : m.getHints().getMineCells()) {
+                assertEquals(1.0, p.probability(mine), 1e-9);
+            }
+            assertFalse(m.getEngine().isMine(p.getSafestCell()) && p.probability(p.getSafestCell()) == 0);
+        }
+    }
+    
+    @Test
+    public void testNoGuessBoardsAreSolvedByHints() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        NoGuessGenerator generator = new NoGuessGenerator(BoardConfig.INTERMEDIATE, pool, 2);
+        Minesweeper m = new Minesweeper(BoardConfig.INTERMEDIATE, 5);
+        m.setNoGuess(generator);
+        for (int game = 0; game < 10; game++) {
+            m.reset();
+            assertTrue(m.isNoGuess());
+            // Every other game starts away from the center, which needs a fresh search
+            int first = game % 2 == 0 ? m.hint() : 0;
+            m.flip(m.getEngine().rowOf(first), m.getEngine().colOf(first));
+            for (int cell = m.hint(); cell >= 0; cell = m.hint()) {
+                m.flip(m.getEngine().rowOf(cell), m.getEngine().colOf(cell));
+            }
+            assertEquals(GameConstants.GAME_WON, m.gameResult());
+        }
+        generator.close();
+        pool.shutdown();
+    }
+    
+    @Test
+    public void testNoGuessSearchGivesUpOnUnsolvableBoards() {
+        // Two mines on four cells: the three cells left after the first click cannot be told
+        // apart, so no board is ever verified
+        BoardConfig dense = new BoardConfig(2, 2, 2);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        NoGuessGenerator generator = new NoGuessGenerator(dense, pool, 2);
+        long start = System.nanoTime();
+        long seed = generator.generate(0, 50_000_000L);
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertEquals(1, generator.getFallbacks());
+        assertFalse(generator.isSolvable(seed, 0));
+        
+        // A game on it still starts, on a random board, and the refill gives up too
+        Minesweeper m = new Minesweeper(dense, 3);
+        m.setNoGuess(generator);
+        m.reset();
+        assertTrue(m.flip(0, 0));
+        assertEquals(0, generator.getReadyCount());
+        generator.close();
+        pool.shutdown();
+    }
+    
+    @Test
+    public void testScoreStoreKeepsTiesAndSharesLog(@TempDir Path dir) throws Exception {
+        Path log = dir.resolve("scores.log");
+        try (ScoreStore a = new ScoreStore(log, 3); ScoreStore b = new ScoreStore(log, 3)) {
+            a.append(12, 30, BoardConfig.BEGINNER);
+            b.append(12, 25, BoardConfig.BEGINNER);
+            a.append(12, 30, BoardConfig.BEGINNER);
+            b.append(40, 10, BoardConfig.BEGINNER);
+            // Equal times no longer overwrite each other. Appending reads b's earlier record,
+            // so only the last one is new to a
+            assertEquals(1, a.refresh());
+            List<ScoreRecord> top = a.top(5);
+            assertEquals(3, top.size());
+            assertEquals(25, top.get(0).getMoves());
+            assertEquals(0, top.get(1).getSequence());
+            assertEquals(2, top.get(2).getSequence());
+        }
+        // A torn record left by a crash is skipped and then overwritten
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+        }
+        try (ScoreStore reopened = new ScoreStore(log, 3)) {
+            assertEquals(4, reopened.size());
+            reopened.append(5, 9, BoardConfig.EXPERT);
+            assertEquals(5, reopened.top(1).get(0).getTime());
+            assertTrue(reopened.top(1).get(0).isOn(BoardConfig.EXPERT));
+        }
+        try (ScoreStore reopened = new ScoreStore(log, 3)) {
+            assertEquals(5, reopened.size());
+            assertEquals(4, reopened.top(1).get(0).getSequence());
+        }
+    }
+    
+    @Test
+    public void testScoreWriterDrainsOnClose(@TempDir Path dir) throws Exception {
+        Path log = dir.resolve("scores.log");
+        try (ScoreStore store = new ScoreStore(log)) {
+            ScoreWriter writer = new ScoreWriter(store, ScoreWriter.Durability.GROUP_COMMIT,
+                    1000, 4);
+            for (int i = 0; i < 10; i++) {
+                writer.submit(100 - i, 10, BoardConfig.BEGINNER);
+            }
+            writer.close();
+            // The queue holds four scores, so any that did not fit were dropped, not waited on
+            assertEquals(10, writer.getWrittenCount() + writer.getLostCount());
+            assertTrue(writer.getWrittenCount() >= 4);
+            assertEquals(0, writer.getErrorCount());
+            assertEquals(writer.getWrittenCount(), store.size());
+            assertFalse(writer.submit(1, 1, BoardConfig.BEGINNER));
+        }
+    }
+    
+    @Test
+    public void testScoreWriterAccountsForScoresSubmittedDuringClose(@TempDir Path dir)
+            throws Exception {
+        try (ScoreStore store = new ScoreStore(dir.resolve("scores.log"))) {
+            for (int round = 0; round < 20; round++) {
+                final ScoreWriter writer = new ScoreWriter(store,
+                        ScoreWriter.Durability.FLUSH_PER_RECORD, 0, 64);
+                final long[] attempts = new long[1];
+                final AtomicBoolean stop = new AtomicBoolean();
+                Thread submitter = new Thread(new Runnable() {
+                    public void run() {
+                        // Submits all through close(), so some submits race with it
+                        while (!stop.get()) {
+                            attempts[0]++;
+                            writer.submit(10, 10, BoardConfig.BEGINNER);
+                        }
+                    }
+                });
+                long before = store.size();
+                submitter.start();
+                Thread.sleep(1);
+                writer.close();
+                stop.set(true);
+                submitter.join();
+                // Every score was written or counted as lost, and none is left waiting
+                assertEquals(attempts[0], writer.getWrittenCount() + writer.getLostCount());
+                assertTrue(writer.flush(0));
+                assertEquals(before + writer.getWrittenCount(), store.size());
+            }
+        }
+    }
+    
+    @Test
+    public void testScoreWriterDoesNotWriteRefreshRequests(@TempDir Path dir) throws Exception {
+        try (ScoreStore store = new ScoreStore(dir.resolve("scores.log"))) {
+            ScoreWriter writer = new ScoreWriter(store, ScoreWriter.Durability.FLUSH_PER_RECORD,
+                    0, 16);
+            // Holds the writer thread after its first score, so the rest queue up behind it
+            final CountDownLatch release = new CountDownLatch(1);
+            writer.setListener(new Runnable() {
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            writer.submit(30, 10, BoardConfig.BEGINNER);
+            writer.submit(40, 10, BoardConfig.BEGINNER);
+            writer.requestRefresh();
+            writer.submit(50, 10, BoardConfig.BEGINNER);
+            release.countDown();
+            assertTrue(writer.flush(5000));
+            writer.close();
+            assertEquals(3, writer.getWrittenCount());
+            assertEquals(3, store.size());
+            for (ScoreRecord record : store.top(10)) {
+                assertEquals(BoardConfig.BEGINNER.getRows(), record.getRows());
+            }
+        }
+    }
+    
+    @Test
+    public void testRendererRedrawsOnlyChangedCells() {
+        BoardEngine engine = new BoardEngine(20, 20);
+        engine.placeMine(engine.index(5, 5));
+        BoardRenderer renderer = new BoardRenderer(GameConstants.CELL_SIZE);
+        BufferedImage image = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, 400, 400);
+        Rectangle visible = new Rectangle(0, 0, 400, 400);
+        renderer.paint(g, engine, -1, visible, Color.LIGHT_GRAY);
+        // A fresh canvas is the grid background, so hidden cells need no blits
+        assertEquals(0, renderer.getLastDirtyCells());
+        engine.reveal(engine.index(1, 1));
+        renderer.paint(g, engine, engine.index(2, 2), visible, Color.LIGHT_GRAY);
+        assertEquals(2, renderer.getLastDirtyCells());
+        renderer.paint(g, engine, engine.index(2, 2), visible, Color.LIGHT_GRAY);
+        assertEquals(0, renderer.getLastDirtyCells());
+        assertEquals(3, renderer.getFrames());
+        assertEquals(Color.GREEN.getRGB(), image.getRGB(2 * GameConstants.CELL_SIZE + 5,
+                2 * GameConstants.CELL_SIZE + 5));
+        g.dispose();
+    }
+    
+    @Test
+    public void testViewportZoomKeepsPointFixed() {
+        Viewport view = new Viewport(10000, 10000, 800, 800);
+        assertTrue(view.showsWholeBoard());
+        assertEquals(1, view.getCellsPerPixel() / 16);
+        int cell = view.cellAt(400, 300);
+        while (view.zoomAt(1, 400, 300)) {
+            assertEquals(cell / 10000, view.cellAt(400, 300) / 10000, 1);
+            assertEquals(cell % 10000, view.cellAt(400, 300) % 10000, 1);
+        }
+        assertEquals(64, view.getPixelsPerCell());
+        view.pan(-64, 0);
+        assertEquals(cell % 10000 + 1, view.cellAt(400, 300) % 10000, 1);
+        // Panning stops at the board edge
+        view.pan(100_000_000, 0);
+        assertEquals(0, view.getLeft());
+        assertEquals(-1, view.cellAt(-1, 0));
+    }
+    
+    @Test
+    public void testViewportLevelOfDetail() {
+        BoardEngine engine = new BoardEngine(2000, 2000);
+        engine.reveal(0);
+        Viewport view = new Viewport(2000, 2000, 400, 400);
+        ViewportRenderer renderer = new ViewportRenderer();
+        BufferedImage image = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        renderer.paint(g, engine, -1, view, Color.LIGHT_GRAY);
+        assertEquals(ViewportRenderer.Detail.OVERVIEW, renderer.getLastDetail());
+        view.zoomAt(3, 0, 0);
+        renderer.paint(g, engine, -1, view, Color.LIGHT_GRAY);
+        assertEquals(ViewportRenderer.Detail.CELLS, renderer.getLastDetail());
+        while (view.getPixelsPerCell() < 16) {
+            view.zoomAt(1, 0, 0);
+        }
+        renderer.paint(g, engine, -1, view, Color.LIGHT_GRAY);
+        assertEquals(ViewportRenderer.Detail.SPRITES, renderer.getLastDetail());
+        g.dispose();
+    }
+    
+    @Test
+    public void testHistogramPercentilesAndEngineMetrics() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(1000, histogram.getMax());
+        // Buckets are within an eighth of the value
+        assertEquals(500, histogram.percentile(0.5), 500 / 8.0);
+        assertEquals(990, histogram.percentile(0.99), 990 / 8.0);
+        assertEquals(1000, histogram.percentile(1.0));
+        for (long value = 0; value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            assertTrue(Histogram.upperBoundOf(Histogram.bucketOf(value)) >= value);
+        }
+        
+        EngineMetrics metrics = EngineMetrics.get();
+        boolean wasEnabled = metrics.isEnabled();
+        try {
+            metrics.setEnabled(false);
+            metrics.reset();
+            assertEquals(0, EngineMetrics.start());
+            Minesweeper game = new Minesweeper(BoardConfig.EXPERT, 7L);
+            game.flip(8, 15);
+            assertEquals(0, metrics.getFlipLatency().getCount());
+            
+            metrics.setEnabled(true);
+            game.reset();
+            game.flip(8, 15);
+            assertEquals(1, metrics.getFlipLatency().getCount());
+            assertEquals(1, metrics.getFloodRevealLatency().getCount());
+            assertEquals(1, metrics.getGenerationLatency().getCount());
+            assertEquals(game.getLastReveal().size(), metrics.getCellsRevealedPerMove().getMax(),
+                    game.getLastReveal().size() / 8.0);
+            assertTrue(metrics.getFlipLatency().getMax() > 0);
+        } finally {
+            metrics.setEnabled(wasEnabled);
+            metrics.reset();
+        }
+    }
+    
+    @Test
+    public void testMoveJournalUndoRedoCascades() {
+        Minesweeper m = new Minesweeper(true);
+        int safe = m.getSafeTiles();
+        assertTrue(m.flip(1, 0));
+        assertTrue(m.flip(0, 0));
+        assertEquals(-1, m.gameResult());
+        assertEquals(2, m.getJournal().getUndoCount());
+        assertTrue(m.undo());
+        assertEquals(0, m.gameResult());
+        assertTrue(m.undo());
+        assertEquals(safe, m.getSafeTiles());
+        assertFalse(m.undo());
+        
+        // Row 0 is all mines, so a click on row 7 cascades over every safe cell at once
+        assertTrue(m.flip(7, 7));
+        assertEquals(1, m.gameResult());
+        assertEquals(safe, m.getLastReveal().size());
+        assertTrue(m.undo());
+        assertEquals(safe, m.getJournal().getChangedCount());
+        assertEquals(safe, m.getSafeTiles());
+        assertFalse(m.getBoard()[7][7].isFlipped());
+        assertEquals(0, m.gameResult());
+        assertTrue(m.redo());
+        assertEquals(1, m.gameResult());
+        assertTrue(m.getBoard()[1][3].isFlipped());
+        assertFalse(m.redo());
+        // A new move after an undo drops the redo history
+        assertTrue(m.undo());
+        assertTrue(m.flip(1, 0));
+        assertEquals(0, m.getJournal().getRedoCount());
+        assertEquals(1, m.getJournal().getUndoCount());
+        
+        // The oldest moves are dropped once the cap is reached
+        MoveJournal journal = new MoveJournal(64);
+        int[] cells = new int[1];
+        for (int move = 0; move < 1000; move++) {
+            cells[0] = move * 1000;
+            journal.record(cells[0], cells, 1);
+            assertTrue(journal.getBytes() <= 64);
+        }
+        assertTrue(journal.getUndoCount() > 1);
+        assertTrue(journal.getUndoCount() < 1000);
+        assertEquals(999_000, journal.getLastMoveCell());
+        BoardEngine big = new BoardEngine(1000, 1000);
+        assertFalse(journal.redo(big));
+        assertTrue(journal.undo(big));
+        assertEquals(999_000, journal.getChangedCell(0));
+    }
+    
+    // Flips the hidden safe cells in order until the game is won; returns the flips made
+    private static int playSafely(Minesweeper game) {
+        BoardEngine engine = game.getEngine();
+        int flips = 0;
+        for (int cell = 0; cell < engine.cellCount(); cell++) {
+            if (!engine.isMine(cell) && !engine.isRevealed(cell)) {
+                game.flip(engine.rowOf(cell), engine.colOf(cell));
+                flips++;
+            }
+        }
+        assertEquals(GameConstants.GAME_WON, game.gameResult());
+        return flips;
+    }
+    
+    @Test
+    public void testReplayRecordAndVerify() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(log, true);
+        Minesweeper game = new Minesweeper(BoardConfig.BEGINNER, 11L);
+        game.setRecorder(recorder);
+        // A won game with undos, a redo and a click on a revealed cell
+        game.reset();
+        game.flip(4, 4);
+        int moves = 1;
+        BoardEngine engine = game.getEngine();
+        int mine = 0;
+        while (!engine.isMine(mine)) {
+            mine++;
+        }
+        assertTrue(game.flip(mine / 9, mine % 9));
+        assertTrue(game.undo());
+        moves += 2;
+        assertFalse(game.flip(4, 4));
+        moves++;
+        assertTrue(game.undo());
+        assertTrue(game.redo());
+        moves += 3;
+        moves += playSafely(game);
+        recorder.endGame(game.gameResult(), 0, moves);
+        // A test-mode layout, lost on the first click
+        game.resetForTest();
+        game.flip(0, 3);
+        recorder.endGame(game.gameResult(), 0, 1);
+        // A won game whose stored move count was tampered with
+        game.reset();
+        game.flip(4, 4);
+        playSafely(game);
+        recorder.endGame(game.gameResult(), 0, 1);
+        // Left unfinished
+        game.reset();
+        game.flip(4, 4);
+        recorder.close();
+        
+        ReplayPlayer.Summary summary = new ReplayPlayer().play(
+                new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(4, summary.getGames());
+        assertEquals(2, summary.getWon());
+        assertEquals(1, summary.getVerified());
+        assertEquals(1, summary.getMismatched());
+        assertEquals(1, summary.getUnfinished());
+        assertTrue(summary.getMismatches().get(0).startsWith("Game 3 stored 1 moves"));
+    }
+    
+    @Test
+    public void testGameServerSessionsAndEviction() throws Exception {
+        GameServer server = new GameServer(0, 2, 300, 10);
+        int port = server.start();
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    "US-ASCII"));
+            OutputStream out = socket.getOutputStream();
+            out.write("FLIP 0 0\nNEW 3 3 1\nFLIP 1 1\nFLIP 1 1\nBOARD\n".getBytes("US-ASCII"));
+            assertTrue(in.readLine().startsWith("ERR no session"));
+            String[] created = in.readLine().split(" ");
+            assertEquals("OK", created[0]);
+            assertEquals("3", created[2]);
+            String id = created[1];
+            // The middle cell has every other cell around it, so it reveals just itself
+            assertEquals("OK 0 7 4:1", in.readLine());
+            assertEquals("ERR invalid move", in.readLine());
+            assertEquals("OK 3 3 ####1####", in.readLine());
+            assertEquals(1, server.getSessionCount());
+            
+            // A second connection continues the same game
+            try (Socket other = new Socket("127.0.0.1", port)) {
+                BufferedReader otherIn = new BufferedReader(new InputStreamReader(
+                        other.getInputStream(), "US-ASCII"));
+                other.getOutputStream().write(("ATTACH " + id + "\nUNDO\nQUIT\n")
+                        .getBytes("US-ASCII"));
+                assertEquals("OK " + id + " 3 3 1", otherIn.readLine());
+                assertEquals("OK 0 8 4", otherIn.readLine());
+                assertEquals("OK", otherIn.readLine());
+                assertNull(otherIn.readLine());
+            }
+            out.write("HINT\nNEW\n".getBytes("US-ASCII"));
+            assertEquals("ERR session expired", in.readLine());
+            assertTrue(in.readLine().startsWith("OK "));
+            
+            // Idle sessions are evicted, and idle connections closed
+            long deadline = System.currentTimeMillis() + 5000;
+            while (server.getSessionCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, server.getSessionCount());
+            assertTrue(server.getEvictedCount() >= 1);
+            assertNull(in.readLine());
+        }
+        
+        GameServer loaded = new GameServer(0, 1, 60_000, 1000);
+        LoadGenerator generator = new LoadGenerator(
+                new InetSocketAddress("127.0.0.1", loaded.start()), 50, BoardConfig.BEGINNER);
+        generator.run(500);
+        assertTrue(generator.getMoves() > 0);
+        assertEquals(0, generator.getErrors());
+        assertEquals(50, loaded.getSessionCount());
+        assertTrue(generator.getLatency().percentile(0.99) > 0);
+        loaded.close();
+        server.close();
+    }
+    
+    @Test
+    public void testSharedMinesweeperConcurrentFlips() throws Exception {
+        final SharedMinesweeper game = new SharedMinesweeper(new BoardConfig(300, 300, 9000), 7L);
+        assertEquals(0, game.flip(-1, 0));
+        int first = game.flip(150, 150);
+        assertTrue(first > 1);
+        final int threads = 4;
+        final int cells = game.cellCount();
+        final int[][] won = new int[threads][];
+        final int[] wonCounts = new int[threads];
+        final int[] flipped = new int[threads];
+        final CyclicBarrier start = new CyclicBarrier(threads);
+        Thread[] players = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int player = t;
+            players[t] = new Thread() {
+                @Override
+                public void run() {
+                    int[] mine = new int[cells];
+                    int count = 0;
+                    try {
+                        start.await();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    // Every player sweeps every safe cell from a different offset
+                    for (int k = 0; k < cells; k++) {
+                        int cell = (k + player * cells / threads) % cells;
+                        if (game.isMine(cell)) {
+                            continue;
+                        }
+                        flipped[player] += game.flip(cell / 300, cell % 300);
+                        SharedMinesweeper.Cascade cascade = game.getLastReveal();
+                        for (int i = 0; i < cascade.size(); i++) {
+                            mine[count++] = cascade.cell(i);
+                        }
+                    }
+                    won[player] = mine;
+                    wonCounts[player] = count;
+                }
+            };
+            players[t].start();
+        }
+        for (Thread player : players) {
+            player.join();
+        }
+        
+        // Every safe cell was won by exactly one flip
+        byte[] owners = new byte[cells];
+        int total = first;
+        for (int t = 0; t < threads; t++) {
+            assertEquals(flipped[t], wonCounts[t]);
+            total += flipped[t];
+            for (int i = 0; i < wonCounts[t]; i++) {
+                owners[won[t][i]]++;
+            }
+        }
+        assertEquals(cells - 9000, total);
+        for (int cell = 0; cell < cells; cell++) {
+            assertEquals(game.isMine(cell), !game.isRevealed(cell));
+            if (!game.isMine(cell) && game.isRevealed(cell)) {
+                assertTrue(owners[cell] <= 1);
+            }
+        }
+        assertEquals(0, game.getSafeTiles());
+        assertEquals(GameConstants.GAME_WON, game.gameResult());
+        
+        // Racing a loss against the win: the game ends once and later flips are rejected
+        final SharedMinesweeper race = new SharedMinesweeper(new BoardConfig(50, 50, 400), 3L);
+        race.flip(0, 0);
+        Thread[] racers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int player = t;
+            racers[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int cell = player; cell < 2500; cell += threads) {
+                        race.flip(cell / 50, cell % 50);
+                    }
+                }
+            };
+            racers[t].start();
+        }
+        for (Thread racer : racers) {
+            racer.join();
+        }
+        assertEquals(GameConstants.GAME_LOST, race.gameResult());
+        assertTrue(race.getSafeTiles() > 0);
+        int hidden = 0;
+        while (race.isRevealed(hidden)) {
+            hidden++;
+        }
+        assertEquals(0, race.flip(hidden / 50, hidden % 50));
+    }
+    
+    @Test
+    public void testMoveListenerBatches() {
+        Minesweeper m = new Minesweeper(true);
+        final List<int[]> batches = new ArrayList<int[]>();
+        final List<MoveEvent> events = new ArrayList<MoveEvent>();
+        final int[] resets = new int[1];
+        MoveListener listener = new MoveListener() {
+            @Override
+            public void moveApplied(MoveEvent move) {
+                batches.add(move.toArray());
+                events.add(move);
+            }
+            
+            @Override
+            public void gameReset(Minesweeper game) {
+                resets[0]++;
+            }
+        };
+        m.addMoveListener(listener);
+        int safe = m.getSafeTiles();
+        
+        // Row 0 is all mines, so a click on row 7 cascades over every safe cell in one batch
+        assertTrue(m.flip(7, 7));
+        assertFalse(m.flip(7, 7));
+        assertEquals(1, batches.size());
+        MoveEvent move = events.get(0);
+        assertEquals(MoveEvent.FLIP, move.getKind());
+        assertEquals(63, move.getMoveCell());
+        assertEquals(safe, batches.get(0).length);
+        assertArrayEquals(m.getLastReveal().toArray(), batches.get(0));
+        assertTrue(move.isStateChanged());
+        assertEquals(GameConstants.GAME_WON, move.getState());
+        assertEquals(0, move.getSafeTiles());
+        
+        assertTrue(m.undo());
+        assertEquals(MoveEvent.UNDO, move.getKind());
+        assertFalse(move.isReveal());
+        assertEquals(-1, move.getMoveCell());
+        assertEquals(safe, move.getCellCount());
+        assertEquals(GameConstants.GAME_WON, move.getPreviousState());
+        assertEquals(GameConstants.GAME_IN_PROGRESS, move.getState());
+        assertTrue(m.flip(1, 0));
+        assertEquals(1, move.getCellCount());
+        assertFalse(move.isStateChanged());
+        assertTrue(m.undo());
+        assertTrue(m.redo());
+        assertEquals(MoveEvent.REDO, move.getKind());
+        assertEquals(m.getEngine().index(1, 0), move.getCell(0));
+        assertEquals(safe - 1, move.getSafeTiles());
+        assertEquals(5, batches.size());
+        
+        m.reset();
+        assertEquals(1, resets[0]);
+        m.removeMoveListener(listener);
+        m.reset();
+        m.flip(4, 4);
+        assertEquals(1, resets[0]);
+        assertEquals(5, batches.size());
+    }
+    
+    @Test
+    public void testGameSnapshotSaveAndResume(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("game.save");
+        Minesweeper game = new Minesweeper(new BoardConfig(300, 200, 9000), 5L);
+        game.flip(150, 100);
+        BoardEngine board = game.getEngine();
+        // A few more moves for the journal, the last one undone so it can be redone
+        int played = 0;
+        for (int cell = 0; played < 3; cell++) {
+            if (!board.isMine(cell) && !board.isRevealed(cell)) {
+                game.flip(board.rowOf(cell), board.colOf(cell));
+                played++;
+            }
+        }
+        assertTrue(game.undo());
+        board.setFlagged(7, true);
+        GameSnapshot.save(file, game, 42, 65_000);
+        assertEquals(game.getConfig(), GameSnapshot.readConfig(file));
+        
+        Minesweeper resumed = new Minesweeper(BoardConfig.BEGINNER, 9L);
+        GameSnapshot snapshot = GameSnapshot.load(file, resumed);
+        assertEquals(42, snapshot.getMoves());
+        assertEquals(65_000, snapshot.getElapsedMillis());
+        BoardEngine copy = resumed.getEngine();
+        assertEquals(game.getConfig(), resumed.getConfig());
+        assertEquals(game.getGameSeed(), resumed.getGameSeed());
+        assertTrue(resumed.areMinesPlaced());
+        assertEquals(game.getSafeTiles(), resumed.getSafeTiles());
+        assertEquals(GameConstants.GAME_IN_PROGRESS, resumed.gameResult());
+        assertEquals(board.mineCount(), copy.mineCount());
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            assertEquals(board.isMine(cell), copy.isMine(cell));
+            assertEquals(board.isRevealed(cell), copy.isRevealed(cell));
+            assertEquals(board.isFlagged(cell), copy.isFlagged(cell));
+            assertEquals(board.adjacentMines(cell), copy.adjacentMines(cell));
+        }
+        assertEquals(3, resumed.getJournal().getUndoCount());
+        assertEquals(1, resumed.getJournal().getRedoCount());
+        assertTrue(resumed.redo());
+        assertTrue(game.redo());
+        assertEquals(game.getSafeTiles(), resumed.getSafeTiles());
+        while (resumed.undo()) {
+            // Every move back to the empty board
+        }
+        assertEquals(resumed.getConfig().getSafeTileCount(), resumed.getSafeTiles());
+        
+        // A damaged snapshot is rejected and leaves a fresh game of the old size
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        Minesweeper other = new Minesweeper(BoardConfig.BEGINNER, 9L);
+        assertThrows(IOException.class, () -> GameSnapshot.load(file, other));
+        assertEquals(BoardConfig.BEGINNER, other.getConfig());
+        assertEquals(0, other.getEngine().revealedPlane()[0]);
+    }
+    
+    @Test
+    public void testFlagChordAndBatchFlip() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(log, true);
+        Minesweeper game = new Minesweeper(BoardConfig.BEGINNER, 11L);
+        game.setRecorder(recorder);
+        game.reset();
+        final List<Integer> kinds = new ArrayList<>();
+        game.addMoveListener(new MoveListener() {
+            @Override
+            public void moveApplied(MoveEvent event) {
+                kinds.add(event.getKind());
+            }
+
+            @Override
+            public void gameReset(Minesweeper reset) {
+            }
+        });
+        BoardEngine engine = game.getEngine();
+        game.flip(4, 4);
+        int moves = 1;
+        // A revealed number with a hidden safe neighbor
+        int[] around = new int[8];
+        int number = -1;
+        for (int cell = 0; cell < engine.cellCount() && number < 0; cell++) {
+            if (engine.isRevealed(cell) && engine.adjacentMines(cell) > 0) {
+                int count = engine.neighbors(cell, around);
+                for (int i = 0; i < count; i++) {
+                    if (!engine.isRevealed(around[i]) && !engine.isMine(around[i])) {
+                        number = cell;
+                    }
+                }
+            }
+        }
+        assertTrue(number >= 0);
+        int row = engine.rowOf(number);
+        int col = engine.colOf(number);
+        assertFalse(game.chord(row, col));
+        int count = engine.neighbors(number, around);
+        for (int i = 0; i < count; i++) {
+            if (engine.isMine(around[i])) {
+                assertTrue(game.setFlagged(engine.rowOf(around[i]), engine.colOf(around[i]),
+                        true));
+                assertFalse(game.flip(engine.rowOf(around[i]), engine.colOf(around[i])));
+                moves++;
+            }
+        }
+        assertEquals(engine.adjacentMines(number), engine.adjacentFlags(number));
+        int safeTiles = game.getSafeTiles();
+        kinds.clear();
+        assertTrue(game.chord(row, col));
+        moves++;
+        assertEquals(Arrays.asList(MoveEvent.CHORD), kinds);
+        assertTrue(game.getSafeTiles() < safeTiles);
+        for (int i = 0; i < count; i++) {
+            assertTrue(engine.isRevealed(around[i]) != engine.isMine(around[i]));
+        }
+        assertTrue(game.undo());
+        assertTrue(game.redo());
+        moves += 3;
+        // The rest of the board as one batch, one event and one journal entry
+        int[] rest = new int[engine.cellCount()];
+        int restCount = 0;
+        for (int cell = 0; cell < engine.cellCount(); cell++) {
+            if (!engine.isMine(cell) && !engine.isRevealed(cell)) {
+                rest[restCount++] = cell;
+            }
+        }
+        safeTiles = game.getSafeTiles();
+        kinds.clear();
+        assertEquals(safeTiles, game.flipAll(rest, restCount));
+        assertEquals(Arrays.asList(MoveEvent.BATCH), kinds);
+        assertEquals(GameConstants.GAME_WON, game.gameResult());
+        assertTrue(game.undo());
+        assertEquals(safeTiles, game.getSafeTiles());
+        assertTrue(game.redo());
+        moves += 4;
+        recorder.endGame(game.gameResult(), 0, moves);
+        
+        // A misplaced flag makes the chord reveal the unflagged mine
+        boolean lost = false;
+        for (int games = 0; games < 50 && !lost; games++) {
+            game.reset();
+            game.flip(4, 4);
+            for (int cell = 0; cell < engine.cellCount() && !lost; cell++) {
+                int mines = engine.adjacentMines(cell);
+                if (!engine.isRevealed(cell) || mines == 0) {
+                    continue;
+                }
+                count = engine.neighbors(cell, around);
+                int safe = 0;
+                for (int i = 0; i < count; i++) {
+                    if (!engine.isRevealed(around[i]) && !engine.isMine(around[i])) {
+                        safe++;
+                    }
+                }
+                for (int i = 0; i < count && safe >= mines; i++) {
+                    if (!engine.isRevealed(around[i]) && !engine.isMine(around[i])
+                            && engine.adjacentFlags(cell) < mines) {
+                        game.setFlagged(engine.rowOf(around[i]), engine.colOf(around[i]), true);
+                    }
+                }
+                if (safe >= mines) {
+                    assertTrue(game.chord(engine.rowOf(cell), engine.colOf(cell)));
+                    lost = game.gameResult() == GameConstants.GAME_LOST;
+                }
+            }
+        }
+        assertTrue(lost);
+        recorder.endGame(game.gameResult(), 0, 1);
+        recorder.close();
+        
+        ReplayPlayer.Summary summary = new ReplayPlayer().play(
+                new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(1, summary.getWon());
+        assertEquals(1, summary.getVerified());
+        assertEquals(0, summary.getMismatched());
+    }
+    
+    @Test
+    public void testLeaderboardRanksPerBoard(@TempDir Path dir) throws Exception {
+        Leaderboard leaderboard = new Leaderboard();
+        SplittableRandom random = new SplittableRandom(5);
+        List<ScoreRecord> beginner = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            BoardConfig config = i % 3 == 0 ? BoardConfig.EXPERT : BoardConfig.BEGINNER;
+            ScoreRecord record = new ScoreRecord(i, 1 + random.nextInt(60), 1 + random.nextInt(20),
+                    config.getRows(), config.getCols(), config.getMines());
+            leaderboard.add(record);
+            if (config == BoardConfig.BEGINNER) {
+                beginner.add(record);
+            }
+        }
+        // Not a valid board, so not ranked
+        leaderboard.add(new ScoreRecord(5000, 1, 1, 0, 9, 10));
+        assertEquals(5000, leaderboard.size());
+        assertEquals(2, leaderboard.getConfigs().size());
+        beginner.sort(ScoreRecord.FASTEST);
+        assertEquals(beginner.size(), leaderboard.size(BoardConfig.BEGINNER));
+        assertEquals(beginner.subList(0, 10), leaderboard.top(BoardConfig.BEGINNER, 10));
+        assertEquals(beginner.get(1234), leaderboard.get(BoardConfig.BEGINNER, 1235));
+        assertNull(leaderboard.get(BoardConfig.BEGINNER, beginner.size() + 1));
+        ScoreRecord middle = beginner.get(beginner.size() / 2);
+        long better = 0;
+        long same = 0;
+        for (ScoreRecord record : beginner) {
+            if (record.getTime() < middle.getTime() || record.getTime() == middle.getTime()
+                    && record.getMoves() < middle.getMoves()) {
+                better++;
+            } else if (record.getTime() == middle.getTime()
+                    && record.getMoves() == middle.getMoves()) {
+                same++;
+            }
+        }
+        assertEquals(better + 1, leaderboard.rank(BoardConfig.BEGINNER, middle.getTime(),
+                middle.getMoves()));
+        assertEquals(100.0 * (beginner.size() - better - same / 2.0) / beginner.size(),
+                leaderboard.percentile(BoardConfig.BEGINNER, middle.getTime(), middle.getMoves()),
+                1e-9);
+        assertEquals(100.0, leaderboard.percentile(BoardConfig.BEGINNER, 0, 0), 1e-9);
+        // A few games after the tree is built are inserted rather than rebuilt
+        for (int i = 0; i < 20; i++) {
+            ScoreRecord record = new ScoreRecord(6000 + i, 1 + random.nextInt(60),
+                    1 + random.nextInt(20), BoardConfig.BEGINNER.getRows(),
+                    BoardConfig.BEGINNER.getCols(), BoardConfig.BEGINNER.getMines());
+            leaderboard.add(record);
+            beginner.add(record);
+        }
+        beginner.sort(ScoreRecord.FASTEST);
+        assertEquals(beginner.subList(0, 50), leaderboard.top(BoardConfig.BEGINNER, 50));
+        assertEquals(beginner.get(beginner.size() - 1),
+                leaderboard.get(BoardConfig.BEGINNER, beginner.size()));
+        // Games added out of sequence order still break ties by sequence
+        Leaderboard reversed = new Leaderboard();
+        for (int i = beginner.size() - 1; i >= 0; i--) {
+            reversed.add(beginner.get(i));
+        }
+        assertEquals(beginner, reversed.top(BoardConfig.BEGINNER, beginner.size()));
+        assertEquals(1, leaderboard.rank(BoardConfig.INTERMEDIATE, 50, 50));
+        assertTrue(leaderboard.top(BoardConfig.INTERMEDIATE, 5).isEmpty());
+        
+        // A store reads its whole log into the leaderboard once, then keeps it current
+        Path log = dir.resolve("scores.log");
+        try (ScoreStore store = new ScoreStore(log, 2)) {
+            store.append(30, 12, BoardConfig.BEGINNER);
+            store.append(20, 15, BoardConfig.BEGINNER);
+            store.append(20, 11, BoardConfig.EXPERT);
+            Leaderboard opened = store.openLeaderboard();
+            assertSame(opened, store.openLeaderboard());
+            store.append(25, 9, BoardConfig.BEGINNER);
+            List<ScoreRecord> top = opened.top(BoardConfig.BEGINNER, 5);
+            assertEquals(3, top.size());
+            assertEquals(1, top.get(0).getSequence());
+            assertEquals(3, top.get(1).getSequence());
+            assertEquals(2, opened.rank(BoardConfig.BEGINNER, 25, 8));
+            assertEquals(1, opened.size(BoardConfig.EXPERT));
+        }
+    }
+    
+    @Test
+    public void testSeededRandomMatchesSplittableRandom() {
+        // Game seeds are replayed into layouts, so the draws must not change
+        SeededRandom reused = new SeededRandom();
+        for (long seed = -3; seed < 200; seed++) {
+            SplittableRandom expected = new SplittableRandom(seed * 0x9E3779B97F4A7C15L);
+            reused.setSeed(seed * 0x9E3779B97F4A7C15L);
+            for (int bound = 1; bound < 5000; bound += 37) {
+                assertEquals(expected.nextInt(bound), reused.nextInt(bound));
+            }
+            assertEquals(expected.nextInt(1 << 20), reused.nextInt(1 << 20));
+            assertEquals(expected.nextLong(), reused.nextLong());
+        }
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT, 1L);
+        game.reset(BoardConfig.EXPERT, 77L);
+        game.generateBombs(8, 15);
+        BoardEngine expected = new BoardEngine(16, 30);
+        MineSampler.placeAvoiding(expected, 99, new SplittableRandom(77L), expected.index(8, 15));
+        assertArrayEquals(expected.minePlane(), game.getEngine().minePlane());
+    }
+    
+    // Plays games through every kind of move, ending each with a batch flip of the rest
+    private static void playForAllocation(Minesweeper game, long firstSeed, int games,
+            int[] batch) {
+        BoardConfig config = game.getConfig();
+        for (long seed = firstSeed; seed < firstSeed + games; seed++) {
+            game.reset(config, seed);
+            BoardEngine engine = game.getEngine();
+            game.flip(config.getRows() / 2, config.getCols() / 2);
+            int count = 0;
+            for (int cell = 0; cell < engine.cellCount(); cell++) {
+                if (engine.isMine(cell)) {
+                    game.setFlagged(engine.rowOf(cell), engine.colOf(cell), true);
+                } else if (!engine.isRevealed(cell)) {
+                    if ((cell & 1) == 0) {
+                        game.flip(engine.rowOf(cell), engine.colOf(cell));
+                    } else {
+                        batch[count++] = cell;
+                    }
+                } else if (engine.adjacentMines(cell) > 0) {
+                    game.chord(engine.rowOf(cell), engine.colOf(cell));
+                }
+            }
+            game.undo();
+            game.redo();
+            game.flipAll(batch, count);
+            game.undo();
+            game.redo();
+        }
+    }
+    
+    @Test
+    public void testSteadyStateMovesAllocateNothing() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT, 1L);
+        final long[] events = new long[1];
+        game.addMoveListener(new MoveListener() {
+            @Override
+            public void moveApplied(MoveEvent event) {
+                events[0] += event.getCellCount();
+            }
+
+            @Override
+            public void gameReset(Minesweeper reset) {
+            }
+        });
+        int[] batch = new int[game.getEngine().cellCount()];
+        // Grows every buffer to the largest move of the games measured below
+        playForAllocation(game, 0, 300, batch);
+        // The JIT can allocate while it deoptimizes, so the best of a few runs must be clean
+        long best = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 3 && best != 0; attempt++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            playForAllocation(game, 0, 300, batch);
+            best = Math.min(best, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+        assertEquals(0, best, "bytes allocated by 300 games of resets and moves");
+        assertTrue(events[0] > 0);
+    }
+    
+    // Plays the keys in a terminal game and returns everything it wrote
+    private String playTerminal(TerminalGame[] played, String keys) throws IOException {
+        ByteArrayOutputStream screen = new ByteArrayOutputStream();
+        played[0] = new TerminalGame(BoardConfig.EXPERT, 5L,
+                new ByteArrayInputStream(keys.getBytes("US-ASCII")), screen);
+        played[0].run();
+        return screen.toString("US-ASCII");
+    }
+    
+    // Counts the cells drawn, each of which starts by setting plain or cursor colors
+    private int cellsDrawn(String screen) {
+        return screen.split("\u001b\\[0m |\u001b\\[0;7m ", -1).length - 1;
+    }
+    
+    @Test
+    public void testTerminalGameRedrawsOnlyChangedCells() throws IOException {
+        TerminalGame[] played = new TerminalGame[1];
+        int cells = BoardConfig.EXPERT.getTotalTiles();
+        String start = playTerminal(played, "");
+        assertEquals(cells, cellsDrawn(start));
+        assertTrue(start.contains("Minesweeper Expert 16x30 (99 mines)"));
+        int middle = played[0].getCursor();
+        
+        // Moving the cursor redraws the cell it leaves and the one it enters
+        assertEquals(cells + 2, cellsDrawn(playTerminal(played, "l")));
+        assertEquals(middle + 1, played[0].getCursor());
+        assertEquals(cells + 4, cellsDrawn(playTerminal(played, "\u001b[C\u001b[B")));
+        assertEquals(middle + 1 + BoardConfig.EXPERT.getCols(), played[0].getCursor());
+        
+        // Flagging and unflagging redraw just that cell
+        assertTrue(playTerminal(played, "f").contains("Mines left: 98"));
+        assertEquals(cells + 2, cellsDrawn(playTerminal(played, "ff")));
+        assertFalse(played[0].getModel().getEngine().isFlagged(middle));
+        
+        // A flip redraws the cells it revealed, and the screen is cleared only once
+        String flipped = playTerminal(played, " ");
+        BoardEngine board = played[0].getModel().getEngine();
+        int revealed = 0;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            revealed += board.isRevealed(cell) ? 1 : 0;
+        }
+        assertTrue(revealed > 1);
+        assertEquals(cells + revealed, cellsDrawn(flipped));
+        assertEquals(1, flipped.split("\u001b\\[2J", -1).length - 1);
+        assertTrue(flipped.contains("NumMoves: 1"));
+        
+        // Undo hides again what the flip revealed, costing two moves
+        assertEquals(cells + 2 * revealed, cellsDrawn(playTerminal(played, " u")));
+        assertFalse(played[0].getModel().getEngine().isRevealed(middle));
+        assertTrue(playTerminal(played, " u").contains("NumMoves: 3"));
+        
+        // A new game clears the screen and draws the whole board again
+        String again = playTerminal(played, " n");
+        assertEquals(2, again.split("\u001b\\[2J", -1).length - 1);
+        assertEquals(2 * cells + revealed, cellsDrawn(again));
+    }
+    
+    @Test
+    public void testTerminalGameLoadsNoAwt() throws IOException, InterruptedException {
+        // A JVM of its own, as this one has loaded AWT for the GameBoard tests
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xlog:class+load", "-cp", System.getProperty("java.class.path"),
+                "minesweeper.TerminalGame", "expert").redirectErrorStream(true).start();
+        try (OutputStream keys = process.getOutputStream()) {
+            keys.write(" f?  lq".getBytes("US-ASCII"));
+        }
+        String output = new String(process.getInputStream().readAllBytes(), "US-ASCII");
+        assertEquals(0, process.waitFor());
+        assertTrue(output.contains("minesweeper.TerminalGame "));
+        assertTrue(output.contains("Minesweeper Expert 16x30 (99 mines)"));
+        assertFalse(output.contains(" java.awt."), "AWT loaded");
+        assertFalse(output.contains(" javax.swing."), "Swing loaded");
+    }
+    
+    @Test
+    public void testGameBoardResumesOnlyOnTheSavedBoard(@TempDir Path dir) throws IOException {
+        String scores = dir.resolve("scores.log").toString();
+        Path saved = Path.of(scores + GameConstants.SNAPSHOT_SUFFIX);
+        GameBoard expert = new GameBoard(new JLabel(), new JLabel(), BoardConfig.EXPERT, scores);
+        expert.getModel().flip(8, 15);
+        int safeTiles = expert.getModel().getSafeTiles();
+        expert.saveGame();
+        expert.closeScores();
+        assertTrue(Files.exists(saved));
+        
+        // Starting on another board leaves the saved game for the next expert start
+        GameBoard beginner = new GameBoard(new JLabel(), new JLabel(), BoardConfig.BEGINNER,
+                scores);
+        assertFalse(beginner.resumeGame());
+        beginner.closeScores();
+        assertTrue(Files.exists(saved));
+        assertEquals(BoardConfig.BEGINNER, beginner.getModel().getConfig());
+        
+        GameBoard resumed = new GameBoard(new JLabel(), new JLabel(), BoardConfig.EXPERT, scores);
+        assertTrue(resumed.resumeGame());
+        resumed.closeScores();
+        assertFalse(Files.exists(saved));
+        assertEquals(safeTiles, resumed.getModel().getSafeTiles());
+    }
+    
+    @Test
+    public void testRedoClearsFlagsSetAfterUndo() {
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT, 2L);
+        final List<Integer> kinds = new ArrayList<>();
+        final int[] flags = new int[1];
+        game.addMoveListener(new MoveListener() {
+            @Override
+            public void moveApplied(MoveEvent event) {
+                kinds.add(event.getKind());
+                if (event.getKind() == MoveEvent.FLAG) {
+                    flags[0] += game.getEngine().isFlagged(event.getMoveCell()) ? 1 : -1;
+                }
+            }
+
+            @Override
+            public void gameReset(Minesweeper reset) {
+            }
+        });
+        BoardEngine board = game.getEngine();
+        assertTrue(game.flip(8, 15));
+        int clicked = board.index(8, 15);
+        // A revealed cell of the cascade other than the one clicked
+        int other = -1;
+        for (int cell = 0; cell < board.cellCount() && other < 0; cell++) {
+            other = board.isRevealed(cell) && cell != clicked ? cell : -1;
+        }
+        assertTrue(other >= 0);
+        assertTrue(game.undo());
+        assertTrue(game.setFlagged(8, 15, true));
+        assertTrue(game.setFlagged(board.rowOf(other), board.colOf(other), true));
+        assertEquals(2, flags[0]);
+        kinds.clear();
+        
+        assertTrue(game.redo());
+        assertEquals(2, game.getJournal().getUnflaggedCount());
+        assertEquals(Arrays.asList(MoveEvent.FLAG, MoveEvent.FLAG, MoveEvent.REDO), kinds);
+        assertEquals(0, flags[0]);
+        for (int cell : new int[] {clicked, other}) {
+            assertTrue(board.isRevealed(cell));
+            assertFalse(board.isFlagged(cell));
+        }
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            assertFalse(board.isFlagged(cell));
+            assertEquals(0, board.adjacentFlags(cell));
+        }
+        
+        // Undo and redo again find no flags to clear
+        assertTrue(game.undo());
+        assertTrue(game.redo());
+        assertEquals(0, game.getJournal().getUnflaggedCount());
+    }
+    
+    @Test
+    public void testUnflipAfterLosingChordOrBatch() {
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT, 4L);
+        BoardEngine board = game.getEngine();
+        assertTrue(game.flip(8, 15));
+        int safe = -1;
+        int mine = -1;
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.isMine(cell)) {
+                mine = mine < 0 ? cell : mine;
+            } else if (!board.isRevealed(cell)) {
+                safe = safe < 0 ? cell : safe;
+            }
+        }
+        // The batch starts with a safe cell, so the mine is not the cell the move recorded
+        assertEquals(2, game.flipAll(new int[] {safe, mine}));
+        assertEquals(GameConstants.GAME_LOST, game.gameResult());
+        assertTrue(game.unflip());
+        assertEquals(GameConstants.GAME_IN_PROGRESS, game.gameResult());
+        assertFalse(board.isRevealed(safe));
+        assertFalse(board.isRevealed(mine));
+        assertFalse(game.unflip());
+        
+        // A 1 with a flag on a safe neighbor: the chord reveals the mine next to it
+        int[] neighbors = new int[8];
+        int number = -1;
+        int wrong = -1;
+        for (int cell = 0; cell < board.cellCount() && wrong < 0; cell++) {
+            if (!board.isRevealed(cell) || board.adjacentMines(cell) != 1) {
+                continue;
+            }
+            for (int i = board.neighbors(cell, neighbors) - 1; i >= 0; i--) {
+                if (!board.isRevealed(neighbors[i]) && !board.isMine(neighbors[i])) {
+                    number = cell;
+                    wrong = neighbors[i];
+                }
+            }
+        }
+        assertTrue(wrong >= 0);
+        assertTrue(game.setFlagged(board.rowOf(wrong), board.colOf(wrong), true));
+        assertTrue(game.chord(board.rowOf(number), board.colOf(number)));
+        assertEquals(GameConstants.GAME_LOST, game.gameResult());
+        assertTrue(game.unflip());
+        assertEquals(GameConstants.GAME_IN_PROGRESS, game.gameResult());
+    }
+    
+    
+    @Test
+    public void testGameBoardClosesScoresOnce(@TempDir Path dir) throws IOException {
+        GameBoard board = new GameBoard(new JLabel(), new JLabel(), BoardConfig.BEGINNER,
+                dir.resolve("scores.log").toString());
+        ScoreWriter writer = board.getScoreWriter();
+        board.closeScores();
+        assertNull(board.getScoreWriter());
+        assertFalse(writer.submit(1, 1, BoardConfig.BEGINNER));
+        // Closing again does nothing, and later scores are not queued
+        board.closeScores();
+        board.write();
+        assertEquals(0, writer.getWrittenCount());
+    }
+}